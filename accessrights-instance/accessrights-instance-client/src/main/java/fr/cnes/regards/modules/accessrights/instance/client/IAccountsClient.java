@@ -18,6 +18,8 @@
  */
 package fr.cnes.regards.modules.accessrights.instance.client;
 
+import java.util.List;
+
 import javax.persistence.EntityNotFoundException;
 import javax.validation.Valid;
 
@@ -34,6 +36,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import fr.cnes.regards.framework.feign.annotation.RestClient;
 import fr.cnes.regards.modules.accessrights.instance.domain.Account;
 import fr.cnes.regards.modules.accessrights.instance.domain.AccountNPassword;
+import fr.cnes.regards.modules.accessrights.instance.domain.AccountProvisioning;
 import fr.cnes.regards.modules.accessrights.instance.domain.CodeType;
 import fr.cnes.regards.modules.accessrights.instance.domain.passwordreset.PerformResetPasswordDto;
 import fr.cnes.regards.modules.accessrights.instance.domain.passwordreset.RequestResetPasswordDto;
@@ -79,6 +82,16 @@ public interface IAccountsClient {
     @RequestMapping(method = RequestMethod.POST)
     ResponseEntity<EntityModel<Account>> createAccount(@Valid @RequestBody AccountNPassword newAccountWithPassword);
 
+    /**
+     * Create several accounts at once. Accounts which already exist are left untouched.
+     *
+     * @param accounts
+     *            accounts to create with their password
+     * @return provisioning result of each account, in the given order
+     */
+    @RequestMapping(value = "/provisioning", method = RequestMethod.POST)
+    ResponseEntity<List<AccountProvisioning>> provisionAccounts(@RequestBody List<AccountNPassword> accounts);
+
     /**
      * Retrieve the {@link Account} of passed <code>id</code>.
      *
@@ -18,14 +18,21 @@
  */
 package fr.cnes.regards.modules.accessrights.instance.dao;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 
 import fr.cnes.regards.framework.jpa.annotation.InstanceEntity;
 import fr.cnes.regards.modules.accessrights.instance.domain.Account;
@@ -52,6 +59,15 @@ public interface IAccountRepository extends JpaRepository<Account, Long> {
      */
     Optional<Account> findOneByEmail(String pEmail);
 
+    /**
+     * Retrieve, among the given emails, the ones already used by an {@link Account}.
+     *
+     * @param emails emails to check
+     * @return existing emails
+     */
+    @Query("select a.email from Account a where a.email in :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
     /**
      * Find all Account which status is not the one provided.
      * @param pStatus the status we do not want
@@ -67,4 +83,30 @@ public interface IAccountRepository extends JpaRepository<Account, Long> {
      */
     Page<Account> findAllByStatus(AccountStatus pStatus, Pageable pPageable);
 
+    /**
+     * Case-insensitive search of accounts by prefix or substring of email, first name or last name, best matches
+     * first: exact email, then email prefix, then first or last name prefix, then any other match.<br>
+     * Backed by lower-case and trigram indexes on these columns.
+     *
+     * @param text searched text, LIKE wildcards are matched literally
+     * @param limit maximum number of accounts
+     * @return ranked accounts
+     */
+    default List<Account> search(String text, int limit) {
+        String term = text.trim().toLowerCase();
+        String escaped = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        List<Long> ids = findIdsBySearch(term, escaped + "%", "%" + escaped + "%", limit).stream()
+                .map(Number::longValue).collect(Collectors.toList());
+        Map<Long, Account> accounts = findAllById(ids).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+        return ids.stream().map(accounts::get).filter(account -> account != null).collect(Collectors.toList());
+    }
+
+    @Query(value = "select a.id from {h-schema}t_account a where lower(a.email) like :pattern "
+            + "or lower(a.firstName) like :pattern or lower(a.lastName) like :pattern "
+            + "order by case when lower(a.email) = :term then 0 when lower(a.email) like :prefix then 1 "
+            + "when lower(a.firstName) like :prefix or lower(a.lastName) like :prefix then 2 else 3 end, "
+            + "length(a.email), a.email limit :limit", nativeQuery = true)
+    List<Number> findIdsBySearch(@Param("term") String term, @Param("prefix") String prefix,
+            @Param("pattern") String pattern, @Param("limit") int limit);
 }
@@ -0,0 +1,18 @@
+create index idx_account_email_lower on t_account (lower(email) varchar_pattern_ops);
+-- Trigram indexes speed up "contains" searches. They need the pg_trgm extension, which may only be created by a
+-- privileged user : if it cannot be created, they are skipped and searches rely on the lower(email) index above.
+do $$
+begin
+    begin
+        create extension if not exists pg_trgm with schema public;
+    exception when insufficient_privilege then
+        raise notice 'pg_trgm extension cannot be created, trigram indexes of t_account skipped';
+    end;
+    if exists (select 1 from pg_extension e join pg_namespace n on n.oid = e.extnamespace
+               where e.extname = 'pg_trgm' and n.nspname = 'public') then
+        execute 'create index idx_account_email_trgm on t_account using gin (lower(email) public.gin_trgm_ops)';
+        execute 'create index idx_account_firstname_trgm on t_account using gin (lower(firstName) public.gin_trgm_ops)';
+        execute 'create index idx_account_lastname_trgm on t_account using gin (lower(lastName) public.gin_trgm_ops)';
+    end if;
+end
+$$;
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.instance.domain;
+
+/**
+ * Result of the provisioning of one {@link Account} by a batched account creation between rs-admin and
+ * rs-admin-instance.
+ *
+ * @author REGARDS Team
+ */
+public class AccountProvisioning {
+
+    /**
+     * Provisioning status
+     */
+    public enum Status {
+        /**
+         * The account has been created
+         */
+        CREATED,
+        /**
+         * An account already exists for this email. It is left untouched.
+         */
+        EXISTING,
+        /**
+         * The account could not be created
+         */
+        INVALID
+    }
+
+    private String email;
+
+    private Status status;
+
+    /**
+     * Reason of the failure, if any
+     */
+    private String message;
+
+    public AccountProvisioning() {
+    }
+
+    public AccountProvisioning(String email, Status status, String message) {
+        this.email = email;
+        this.status = status;
+        this.message = message;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -18,11 +18,14 @@
  */
 package fr.cnes.regards.modules.accessrights.instance.rest;
 
+import java.util.List;
+
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
@@ -55,6 +58,7 @@ import fr.cnes.regards.framework.security.annotation.ResourceAccess;
 import fr.cnes.regards.framework.security.role.DefaultRole;
 import fr.cnes.regards.modules.accessrights.instance.domain.Account;
 import fr.cnes.regards.modules.accessrights.instance.domain.AccountNPassword;
+import fr.cnes.regards.modules.accessrights.instance.domain.AccountProvisioning;
 import fr.cnes.regards.modules.accessrights.instance.domain.AccountStatus;
 import fr.cnes.regards.modules.accessrights.instance.domain.accountunlock.PerformUnlockAccountDto;
 import fr.cnes.regards.modules.accessrights.instance.domain.accountunlock.RequestAccountUnlockDto;
@@ -103,6 +107,11 @@ public class AccountsController implements IResourceController<Account> {
      */
     public static final String PATH_ACCOUNT_ID = "/{account_id}";
 
+    /**
+     * Controller path for batched account creation
+     */
+    public static final String PATH_PROVISIONING = "/provisioning";
+
     public static final String PATH_ACTIVE_ACCOUNT = "/{account_email}/active";
 
     public static final String PATH_INACTIVE_ACCOUNT = "/{account_email}/inactive";
@@ -158,10 +167,13 @@ public class AccountsController implements IResourceController<Account> {
     private ApplicationEventPublisher eventPublisher;
 
     /**
-     * Retrieve the list of all {@link Account}s.
+     * Retrieve the list of all {@link Account}s.<br/>
+     * If a search text is given, status filter and paging are ignored and a single page of at most page size accounts
+     * matching the text in their email, first name or last name, ignoring case, is returned, best matches first.
      * @param pageable the pageable object used by Spring for building the page of result
      * @param assembler injected by Spring to help assemble results as paged resources
      * @param status the account status to filter results on
+     * @param search text to search in email, first name and last name
      * @return The accounts list
      */
     @ResponseBody
@@ -170,8 +182,12 @@ public class AccountsController implements IResourceController<Account> {
     public ResponseEntity<PagedModel<EntityModel<Account>>> retrieveAccountList(
             @PageableDefault(sort = "id", direction = Sort.Direction.ASC) Pageable pageable,
             PagedResourcesAssembler<Account> assembler,
-            @RequestParam(value = "status", required = false) AccountStatus status) {
-        if (status != null) {
+            @RequestParam(value = "status", required = false) AccountStatus status,
+            @RequestParam(value = "search", required = false) String search) {
+        if ((search != null) && !search.trim().isEmpty()) {
+            return ResponseEntity.ok(toPagedResources(
+                    new PageImpl<>(accountService.searchAccounts(search, pageable.getPageSize())), assembler));
+        } else if (status != null) {
             return ResponseEntity.ok(toPagedResources(accountService.retrieveAccountList(status, pageable), assembler));
         } else {
             return ResponseEntity.ok(toPagedResources(accountService.retrieveAccountList(pageable), assembler));
@@ -194,6 +210,19 @@ public class AccountsController implements IResourceController<Account> {
         return new ResponseEntity<>(new EntityModel<>(accountService.createAccount(newAccount)), HttpStatus.CREATED);
     }
 
+    /**
+     * Create several accounts at once. Accounts which already exist are left untouched. Each account is validated like
+     * {@link #createAccount(AccountNPassword)}, an invalid one is reported in its result.
+     * @param accounts accounts to create with their password
+     * @return provisioning result of each account, in the given order
+     */
+    @ResponseBody
+    @RequestMapping(value = PATH_PROVISIONING, method = RequestMethod.POST)
+    @ResourceAccess(description = "create several accounts at once", role = DefaultRole.INSTANCE_ADMIN)
+    public ResponseEntity<List<AccountProvisioning>> provisionAccounts(@RequestBody List<AccountNPassword> accounts) {
+        return ResponseEntity.ok(accountService.provisionAccounts(accounts));
+    }
+
     /**
      * Retrieve the {@link Account} of passed <code>id</code>.
      * @param accountId The {@link Account}'s <code>id</code>
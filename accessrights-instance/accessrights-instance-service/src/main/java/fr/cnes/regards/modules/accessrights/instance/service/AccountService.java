@@ -19,11 +19,18 @@
 package fr.cnes.regards.modules.accessrights.instance.service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,6 +50,8 @@ import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
 import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
 import fr.cnes.regards.modules.accessrights.instance.dao.IAccountRepository;
 import fr.cnes.regards.modules.accessrights.instance.domain.Account;
+import fr.cnes.regards.modules.accessrights.instance.domain.AccountNPassword;
+import fr.cnes.regards.modules.accessrights.instance.domain.AccountProvisioning;
 import fr.cnes.regards.modules.accessrights.instance.domain.AccountStatus;
 import fr.cnes.regards.modules.accessrights.instance.service.encryption.EncryptionUtils;
 import io.micrometer.core.instrument.Counter;
@@ -118,6 +127,9 @@ public class AccountService implements IAccountService {
     @Autowired
     private MeterRegistry registry;
 
+    @Autowired
+    private Validator validator;
+
     @SuppressWarnings("unused")
     private Counter createdAccountCounter;
 
@@ -181,6 +193,11 @@ public class AccountService implements IAccountService {
         return accountRepository.findAllByStatus(pStatus, pPageable);
     }
 
+    @Override
+    public List<Account> searchAccounts(String text, int limit) {
+        return accountRepository.search(text, limit);
+    }
+
     @Override
     public boolean existAccount(Long pId) {
         return accountRepository.existsById(pId);
@@ -188,12 +205,59 @@ public class AccountService implements IAccountService {
 
     @Override
     public Account createAccount(Account account) {
+        return accountRepository.save(prepareCreation(account));
+    }
+
+    @Override
+    public List<AccountProvisioning> provisionAccounts(List<AccountNPassword> accounts) {
+        Set<String> emails = accounts.stream().map(AccountNPassword::getAccount).filter(Objects::nonNull)
+                .map(Account::getEmail).filter(Objects::nonNull).collect(Collectors.toSet());
+        Set<String> existing = emails.isEmpty() ? new HashSet<>()
+                : new HashSet<>(accountRepository.findExistingEmails(emails));
+        List<AccountProvisioning> results = new ArrayList<>(accounts.size());
+        List<Account> toCreate = new ArrayList<>();
+        for (AccountNPassword accountNPassword : accounts) {
+            Account account = accountNPassword.getAccount();
+            if ((account == null) || (account.getEmail() == null)) {
+                results.add(new AccountProvisioning(null, AccountProvisioning.Status.INVALID, "Missing email"));
+                continue;
+            }
+            if (existing.contains(account.getEmail())) {
+                // Also covers an email repeated in the batch
+                results.add(new AccountProvisioning(account.getEmail(), AccountProvisioning.Status.EXISTING, null));
+                continue;
+            }
+            Set<ConstraintViolation<AccountNPassword>> violations = validator.validate(accountNPassword);
+            if (!violations.isEmpty()) {
+                results.add(new AccountProvisioning(account.getEmail(), AccountProvisioning.Status.INVALID,
+                        violations.stream().map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                                .sorted().collect(Collectors.joining(", "))));
+                continue;
+            }
+            account.setPassword(accountNPassword.getPassword());
+            try {
+                checkPassword(account);
+            } catch (EntityInvalidException e) {
+                results.add(new AccountProvisioning(account.getEmail(), AccountProvisioning.Status.INVALID,
+                        e.getMessage()));
+                continue;
+            }
+            existing.add(account.getEmail());
+            toCreate.add(prepareCreation(account));
+            results.add(new AccountProvisioning(account.getEmail(), AccountProvisioning.Status.CREATED, null));
+        }
+        accountRepository.saveAll(toCreate);
+        LOG.info("{} accounts created out of {} requested", toCreate.size(), accounts.size());
+        return results;
+    }
+
+    private Account prepareCreation(Account account) {
         account.setId(null);
         if (account.getPassword() != null) {
             account.setPassword(EncryptionUtils.encryptPassword(account.getPassword()));
         }
         account.setInvalidityDate(LocalDateTime.now().plusDays(accountValidityDuration));
-        return accountRepository.save(account);
+        return account;
     }
 
     @Override
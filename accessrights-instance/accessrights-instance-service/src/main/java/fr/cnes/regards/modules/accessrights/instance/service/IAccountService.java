@@ -18,6 +18,8 @@
  */
 package fr.cnes.regards.modules.accessrights.instance.service;
 
+import java.util.List;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -26,6 +28,8 @@ import fr.cnes.regards.framework.module.rest.exception.EntityInconsistentIdentif
 import fr.cnes.regards.framework.module.rest.exception.EntityInvalidException;
 import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
 import fr.cnes.regards.modules.accessrights.instance.domain.Account;
+import fr.cnes.regards.modules.accessrights.instance.domain.AccountNPassword;
+import fr.cnes.regards.modules.accessrights.instance.domain.AccountProvisioning;
 import fr.cnes.regards.modules.accessrights.instance.domain.AccountStatus;
 
 /**
@@ -44,6 +48,16 @@ public interface IAccountService {
      */
     Account createAccount(Account pAccount);
 
+    /**
+     * Create the given accounts at once.<br/>
+     * Existing emails are checked with a single query, accounts already existing are left untouched and accounts
+     * violating a bean validation constraint or with an invalid password are skipped. Others are saved together.
+     *
+     * @param accounts accounts to create with their password
+     * @return provisioning result of each account, in the given order
+     */
+    List<AccountProvisioning> provisionAccounts(List<AccountNPassword> accounts);
+
     /**
      * Retrieve the list of all {@link Account}s.
      *
@@ -64,6 +78,17 @@ public interface IAccountService {
      */
     Page<Account> retrieveAccountList(AccountStatus pStatus, final Pageable pPageable);
 
+    /**
+     * Search {@link Account}s by prefix or substring of email, first name or last name, ignoring case.
+     *
+     * @param text
+     *            searched text
+     * @param limit
+     *            maximum number of results
+     * @return matching accounts, best matches first
+     */
+    List<Account> searchAccounts(String text, int limit);
+
     /**
      * Retrieve the {@link Account} of passed <code>id</code>.
      *
@@ -34,6 +34,9 @@ import org.springframework.web.bind.annotation.RequestParam;
 
 import fr.cnes.regards.framework.feign.annotation.RestClient;
 import fr.cnes.regards.framework.security.domain.ResourceMapping;
+import fr.cnes.regards.modules.accessrights.client.cache.ConditionalRequestFeignConfiguration;
+import fr.cnes.regards.modules.accessrights.domain.projects.AccessCheck;
+import fr.cnes.regards.modules.accessrights.domain.projects.AuthoritiesSnapshot;
 import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
 
 /**
@@ -42,7 +45,8 @@ import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
  * @author Marc Sordi
  *
  */
-@RestClient(name = "rs-admin", contextId = "rs-admin.ms-resources-client")
+@RestClient(name = "rs-admin", contextId = "rs-admin.ms-resources-client",
+        configuration = ConditionalRequestFeignConfiguration.class)
 @RequestMapping(value = IMicroserviceResourceClient.TYPE_MAPPING, consumes = MediaType.APPLICATION_JSON_VALUE,
         produces = MediaType.APPLICATION_JSON_VALUE)
 public interface IMicroserviceResourceClient {
@@ -62,6 +66,21 @@ public interface IMicroserviceResourceClient {
      */
     String CONTROLLER_MAPPING = CONTROLLERS_MAPPING + "/{controllername}";
 
+    /**
+     * Root to retrieve all access rights of a microservice at once
+     */
+    String SNAPSHOT_MAPPING = "/snapshot";
+
+    /**
+     * Root to retrieve the current access rights version
+     */
+    String SNAPSHOT_VERSION_MAPPING = SNAPSHOT_MAPPING + "/version";
+
+    /**
+     * Root to check many endpoint calls at once
+     */
+    String AUTHORIZATIONS_MAPPING = "/authorizations";
+
     /**
      * Retrieve the resource accesses available to the user of the given microservice
      *
@@ -115,4 +134,38 @@ public interface IMicroserviceResourceClient {
             @PathVariable("microservicename") final String pMicroserviceName,
             @PathVariable("controllername") final String pControllerName);
 
+    /**
+     * Retrieve all roles and all resources of the given microservice with their granted roles in one call
+     *
+     * @param microserviceName
+     *            microservice
+     * @return {@link AuthoritiesSnapshot}
+     */
+    @RequestMapping(method = RequestMethod.GET, value = SNAPSHOT_MAPPING)
+    ResponseEntity<AuthoritiesSnapshot> retrieveAuthoritiesSnapshot(
+            @PathVariable("microservicename") String microserviceName);
+
+    /**
+     * Retrieve the current access rights version
+     *
+     * @param microserviceName
+     *            microservice
+     * @return access rights version
+     */
+    @RequestMapping(method = RequestMethod.GET, value = SNAPSHOT_VERSION_MAPPING)
+    ResponseEntity<Long> retrieveAuthoritiesVersion(@PathVariable("microservicename") String microserviceName);
+
+    /**
+     * Decide in one call whether each role may call each verb and path of the given microservice
+     *
+     * @param microserviceName
+     *            microservice
+     * @param checks
+     *            role, verb and path to check
+     * @return given checks with their decision, in the same order
+     */
+    @RequestMapping(method = RequestMethod.POST, value = AUTHORIZATIONS_MAPPING)
+    ResponseEntity<List<AccessCheck>> checkAuthorizations(@PathVariable("microservicename") String microserviceName,
+            @RequestBody List<AccessCheck> checks);
+
 }
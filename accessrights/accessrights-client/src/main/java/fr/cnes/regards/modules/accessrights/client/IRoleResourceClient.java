@@ -31,6 +31,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 
 import fr.cnes.regards.framework.feign.annotation.RestClient;
+import fr.cnes.regards.modules.accessrights.client.cache.ConditionalRequestFeignConfiguration;
 import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
 
 /**
@@ -39,7 +40,8 @@ import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
  * @author Marc Sordi
  *
  */
-@RestClient(name = "rs-admin", contextId = "rs-admin.role-resource-client")
+@RestClient(name = "rs-admin", contextId = "rs-admin.role-resource-client",
+        configuration = ConditionalRequestFeignConfiguration.class)
 @RequestMapping(value = IRoleResourceClient.TYPE_MAPPING, consumes = MediaType.APPLICATION_JSON_VALUE,
         produces = MediaType.APPLICATION_JSON_VALUE)
 public interface IRoleResourceClient {
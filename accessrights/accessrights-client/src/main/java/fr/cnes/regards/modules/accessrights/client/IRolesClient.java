@@ -34,6 +34,7 @@ import org.springframework.web.bind.annotation.RequestMethod;
 
 import fr.cnes.regards.framework.feign.annotation.RestClient;
 import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
+import fr.cnes.regards.modules.accessrights.client.cache.ConditionalRequestFeignConfiguration;
 import fr.cnes.regards.modules.accessrights.client.cache.RolesHierarchyKeyGenerator;
 import fr.cnes.regards.modules.accessrights.domain.projects.Role;
 
@@ -46,7 +47,8 @@ import fr.cnes.regards.modules.accessrights.domain.projects.Role;
  * @author CS
 
  */
-@RestClient(name = "rs-admin", contextId = "rs-admin.roles-client")
+@RestClient(name = "rs-admin", contextId = "rs-admin.roles-client",
+        configuration = ConditionalRequestFeignConfiguration.class)
 @RequestMapping(value = IRolesClient.TYPE_MAPPING, consumes = MediaType.APPLICATION_JSON_VALUE,
         produces = MediaType.APPLICATION_JSON_VALUE)
 public interface IRolesClient { // NOSONAR
@@ -18,11 +18,12 @@
  */
 package fr.cnes.regards.modules.accessrights.client.cache;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -31,6 +32,8 @@ import fr.cnes.regards.framework.amqp.ISubscriber;
 import fr.cnes.regards.framework.authentication.IAuthenticationResolver;
 import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * SPRING Cache autoconfiguration class
  *
@@ -42,17 +45,26 @@ import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
 @EnableCaching
 public class AccessRightsClientCacheAutoConfiguration {
 
+    /**
+     * Bounded cache manager whose caches can be evicted tenant by tenant
+     * @param maximumSize maximum number of entries by cache
+     * @param timeToLive time to live of an entry in seconds
+     * @param registry optional {@link MeterRegistry} to publish hit/miss statistics
+     * @return {@link TenantAwareCacheManager}
+     */
     @Bean
     @ConditionalOnMissingBean
-    public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager();
+    public CacheManager cacheManager(@Value("${regards.accessrights.client.cache.maximum-size:10000}") long maximumSize,
+            @Value("${regards.accessrights.client.cache.time-to-live:3600}") long timeToLive,
+            ObjectProvider<MeterRegistry> registry) {
+        return new TenantAwareCacheManager(maximumSize, timeToLive, registry.getIfAvailable());
     }
 
     @Bean(RolesHierarchyKeyGenerator.KEY_GENERATOR)
     @ConditionalOnProperty(name = "regards.eureka.client.enabled", havingValue = "true", matchIfMissing = true)
     IRolesHierarchyKeyGenerator rolesHierarchyKeyGenerator(IAuthenticationResolver oauthResolver,
-            IRuntimeTenantResolver resolver) {
-        return new RolesHierarchyKeyGenerator(oauthResolver, resolver);
+            IRuntimeTenantResolver resolver, CacheManager cacheManager) {
+        return new RolesHierarchyKeyGenerator(oauthResolver, resolver, cacheManager);
     }
 
     @Bean
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.client.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import feign.Client;
+
+import feign.Request;
+import feign.Request.HttpMethod;
+import feign.Response;
+import feign.Util;
+
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+
+/**
+ * Feign {@link Client} decorator making GET requests conditional.<br/>
+ * Bodies of responses carrying an entity tag are kept by tenant, credentials and URL. Next requests to the same URL
+ * with the same tenant and credentials send the known tags in <code>If-None-Match</code> and a <code>304 Not Modified</code> answer is turned back into the cached response, so
+ * polling unchanged resources only costs a body less round trip.<br/>
+ * Entity tags are computed by the server from everything the representation depends on (tenant, role...), so several
+ * tags are kept for a single URL.
+ *
+ * @author REGARDS Team
+ */
+public class ConditionalRequestClient implements Client {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConditionalRequestClient.class);
+
+    /**
+     * Maximum number of representations kept for a single URL
+     */
+    private static final int MAX_TAGS_BY_URL = 8;
+
+    private final Client delegate;
+
+    private final IRuntimeTenantResolver runtimeTenantResolver;
+
+    /**
+     * Representations by entity tag by request key (tenant, credentials and URL digest)
+     */
+    private final Cache<String, Map<String, CachedResponse>> cache;
+
+    /**
+     * @param delegate decorated client
+     * @param runtimeTenantResolver resolver of the tenant requests are sent for
+     * @param maximumSize maximum number of cached requests
+     */
+    public ConditionalRequestClient(Client delegate, IRuntimeTenantResolver runtimeTenantResolver,
+            long maximumSize) {
+        this.delegate = delegate;
+        this.runtimeTenantResolver = runtimeTenantResolver;
+        this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        if ((request.httpMethod() != HttpMethod.GET) || request.headers().containsKey(HttpHeaders.IF_NONE_MATCH)) {
+            return delegate.execute(request, options);
+        }
+        Map<String, CachedResponse> known = getKnownResponses(getKey(request));
+        Request conditionalRequest = request;
+        synchronized (known) {
+            if (!known.isEmpty()) {
+                Map<String, Collection<String>> headers = new HashMap<>(request.headers());
+                headers.put(HttpHeaders.IF_NONE_MATCH, Collections.singletonList(String.join(", ", known.keySet())));
+                conditionalRequest = Request.create(request.httpMethod(), request.url(), headers, request.body(),
+                                                    request.charset(), request.requestTemplate());
+            }
+        }
+
+        Response response = delegate.execute(conditionalRequest, options);
+        String etag = getETag(response);
+        if (etag == null) {
+            return response;
+        }
+        if (response.status() == HttpStatus.NOT_MODIFIED.value()) {
+            CachedResponse cached;
+            synchronized (known) {
+                cached = known.get(etag);
+            }
+            response.close();
+            if (cached == null) {
+                // Representation evicted meanwhile
+                return delegate.execute(request, options);
+            }
+            LOGGER.debug("{} not modified since {}", request.url(), etag);
+            return Response.builder().status(HttpStatus.OK.value()).reason(HttpStatus.OK.getReasonPhrase())
+                    .headers(cached.headers).body(cached.body).request(request).build();
+        }
+        if ((response.status() == HttpStatus.OK.value()) && (response.body() != null)) {
+            byte[] body;
+            try {
+                body = Util.toByteArray(response.body().asInputStream());
+            } finally {
+                response.close();
+            }
+            synchronized (known) {
+                known.put(etag, new CachedResponse(response.headers(), body));
+            }
+            return Response.builder().status(response.status()).reason(response.reason())
+                    .headers(response.headers()).body(body).request(request).build();
+        }
+        return response;
+    }
+
+    /**
+     * A representation must never be served to another tenant or user, even if the server tags are supposed to tell
+     * them apart, so the cache is keyed by a digest of the tenant, the <code>Authorization</code> header and the URL.
+     * @return request key
+     */
+    private String getKey(Request request) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        putString(hasher, runtimeTenantResolver.getTenant());
+        request.headers().entrySet().stream()
+                .filter(header -> HttpHeaders.AUTHORIZATION.equalsIgnoreCase(header.getKey()))
+                .flatMap(header -> header.getValue().stream()).forEach(value -> putString(hasher, value));
+        putString(hasher, request.url());
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Length prefixed so that consecutive values cannot be confused
+     */
+    private static void putString(Hasher hasher, String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+        }
+    }
+
+    private Map<String, CachedResponse> getKnownResponses(String key) {
+        try {
+            return cache.get(key, () -> new LinkedHashMap<String, CachedResponse>(MAX_TAGS_BY_URL, 0.75f, true) {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                    return size() > MAX_TAGS_BY_URL;
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static String getETag(Response response) {
+        for (Map.Entry<String, Collection<String>> header : response.headers().entrySet()) {
+            if (HttpHeaders.ETAG.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                return header.getValue().iterator().next();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Cached response headers and body
+     */
+    private static class CachedResponse {
+
+        private final Map<String, Collection<String>> headers;
+
+        private final byte[] body;
+
+        CachedResponse(Map<String, Collection<String>> headers, byte[] body) {
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+}
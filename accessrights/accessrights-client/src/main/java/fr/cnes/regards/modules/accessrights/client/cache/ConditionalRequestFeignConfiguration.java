@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.client.cache;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.HierarchicalBeanFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+import feign.Client;
+
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+
+/**
+ * Feign configuration of the access rights clients whose endpoints answer with entity tags. Their requests go through
+ * a {@link ConditionalRequestClient} so that unchanged access rights are not transferred again.<br/>
+ * This class is only referenced by these clients and must not be a component scanned configuration, otherwise every
+ * Feign client would be decorated.
+ *
+ * @author REGARDS Team
+ */
+public class ConditionalRequestFeignConfiguration {
+
+    /**
+     * @param beanFactory Feign client context bean factory
+     * @param runtimeTenantResolver tenant resolver
+     * @param maximumSize maximum number of cached requests by Feign client
+     * @return {@link ConditionalRequestClient} decorating the application Feign {@link Client}
+     */
+    @Bean
+    @ConditionalOnProperty(name = "regards.accessrights.client.conditional-requests.enabled", havingValue = "true",
+            matchIfMissing = true)
+    public Client conditionalRequestClient(BeanFactory beanFactory, IRuntimeTenantResolver runtimeTenantResolver,
+            @Value("${regards.accessrights.client.conditional-requests.maximum-size:100}") long maximumSize) {
+        // Decorate the client shared by all Feign clients, defined in the application context
+        BeanFactory parent = ((HierarchicalBeanFactory) beanFactory).getParentBeanFactory();
+        Client delegate = parent.getBeanProvider(Client.class).getIfAvailable(() -> new Client.Default(null, null));
+        return new ConditionalRequestClient(delegate, runtimeTenantResolver, maximumSize);
+    }
+}
@@ -28,4 +28,10 @@ public interface IRolesHierarchyKeyGenerator extends KeyGenerator {
 
     public void cleanCache();
 
+    /**
+     * Clear cache entries of the given tenant only
+     * @param tenant tenant
+     */
+    public void cleanCache(String tenant);
+
 }
@@ -39,7 +39,6 @@ public class RoleEventHandler implements ApplicationListener<ApplicationReadyEve
     /**
      * Class logger
      */
-    @SuppressWarnings("unused")
     private static final Logger LOGGER = LoggerFactory.getLogger(RoleEventHandler.class);
 
     private final ISubscriber subscriber;
@@ -62,7 +61,8 @@ public class RoleEventHandler implements ApplicationListener<ApplicationReadyEve
 
         @Override
         public void handle(TenantWrapper<RoleEvent> pWrapper) {
-            rolesKeyGen.cleanCache();
+            LOGGER.debug("Role event received for tenant {}", pWrapper.getTenant());
+            rolesKeyGen.cleanCache(pWrapper.getTenant());
         }
     }
 }
@@ -24,6 +24,8 @@ import javax.annotation.PostConstruct;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.util.StringUtils;
 
@@ -51,10 +53,14 @@ public class RolesHierarchyKeyGenerator implements IRolesHierarchyKeyGenerator {
 
     private final IRuntimeTenantResolver tenantResolver;
 
-    public RolesHierarchyKeyGenerator(IAuthenticationResolver authResolver, IRuntimeTenantResolver tenantResolver) {
+    private final CacheManager cacheManager;
+
+    public RolesHierarchyKeyGenerator(IAuthenticationResolver authResolver, IRuntimeTenantResolver tenantResolver,
+            CacheManager cacheManager) {
         super();
         this.authResolver = authResolver;
         this.tenantResolver = tenantResolver;
+        this.cacheManager = cacheManager;
     }
 
     @PostConstruct
@@ -63,12 +69,13 @@ public class RolesHierarchyKeyGenerator implements IRolesHierarchyKeyGenerator {
     }
 
     /**
-     * Generates a cache key by adding current tenant, current user authenticated role and method parameters.
+     * Generates a cache key bound to the current tenant from current user authenticated role and method parameters.
      */
     @Override
     public Object generate(Object target, Method method, Object... params) {
-        String key = "RolesHierarchyKeyGenerator_" + method.getName() + "_" + tenantResolver.getTenant() + "_"
-                + authResolver.getRole() + "_" + StringUtils.arrayToDelimitedString(params, "_");
+        TenantCacheKey key = new TenantCacheKey(tenantResolver.getTenant(),
+                "RolesHierarchyKeyGenerator_" + method.getName() + "_" + authResolver.getRole() + "_"
+                        + StringUtils.arrayToDelimitedString(params, "_"));
         LOGGER.debug("Generated key {} for cache {} ", key, CACHE_NAME);
         return key;
     }
@@ -82,4 +89,19 @@ public class RolesHierarchyKeyGenerator implements IRolesHierarchyKeyGenerator {
         LOGGER.debug("Cleaning {} cache", CACHE_NAME);
     }
 
+    /**
+     * Clear cache entries of the given tenant. Whole cache is cleared if it cannot be evicted by tenant.
+     */
+    @Override
+    public void cleanCache(String tenant) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache instanceof TenantAwareCache) {
+            LOGGER.debug("Cleaning {} cache for tenant {}", CACHE_NAME, tenant);
+            ((TenantAwareCache) cache).evictTenant(tenant);
+        } else if (cache != null) {
+            LOGGER.debug("Cleaning {} cache", CACHE_NAME);
+            cache.clear();
+        }
+    }
+
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.client.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import com.google.common.cache.CacheBuilder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+
+/**
+ * {@link CacheManager} creating bounded {@link TenantAwareCache}s on demand.<br/>
+ * Every cache holds at most maximumSize entries, each entry expiring timeToLive seconds after being written. Hit and
+ * miss statistics are recorded and bound to the {@link MeterRegistry} if any.
+ *
+ * @author REGARDS Team
+ */
+public class TenantAwareCacheManager implements CacheManager {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(TenantAwareCacheManager.class);
+
+    private final ConcurrentMap<String, TenantAwareCache> caches = new ConcurrentHashMap<>();
+
+    private final long maximumSize;
+
+    private final long timeToLive;
+
+    /**
+     * Optional meter registry (may be null)
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * @param maximumSize maximum number of entries by cache
+     * @param timeToLive time to live of an entry in seconds
+     * @param registry {@link MeterRegistry} to bind cache statistics to (may be null)
+     */
+    public TenantAwareCacheManager(long maximumSize, long timeToLive, MeterRegistry registry) {
+        this.maximumSize = maximumSize;
+        this.timeToLive = timeToLive;
+        this.registry = registry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * Evict entries of the given tenant from all caches
+     * @param tenant tenant
+     */
+    public void evictTenant(String tenant) {
+        caches.values().forEach(cache -> cache.evictTenant(tenant));
+    }
+
+    private TenantAwareCache createCache(String name) {
+        com.google.common.cache.Cache<Object, Object> store = CacheBuilder.newBuilder().maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive, TimeUnit.SECONDS).recordStats().build();
+        if (registry != null) {
+            GuavaCacheMetrics.monitor(registry, store, name);
+        }
+        LOGGER.info("Cache {} created with maximum size {} and time to live {}s", name, maximumSize, timeToLive);
+        return new TenantAwareCache(name, store);
+    }
+}
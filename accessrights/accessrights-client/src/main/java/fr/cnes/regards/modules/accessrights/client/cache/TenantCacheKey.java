@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.client.cache;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Cache key bound to a tenant so that cache entries of a single tenant can be evicted.
+ *
+ * @author REGARDS Team
+ */
+public final class TenantCacheKey implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String tenant;
+
+    private final String key;
+
+    public TenantCacheKey(String tenant, String key) {
+        this.tenant = tenant;
+        this.key = key;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if ((o == null) || (getClass() != o.getClass())) {
+            return false;
+        }
+        TenantCacheKey other = (TenantCacheKey) o;
+        return Objects.equals(tenant, other.tenant) && Objects.equals(key, other.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tenant, key);
+    }
+
+    @Override
+    public String toString() {
+        return tenant + "_" + key;
+    }
+}
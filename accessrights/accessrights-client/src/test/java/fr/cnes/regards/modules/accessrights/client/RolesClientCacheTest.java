@@ -21,11 +21,14 @@ package fr.cnes.regards.modules.accessrights.client;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
 import fr.cnes.regards.modules.accessrights.client.cache.AccessRightsClientCacheAutoConfiguration;
 import fr.cnes.regards.modules.accessrights.client.cache.IRolesHierarchyKeyGenerator;
 
@@ -46,6 +49,9 @@ public class RolesClientCacheTest {
     @Autowired
     MockCounter counter;
 
+    @Autowired
+    IRuntimeTenantResolver tenantResolver;
+
     @Test
     public void test() throws EntityNotFoundException {
 
@@ -72,4 +78,27 @@ public class RolesClientCacheTest {
         Assert.assertEquals(3, counter.getCount());
     }
 
+    @Test
+    @DirtiesContext
+    public void testTenantEviction() throws EntityNotFoundException {
+        int count = counter.getCount();
+
+        Mockito.when(tenantResolver.getTenant()).thenReturn("tenant1");
+        client.shouldAccessToResourceRequiring("tenantRole");
+        Mockito.when(tenantResolver.getTenant()).thenReturn("tenant2");
+        client.shouldAccessToResourceRequiring("tenantRole");
+
+        Assert.assertEquals(count + 2, counter.getCount());
+
+        // Only tenant1 entries are evicted
+        keyGenerator.cleanCache("tenant1");
+
+        client.shouldAccessToResourceRequiring("tenantRole");
+        Assert.assertEquals(count + 2, counter.getCount());
+
+        Mockito.when(tenantResolver.getTenant()).thenReturn("tenant1");
+        client.shouldAccessToResourceRequiring("tenantRole");
+        Assert.assertEquals(count + 3, counter.getCount());
+    }
+
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.dao.projects;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import fr.cnes.regards.modules.accessrights.domain.projects.AccessRightsVersion;
+
+/**
+ * JPA Repository to access the {@link AccessRightsVersion} of a tenant
+ * @author REGARDS Team
+ */
+public interface IAccessRightsVersionRepository extends JpaRepository<AccessRightsVersion, Long> {
+
+    /**
+     * Increment the version in one statement so concurrent transactions cannot lose an increment
+     * @return number of updated versions, 0 if the version does not exist yet
+     */
+    @Modifying
+    @Query("update AccessRightsVersion v set v.version = v.version + 1")
+    int incrementVersion();
+
+    /**
+     * Read the version from database rather than from the persistence context, which may hold a version loaded before
+     * an {@link #incrementVersion()} of the same transaction
+     * @return current version if it exists
+     */
+    @Query("select v.version from AccessRightsVersion v")
+    Optional<Long> findCurrentVersion();
+}
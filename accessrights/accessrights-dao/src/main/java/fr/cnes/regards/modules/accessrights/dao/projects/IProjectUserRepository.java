@@ -18,24 +18,39 @@
  */
 package fr.cnes.regards.modules.accessrights.dao.projects;
 
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 
 import fr.cnes.regards.modules.accessrights.domain.UserStatus;
+import fr.cnes.regards.modules.accessrights.domain.UserVisibility;
 import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUser;
 
 /**
@@ -47,7 +62,14 @@ import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUser;
  * @author Christophe Mertz
  */
 public interface IProjectUserRepository extends JpaRepository<ProjectUser, Long>,
-        JpaSpecificationExecutor<ProjectUser> {
+        JpaSpecificationExecutor<ProjectUser>, IProjectUserRepositoryCustom {
+
+    /**
+     * Recursive common table expression resolving the ids of the role named :roleName and of all its descendants
+     */
+    String ROLE_SUBTREE_CTE = "with recursive subtree(id) as ("
+            + "select r.id from {h-schema}t_role r where r.name = :roleName "
+            + "union select child.id from {h-schema}t_role child join subtree s on child.parent_role_id = s.id) ";
 
     /**
      * Find the single {@link ProjectUser} with passed <code>email</code>.<br>
@@ -94,6 +116,15 @@ public interface IProjectUserRepository extends JpaRepository<ProjectUser, Long>
     @EntityGraph(value = "graph.user.metadata")
     List<ProjectUser> findByEmailIn(Collection<String> pEmail);
 
+    /**
+     * Retrieve, among the given emails, the ones already used by a {@link ProjectUser}, without loading users.
+     *
+     * @param emails emails to check
+     * @return existing emails
+     */
+    @Query("select pu.email from ProjectUser pu where pu.email in :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
     /**
      * Find all project users whose role name equals param.<br>
      * Custom query auto-implemented by JPA thanks to the method naming convention.
@@ -124,6 +155,44 @@ public interface IProjectUserRepository extends JpaRepository<ProjectUser, Long>
     @Query(value = "select pu.id from ProjectUser pu where pu.role.name in :names")
     Page<Long> findIdPageByRoleNameIn(@Param("names") Set<String> names, Pageable pageable);
 
+    /**
+     * Find all project users of the given role and of all its descendants, ordered by id.<br>
+     * Role subtree and user page are resolved in a single recursive query.
+     *
+     * @param roleName
+     *            the root role name
+     * @param pageable
+     *            the pagination information (sort is ignored)
+     * @return all project users with this role or one of its descendants
+     */
+    default Page<ProjectUser> findByRoleSubtree(String roleName, Pageable pageable) {
+        Page<Number> idPage = findIdPageByRoleSubtree(roleName,
+                                                      PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+        List<ProjectUser> projectUsers = new ArrayList<>(
+                findAllById(idPage.getContent().stream().map(Number::longValue).collect(Collectors.toList())));
+        projectUsers.sort(Comparator.comparing(ProjectUser::getId));
+        return new PageImpl<>(projectUsers, pageable, idPage.getTotalElements());
+    }
+
+    @Query(value = ROLE_SUBTREE_CTE + "select pu.id from {h-schema}t_project_user pu "
+            + "where pu.role_id in (select id from subtree) order by pu.id",
+            countQuery = ROLE_SUBTREE_CTE + "select count(pu.id) from {h-schema}t_project_user pu "
+                    + "where pu.role_id in (select id from subtree)",
+            nativeQuery = true)
+    Page<Number> findIdPageByRoleSubtree(@Param("roleName") String roleName, Pageable pageable);
+
+    /**
+     * Find emails of all project users of the given role and of all its descendants in a single recursive query.
+     *
+     * @param roleName
+     *            the root role name
+     * @return project user emails
+     */
+    @Query(value = ROLE_SUBTREE_CTE
+            + "select pu.email from {h-schema}t_project_user pu where pu.role_id in (select id from subtree)",
+            nativeQuery = true)
+    List<String> findEmailsByRoleSubtree(@Param("roleName") String roleName);
+
     /**
      * Find all project users Custom query auto-implemented by JPA thanks to the method naming convention.
      *
@@ -153,4 +222,85 @@ public interface IProjectUserRepository extends JpaRepository<ProjectUser, Long>
     @Override
     @EntityGraph(value = "graph.user.metadata")
     Page<ProjectUser> findAll(Specification<ProjectUser> spec, Pageable pageable);
+
+    /**
+     * Find the first project users respecting the given specification, in the specification order, without any count
+     * query. Meant for keyset pagination: the specification is expected to start after the last user of the previous
+     * slice.
+     *
+     * @param spec project user specification
+     * @param size slice size
+     * @return slice of project users
+     */
+    default Slice<ProjectUser> findSlice(Specification<ProjectUser> spec, int size) {
+        // One more identifier tells whether there is a next slice
+        List<Long> ids = findIds(spec, size + 1);
+        boolean hasNext = ids.size() > size;
+        List<Long> sliceIds = hasNext ? ids.subList(0, size) : ids;
+        return new SliceImpl<>(findAllByIdInOrder(sliceIds), PageRequest.of(0, size), hasNext);
+    }
+
+    /**
+     * Find all project users with given identifiers, with their metadata, in the order of the identifiers.
+     *
+     * @param ids project user identifiers
+     * @return project users
+     */
+    default List<ProjectUser> findAllByIdInOrder(List<Long> ids) {
+        // Metadata fetch may duplicate users
+        Map<Long, ProjectUser> projectUsers = findAllById(ids).stream()
+                .collect(Collectors.toMap(ProjectUser::getId, Function.identity(), (first, other) -> first));
+        return ids.stream().map(projectUsers::get).filter(projectUser -> projectUser != null)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Case-insensitive search of project users by email prefix or substring, best matches first: exact match, then
+     * prefix matches, then earliest and shortest substring matches.<br>
+     * Backed by lower-case and trigram indexes on email.
+     *
+     * @param text searched text, LIKE wildcards are matched literally
+     * @param limit maximum number of project users
+     * @return ranked project users
+     */
+    default List<ProjectUser> searchByEmail(String text, int limit) {
+        String term = text.trim().toLowerCase();
+        String escaped = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        List<Long> ids = findIdsByEmailSearch(term, escaped + "%", "%" + escaped + "%", limit).stream()
+                .map(Number::longValue).collect(Collectors.toList());
+        return findAllByIdInOrder(ids);
+    }
+
+    @Query(value = "select pu.id from {h-schema}t_project_user pu where lower(pu.email) like :pattern "
+            + "order by case when lower(pu.email) = :term then 0 when lower(pu.email) like :prefix then 1 else 2 end, "
+            + "position(:term in lower(pu.email)), length(pu.email), pu.email limit :limit", nativeQuery = true)
+    List<Number> findIdsByEmailSearch(@Param("term") String term, @Param("prefix") String prefix,
+            @Param("pattern") String pattern, @Param("limit") int limit);
+
+    /**
+     * Reset the licence acceptance of all project users in one statement. Users which did not accept the licence are
+     * left untouched.
+     *
+     * @param lastUpdate last update date to set, as entity listeners are bypassed
+     * @return number of updated project users
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update ProjectUser pu set pu.licenseAccepted = false, pu.lastUpdate = :lastUpdate "
+            + "where pu.licenseAccepted = true")
+    int resetLicences(@Param("lastUpdate") OffsetDateTime lastUpdate);
+
+    /**
+     * Stream all project users with their role name and metadata, as [id, email, role name, status, metadata key,
+     * metadata value] rows ordered by user id (one row per metadata, at least one per user).<br>
+     * Rows are read through a forward-only cursor, so the stream must be consumed and closed within a transaction.
+     *
+     * @param excludedVisibility visibility of the metadata to leave out
+     * @return stream of rows
+     */
+    @QueryHints({ @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true") })
+    @Query("select pu.id, pu.email, r.name, pu.status, m.key, m.value from ProjectUser pu left join pu.role r "
+            + "left join pu.metadata m on (m.visibility is null or m.visibility <> :excludedVisibility) "
+            + "order by pu.id")
+    Stream<Object[]> streamForExport(@Param("excludedVisibility") UserVisibility excludedVisibility);
 }
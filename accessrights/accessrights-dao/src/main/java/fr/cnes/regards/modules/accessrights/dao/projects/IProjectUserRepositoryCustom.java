@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.dao.projects;
+
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUser;
+
+/**
+ * Custom queries of {@link IProjectUserRepository} that cannot be derived by Spring Data.
+ *
+ * @author REGARDS Team
+ */
+public interface IProjectUserRepositoryCustom {
+
+    /**
+     * Find identifiers of the first project users respecting the given specification, in the specification order,
+     * without any count query.
+     *
+     * @param spec project user specification
+     * @param limit maximum number of identifiers
+     * @return project user identifiers
+     */
+    List<Long> findIds(Specification<ProjectUser> spec, int limit);
+}
@@ -149,4 +149,40 @@ public interface IResourcesAccessRepository extends JpaRepository<ResourcesAcces
     @Query(value = "select distinct controller_name from {h-schema}t_resources_access res, {h-schema}ta_resource_role resrole, {h-schema}t_role role  where microservice = ?1 and defaultrole <> 'INSTANCE_ADMIN' and res.id = resrole.resource_id and resrole.role_id = role.id and role.name = ?2 order by controller_name",
             nativeQuery = true)
     List<String> findManageableControllers(String pMicroservice, String roleName);
+
+    /**
+     * Retrieve a page of the resources granted to a role
+     * @param roleName role name
+     * @param pageable the pagination information
+     * @return {@link Page} of {@link ResourcesAccess}
+     */
+    @Query(value = "select ra from ResourcesAccess ra where exists (select granted.id from Role role join role.permissions granted where granted = ra and role.name = ?1)",
+            countQuery = "select count(ra) from Role role join role.permissions ra where role.name = ?1")
+    Page<ResourcesAccess> findByRoleName(String roleName, Pageable pageable);
+
+    /**
+     * Retrieve a page of the resources of a microservice granted to a role
+     * @param roleName role name
+     * @param microservice microservice name
+     * @param pageable the pagination information
+     * @return {@link Page} of {@link ResourcesAccess}
+     */
+    @Query(value = "select ra from ResourcesAccess ra where ra.microservice = ?2 and exists (select granted.id from Role role join role.permissions granted where granted = ra and role.name = ?1)",
+            countQuery = "select count(ra) from Role role join role.permissions ra where role.name = ?1 and ra.microservice = ?2")
+    Page<ResourcesAccess> findByRoleNameAndMicroservice(String roleName, String microservice, Pageable pageable);
+
+    /**
+     * Retrieve identifiers of all resources, in ascending order
+     * @return {@link List} of {@link ResourcesAccess} identifiers
+     */
+    @Query("select ra.id from ResourcesAccess ra order by ra.id")
+    List<Long> findAllIds();
+
+    /**
+     * Retrieve all role/resource associations of a microservice
+     * @param microservice microservice name
+     * @return {@link List} of [role name, {@link ResourcesAccess} identifier] pairs
+     */
+    @Query("select role.name, ra.id from Role role join role.permissions ra where ra.microservice = ?1")
+    List<Object[]> findRoleResourceIdsByMicroservice(String microservice);
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.dao.projects;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesFingerprint;
+
+/**
+ * JPA Repository to access {@link ResourcesFingerprint} entities
+ * @author REGARDS Team
+ */
+public interface IResourcesFingerprintRepository extends JpaRepository<ResourcesFingerprint, Long> {
+
+    /**
+     * Retrieve the fingerprint of the last endpoints registered by a microservice
+     * @param microservice microservice name
+     * @return {@link ResourcesFingerprint}
+     */
+    Optional<ResourcesFingerprint> findByMicroservice(String microservice);
+}
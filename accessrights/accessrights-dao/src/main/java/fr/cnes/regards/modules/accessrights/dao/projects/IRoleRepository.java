@@ -23,10 +23,14 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
+import javax.persistence.QueryHint;
+
 import org.springframework.data.domain.Example;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 
@@ -35,11 +39,15 @@ import fr.cnes.regards.modules.accessrights.domain.projects.Role;
 /**
  * Interface for a JPA auto-generated CRUD repository managing {@link Role}s.<br>
  * Embed paging/sorting abilities by extending {@link PagingAndSortingRepository}.<br>
- * Allows execution of Query by Example {@link Example} instances.
+ * Allows execution of Query by Example {@link Example} instances.<br>
+ * Most frequent lookups are stored in the {@link Role#QUERY_CACHE_REGION} query cache when second level cache is
+ * enabled.<br>
+ * Set based statements on permissions do not update loaded roles: call {@link #refreshPermissions(Collection)}
+ * afterwards.
  * @author Xavier-Alexandre Brochard
  * @author Christophe Mertz
  */
-public interface IRoleRepository extends JpaRepository<Role, Long> {
+public interface IRoleRepository extends JpaRepository<Role, Long>, IRoleRepositoryCustom {
 
     /**
      * Find the unique {@link Role} where <code>default</code> equal to passed boolean.<br>
@@ -56,6 +64,8 @@ public interface IRoleRepository extends JpaRepository<Role, Long> {
      * @param pName The <code>name</code>
      * @return The found {@link Role}
      */
+    @QueryHints({ @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = Role.QUERY_CACHE_REGION) })
     @EntityGraph(value = "graph.role.permissions")
     Optional<Role> findOneByName(String pName);
 
@@ -64,6 +74,8 @@ public interface IRoleRepository extends JpaRepository<Role, Long> {
      * @param name role name
      * @return role
      */
+    @QueryHints({ @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = Role.QUERY_CACHE_REGION) })
     @EntityGraph(value = "graph.role.parent")
     Optional<Role> findByName(String name);
 
@@ -71,6 +83,8 @@ public interface IRoleRepository extends JpaRepository<Role, Long> {
      * Find the role with its permissions
      * @param pId role identifier
      */
+    @QueryHints({ @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = Role.QUERY_CACHE_REGION) })
     @EntityGraph(value = "graph.role.permissions")
     Role findOneById(Long pId);
 
@@ -82,11 +96,21 @@ public interface IRoleRepository extends JpaRepository<Role, Long> {
      */
     List<Role> findByNameIn(Collection<String> pNames);
 
+    /**
+     * Same method as {@link #findByNameIn(Collection)} loading permissions.
+     * @param names The {@link Collection} of <code>name</code>
+     * @return The {@link List} of found {@link Role}s
+     */
+    @EntityGraph(value = "graph.role.permissions")
+    List<Role> findDistinctWithPermissionsByNameIn(Collection<String> names);
+
     /**
      * Find all roles which parent role is the given name.
      * @param pName name of the parent role
      * @return a {@link List} of {@link Role}
      */
+    @QueryHints({ @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = Role.QUERY_CACHE_REGION) })
     @Query("select distinct r from Role r left join fetch r.permissions where r.parentRole.name=:pName")
     Set<Role> findByParentRoleName(@Param("pName") final String pName);
 
@@ -97,10 +121,71 @@ public interface IRoleRepository extends JpaRepository<Role, Long> {
     @Query("select distinct r from Role r left join fetch r.permissions")
     Set<Role> findAllDistinctLazy();
 
+    /**
+     * Find all {@link Role}s with their parent role but without any permission.
+     * Useful to build role hierarchy.
+     * @return a {@link List} of {@link Role}
+     */
+    @Query("select r from Role r left join fetch r.parentRole")
+    List<Role> findAllWithParent();
+
     /**
      * Find all roles associated to given ResourceAccess Id
      * @return a {@link Set} of {@link Role}
      */
     Set<Role> findByPermissionsId(Long pPermissionId);
 
+    /**
+     * Find, among the given roles, the ones that miss at least one of the given resources, with the microservice of the
+     * missing resources.
+     * @param roleNames names of the roles to consider
+     * @param resourceIds identifiers of the resources to consider
+     * @return {@link List} of [role name, microservice] pairs
+     */
+    @Query(value = "select distinct role.name, res.microservice from {h-schema}t_role role, "
+            + "{h-schema}t_resources_access res where role.name in (:roleNames) and res.id in (:resourceIds) "
+            + "and not exists (select 1 from {h-schema}ta_resource_role resrole where resrole.role_id = role.id and resrole.resource_id = res.id)",
+            nativeQuery = true)
+    List<Object[]> findMissingPermissions(@Param("roleNames") Collection<String> roleNames,
+            @Param("resourceIds") Collection<Long> resourceIds);
+
+    /**
+     * Find, among the given roles, the ones that own at least one of the given resources, with the microservice of the
+     * owned resources.
+     * @param roleNames names of the roles to consider
+     * @param resourceIds identifiers of the resources to consider
+     * @return {@link List} of [role name, microservice] pairs
+     */
+    @Query(value = "select distinct role.name, res.microservice from {h-schema}t_role role, "
+            + "{h-schema}t_resources_access res, {h-schema}ta_resource_role resrole where role.name in (:roleNames) "
+            + "and res.id in (:resourceIds) and resrole.role_id = role.id and resrole.resource_id = res.id", nativeQuery = true)
+    List<Object[]> findOwnedPermissions(@Param("roleNames") Collection<String> roleNames,
+            @Param("resourceIds") Collection<Long> resourceIds);
+
+    /**
+     * Grant all the given resources to all the given roles in one statement. Already granted resources are skipped.
+     * @param roleNames names of the roles to update
+     * @param resourceIds identifiers of the resources to grant
+     * @return number of created associations
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "insert into {h-schema}ta_resource_role (role_id, resource_id) select role.id, res.id from "
+            + "{h-schema}t_role role, {h-schema}t_resources_access res where role.name in (:roleNames) "
+            + "and res.id in (:resourceIds) and not exists (select 1 from {h-schema}ta_resource_role resrole "
+            + "where resrole.role_id = role.id and resrole.resource_id = res.id)", nativeQuery = true)
+    int addPermissions(@Param("roleNames") Collection<String> roleNames,
+            @Param("resourceIds") Collection<Long> resourceIds);
+
+    /**
+     * Revoke all the given resources from all the given roles in one statement.
+     * @param roleNames names of the roles to update
+     * @param resourceIds identifiers of the resources to revoke
+     * @return number of removed associations
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "delete from {h-schema}ta_resource_role where resource_id in (:resourceIds) and role_id in "
+            + "(select role.id from {h-schema}t_role role where role.name in (:roleNames))", nativeQuery = true)
+    int removePermissions(@Param("roleNames") Collection<String> roleNames,
+            @Param("resourceIds") Collection<Long> resourceIds);
+
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.dao.projects;
+
+import java.util.Collection;
+
+import fr.cnes.regards.modules.accessrights.domain.projects.Role;
+
+/**
+ * Custom operations of {@link IRoleRepository} that cannot be derived by Spring Data.
+ *
+ * @author REGARDS Team
+ */
+public interface IRoleRepositoryCustom {
+
+    /**
+     * Reload from database the permissions of the given roles that are already loaded in the current persistence
+     * context. Must be called after a set based statement on their permissions, so that saving one of these roles
+     * afterwards does not write its outdated permissions back.
+     *
+     * @param roleNames names of the modified roles
+     */
+    void refreshPermissions(Collection<String> roleNames);
+}
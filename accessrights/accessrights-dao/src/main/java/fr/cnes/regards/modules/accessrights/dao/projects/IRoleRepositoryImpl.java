@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.dao.projects;
+
+import java.util.Collection;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+
+import fr.cnes.regards.modules.accessrights.domain.projects.Role;
+
+/**
+ * Implementation of {@link IRoleRepositoryCustom}, detected by Spring Data from its name.
+ *
+ * @author REGARDS Team
+ */
+public class IRoleRepositoryImpl implements IRoleRepositoryCustom {
+
+    private static final String PERMISSIONS = "permissions";
+
+    private final EntityManager entityManager;
+
+    public IRoleRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public void refreshPermissions(Collection<String> roleNames) {
+        if (roleNames.isEmpty()) {
+            return;
+        }
+        PersistenceUnitUtil util = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        // Roles already in the persistence context are returned as is. Not loaded permissions are read from database
+        // on first access anyway, only loaded ones may be outdated.
+        entityManager.createQuery("select r from Role r where r.name in :names", Role.class)
+                .setParameter("names", roleNames).getResultList().stream()
+                .filter(role -> util.isLoaded(role, PERMISSIONS)).forEach(entityManager::refresh);
+    }
+}
@@ -11,6 +11,8 @@ import com.google.common.collect.Sets;
 
 import fr.cnes.regards.modules.accessrights.domain.UserStatus;
 import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUser;
+import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUserCursor;
+import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUserCursor.SortKey;
 
 /**
  * JPA {@link Specification} to define {@link Predicate}s for criteria search for {@link ProjectUser} from repository.
@@ -22,7 +24,7 @@ public final class ProjectUserSpecification {
     }
 
     /**
-     * Filter on the given attributes and return result ordered by ascending login
+     * Filter on the given attributes and return result ordered by ascending login. Email prefix is case-insensitive.
      */
     public static Specification<ProjectUser> search(String status, String emailStart) {
         return (root, query, cb) -> {
@@ -31,10 +33,39 @@ public final class ProjectUserSpecification {
                 predicates.add(cb.equal(root.get("status"), UserStatus.valueOf(status)));
             }
             if (!Strings.isNullOrEmpty(emailStart)) {
-                predicates.add(cb.like(root.get("email"), emailStart + "%"));
+                predicates.add(cb.like(cb.lower(root.get("email")), emailStart.toLowerCase() + "%"));
             }
             query.orderBy(cb.asc(root.get("email")));
             return cb.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    /**
+     * Filter on the given attributes, keep only users after the given cursor and return result ordered by ascending
+     * cursor sort key, so that the database can seek directly to the first user of the page.
+     */
+    public static Specification<ProjectUser> searchAfter(String status, String emailStart, String roleName,
+            ProjectUserCursor cursor) {
+        return (root, query, cb) -> {
+            Set<Predicate> predicates = Sets.newHashSet();
+            if (!Strings.isNullOrEmpty(status)) {
+                predicates.add(cb.equal(root.get("status"), UserStatus.valueOf(status)));
+            }
+            if (!Strings.isNullOrEmpty(emailStart)) {
+                predicates.add(cb.like(cb.lower(root.get("email")), emailStart.toLowerCase() + "%"));
+            }
+            if (!Strings.isNullOrEmpty(roleName)) {
+                predicates.add(cb.equal(root.get("role").get("name"), roleName));
+            }
+            if (!cursor.isFirst()) {
+                if (cursor.getSortKey() == SortKey.ID) {
+                    predicates.add(cb.greaterThan(root.get("id"), cursor.getLastId()));
+                } else {
+                    predicates.add(cb.greaterThan(root.get("email"), cursor.getLastValue()));
+                }
+            }
+            query.orderBy(cb.asc(root.get(cursor.getSortKey().getAttribute())));
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
 }
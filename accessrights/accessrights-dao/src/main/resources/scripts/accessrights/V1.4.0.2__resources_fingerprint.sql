@@ -0,0 +1,3 @@
+create table t_resources_fingerprint (id int8 not null, fingerprint varchar(64), microservice varchar(32), primary key (id));
+alter table t_resources_fingerprint add constraint uk_resources_fingerprint_microservice unique (microservice);
+create sequence seq_resources_fingerprint start 1 increment 50;
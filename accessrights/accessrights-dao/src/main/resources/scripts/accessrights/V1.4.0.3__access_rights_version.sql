@@ -0,0 +1,2 @@
+create table t_access_rights_version (id int8 not null, version int8 not null, primary key (id));
+insert into t_access_rights_version (id, version) values (1, 0);
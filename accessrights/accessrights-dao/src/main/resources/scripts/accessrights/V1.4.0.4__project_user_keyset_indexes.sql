@@ -0,0 +1,2 @@
+create index idx_project_user_status_id on t_project_user (status, id);
+create index idx_project_user_role_id on t_project_user (role_id, id);
@@ -0,0 +1,16 @@
+create index idx_project_user_email_lower on t_project_user (lower(email) varchar_pattern_ops);
+-- Trigram index speeds up "contains" searches. It needs the pg_trgm extension, which may only be created by a
+-- privileged user : if it cannot be created, it is skipped and searches rely on the lower(email) index above.
+do $$
+begin
+    begin
+        create extension if not exists pg_trgm with schema public;
+    exception when insufficient_privilege then
+        raise notice 'pg_trgm extension cannot be created, trigram index of t_project_user skipped';
+    end;
+    if exists (select 1 from pg_extension e join pg_namespace n on n.oid = e.extnamespace
+               where e.extname = 'pg_trgm' and n.nspname = 'public') then
+        execute 'create index idx_project_user_email_trgm on t_project_user using gin (lower(email) public.gin_trgm_ops)';
+    end if;
+end
+$$;
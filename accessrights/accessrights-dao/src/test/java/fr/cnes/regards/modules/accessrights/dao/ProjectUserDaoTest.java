@@ -20,6 +20,9 @@ package fr.cnes.regards.modules.accessrights.dao;
 
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -133,4 +136,25 @@ public class ProjectUserDaoTest {
                             projectUserRepository.findAll().size(), result.getContent().size());
     }
 
+    @Test
+    public void testCaseInsensitiveSearch() {
+        RoleFactory factory = new RoleFactory();
+        Role role = roleRepository.save(factory.createPublic());
+        projectUserRepository.save(new ProjectUser("Jane.Doe@test.com", role, new ArrayList<>(), new ArrayList<>()));
+        projectUserRepository.save(new ProjectUser("doe@test.com", role, new ArrayList<>(), new ArrayList<>()));
+        projectUserRepository.save(new ProjectUser("john@doe.com", role, new ArrayList<>(), new ArrayList<>()));
+        projectUserRepository.save(new ProjectUser("other@test.com", role, new ArrayList<>(), new ArrayList<>()));
+
+        Page<ProjectUser> result = projectUserRepository.findAll(ProjectUserSpecification.search(null, "JANE"),
+                                                                 PageRequest.of(0, 4));
+        Assert.assertEquals(1, result.getContent().size());
+
+        // Prefix match first, then earliest and shortest substring match
+        List<ProjectUser> found = projectUserRepository.searchByEmail("DOE", 10);
+        Assert.assertEquals(Arrays.asList("doe@test.com", "john@doe.com", "Jane.Doe@test.com"),
+                            found.stream().map(ProjectUser::getEmail).collect(Collectors.toList()));
+        Assert.assertEquals(1, projectUserRepository.searchByEmail("doe", 1).size());
+        // Wildcards are matched literally
+        Assert.assertTrue(projectUserRepository.searchByEmail("%", 10).isEmpty());
+    }
 }
@@ -26,6 +26,9 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.context.transaction.BeforeTransaction;
@@ -67,6 +70,8 @@ public class ResourcesAccessDaoTest {
 
     private static final String ADMIN_URL = "/admin";
 
+    private static final String OTHER_MS_NAME = "rs-other";
+
     private Role publicRole;
 
     private Role userRole;
@@ -188,4 +193,64 @@ public class ResourcesAccessDaoTest {
         Assert.assertEquals(1, manageableControllers.size());
     }
 
+    @Test
+    public void findByRoleName() {
+        ResourcesAccess otherResource = resourceAccessRepository
+                .save(new ResourcesAccess("Other resource", OTHER_MS_NAME, ADMIN_URL, CONTROLLER_NAME1,
+                        RequestMethod.GET, DefaultRole.ADMIN));
+        adminRole.addPermission(otherResource);
+        adminRole = roleRepository.save(adminRole);
+
+        // Paging over all microservices
+        Page<ResourcesAccess> page = resourceAccessRepository
+                .findByRoleName(DefaultRole.ADMIN.toString(), PageRequest.of(0, 2, Sort.by("id")));
+        Assert.assertEquals(5, page.getTotalElements());
+        Assert.assertEquals(3, page.getTotalPages());
+        Assert.assertEquals(2, page.getContent().size());
+        Assert.assertTrue(page.getContent().get(0).getId() < page.getContent().get(1).getId());
+        page = resourceAccessRepository.findByRoleName(DefaultRole.ADMIN.toString(),
+                                                       PageRequest.of(2, 2, Sort.by("id")));
+        Assert.assertEquals(1, page.getContent().size());
+        Assert.assertEquals(5, page.getTotalElements());
+
+        page = resourceAccessRepository.findByRoleName(DefaultRole.PUBLIC.toString(), PageRequest.of(0, 10));
+        Assert.assertEquals(1, page.getTotalElements());
+        Assert.assertEquals(PUBLIC_URL, page.getContent().get(0).getResource());
+
+        page = resourceAccessRepository.findByRoleName("UNKNOWN", PageRequest.of(0, 10));
+        Assert.assertEquals(0, page.getTotalElements());
+        Assert.assertTrue(page.getContent().isEmpty());
+    }
+
+    @Test
+    public void findByRoleNameAndMicroservice() {
+        ResourcesAccess otherResource = resourceAccessRepository
+                .save(new ResourcesAccess("Other resource", OTHER_MS_NAME, ADMIN_URL, CONTROLLER_NAME1,
+                        RequestMethod.GET, DefaultRole.ADMIN));
+        adminRole.addPermission(otherResource);
+        adminRole = roleRepository.save(adminRole);
+
+        Page<ResourcesAccess> page = resourceAccessRepository
+                .findByRoleNameAndMicroservice(DefaultRole.ADMIN.toString(), MS_NAME,
+                                               PageRequest.of(0, 3, Sort.by("id")));
+        Assert.assertEquals(4, page.getTotalElements());
+        Assert.assertEquals(2, page.getTotalPages());
+        Assert.assertEquals(3, page.getContent().size());
+        Assert.assertTrue(page.getContent().stream().allMatch(ra -> MS_NAME.equals(ra.getMicroservice())));
+        page = resourceAccessRepository.findByRoleNameAndMicroservice(DefaultRole.ADMIN.toString(), MS_NAME,
+                                                                      PageRequest.of(1, 3, Sort.by("id")));
+        Assert.assertEquals(1, page.getContent().size());
+
+        page = resourceAccessRepository.findByRoleNameAndMicroservice(DefaultRole.ADMIN.toString(), OTHER_MS_NAME,
+                                                                      PageRequest.of(0, 10));
+        Assert.assertEquals(1, page.getTotalElements());
+        Assert.assertEquals(otherResource.getId(), page.getContent().get(0).getId());
+
+        // Resource of the other microservice is not granted to REGISTERED_USER
+        page = resourceAccessRepository.findByRoleNameAndMicroservice(DefaultRole.REGISTERED_USER.toString(),
+                                                                      OTHER_MS_NAME, PageRequest.of(0, 10));
+        Assert.assertEquals(0, page.getTotalElements());
+        Assert.assertTrue(page.getContent().isEmpty());
+    }
+
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.domain.projects;
+
+import org.springframework.web.bind.annotation.RequestMethod;
+
+/**
+ * Authorization check of a call to a microservice endpoint by a role.<br/>
+ * Sent with role, verb and path. Sent back with the decision.
+ * @author REGARDS Team
+ */
+public class AccessCheck {
+
+    /**
+     * Calling role
+     */
+    private String role;
+
+    /**
+     * Http verb of the call
+     */
+    private RequestMethod verb;
+
+    /**
+     * Called path, either concrete (/entities/12) or a registered template (/entities/{id})
+     */
+    private String path;
+
+    /**
+     * Decision, null until checked
+     */
+    private Boolean allowed;
+
+    /**
+     * Default constructor
+     */
+    public AccessCheck() {
+        // for (de)serialization
+    }
+
+    /**
+     * Constructor
+     * @param role calling role
+     * @param verb http verb
+     * @param path called path
+     */
+    public AccessCheck(String role, RequestMethod verb, String path) {
+        this.role = role;
+        this.verb = verb;
+        this.path = path;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public RequestMethod getVerb() {
+        return verb;
+    }
+
+    public void setVerb(RequestMethod verb) {
+        this.verb = verb;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public Boolean getAllowed() {
+        return allowed;
+    }
+
+    public void setAllowed(Boolean allowed) {
+        this.allowed = allowed;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.domain.projects;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import fr.cnes.regards.framework.jpa.IIdentifiable;
+
+/**
+ * Version of the access rights of a tenant (roles and resources accesses).<br>
+ * A tenant holds a single version, incremented each time one of its roles or resources accesses changes.
+ * @author REGARDS Team
+ */
+@Entity
+@Table(name = "t_access_rights_version")
+public class AccessRightsVersion implements IIdentifiable<Long> {
+
+    /**
+     * Identifier of the unique version of a tenant
+     */
+    public static final Long UNIQUE_ID = 1L;
+
+    /**
+     * Identifier
+     */
+    @Id
+    @Column(name = "id")
+    private Long id = UNIQUE_ID;
+
+    /**
+     * Current version
+     */
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
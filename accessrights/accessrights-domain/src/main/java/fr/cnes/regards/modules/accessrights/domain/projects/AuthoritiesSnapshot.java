@@ -0,0 +1,261 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.domain.projects;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import fr.cnes.regards.framework.security.role.DefaultRole;
+
+/**
+ * Compact view of all the access rights of one microservice for one tenant : every role with its parent and every
+ * resource of the microservice with the names of the roles granted to it.<br>
+ * The access rights version allows clients to know if their copy is up to date.
+ * @author REGARDS Team
+ */
+public class AuthoritiesSnapshot {
+
+    /**
+     * Microservice name
+     */
+    private String microservice;
+
+    /**
+     * Access rights version of the tenant when the snapshot was taken
+     */
+    private long version;
+
+    /**
+     * All roles of the tenant
+     */
+    private List<RoleEntry> roles = new ArrayList<>();
+
+    /**
+     * All resources of the microservice
+     */
+    private List<ResourceEntry> resources = new ArrayList<>();
+
+    /**
+     * Default constructor
+     */
+    public AuthoritiesSnapshot() {
+        // for (de)serialization
+    }
+
+    /**
+     * Constructor
+     * @param microservice microservice name
+     * @param version access rights version
+     */
+    public AuthoritiesSnapshot(String microservice, long version) {
+        this.microservice = microservice;
+        this.version = version;
+    }
+
+    public String getMicroservice() {
+        return microservice;
+    }
+
+    public void setMicroservice(String microservice) {
+        this.microservice = microservice;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public List<RoleEntry> getRoles() {
+        return roles;
+    }
+
+    public void setRoles(List<RoleEntry> roles) {
+        this.roles = roles;
+    }
+
+    public List<ResourceEntry> getResources() {
+        return resources;
+    }
+
+    public void setResources(List<ResourceEntry> resources) {
+        this.resources = resources;
+    }
+
+    /**
+     * Role of a snapshot
+     */
+    public static class RoleEntry {
+
+        private String name;
+
+        /**
+         * Parent role name, null for roots
+         */
+        private String parent;
+
+        private boolean isNative;
+
+        private List<String> authorizedAddresses = new ArrayList<>();
+
+        /**
+         * Default constructor
+         */
+        public RoleEntry() {
+            // for (de)serialization
+        }
+
+        /**
+         * Constructor
+         * @param role {@link Role} to describe
+         */
+        public RoleEntry(Role role) {
+            name = role.getName();
+            parent = role.getParentRole() == null ? null : role.getParentRole().getName();
+            isNative = role.isNative();
+            if (role.getAuthorizedAddresses() != null) {
+                authorizedAddresses.addAll(role.getAuthorizedAddresses());
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getParent() {
+            return parent;
+        }
+
+        public void setParent(String parent) {
+            this.parent = parent;
+        }
+
+        public boolean isNative() {
+            return isNative;
+        }
+
+        public void setNative(boolean isNative) {
+            this.isNative = isNative;
+        }
+
+        public List<String> getAuthorizedAddresses() {
+            return authorizedAddresses;
+        }
+
+        public void setAuthorizedAddresses(List<String> authorizedAddresses) {
+            this.authorizedAddresses = authorizedAddresses;
+        }
+    }
+
+    /**
+     * Resource of a snapshot with the names of the roles it is granted to
+     */
+    public static class ResourceEntry {
+
+        private String resource;
+
+        private RequestMethod verb;
+
+        private String controllerSimpleName;
+
+        private String description;
+
+        /**
+         * Minimal native role the resource was registered with
+         */
+        private DefaultRole defaultRole;
+
+        private List<String> roles = new ArrayList<>();
+
+        /**
+         * Default constructor
+         */
+        public ResourceEntry() {
+            // for (de)serialization
+        }
+
+        /**
+         * Constructor
+         * @param access {@link ResourcesAccess} to describe
+         */
+        public ResourceEntry(ResourcesAccess access) {
+            resource = access.getResource();
+            verb = access.getVerb();
+            controllerSimpleName = access.getControllerSimpleName();
+            description = access.getDescription();
+            defaultRole = access.getDefaultRole();
+        }
+
+        public String getResource() {
+            return resource;
+        }
+
+        public void setResource(String resource) {
+            this.resource = resource;
+        }
+
+        public RequestMethod getVerb() {
+            return verb;
+        }
+
+        public void setVerb(RequestMethod verb) {
+            this.verb = verb;
+        }
+
+        public String getControllerSimpleName() {
+            return controllerSimpleName;
+        }
+
+        public void setControllerSimpleName(String controllerSimpleName) {
+            this.controllerSimpleName = controllerSimpleName;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public void setDescription(String description) {
+            this.description = description;
+        }
+
+        public DefaultRole getDefaultRole() {
+            return defaultRole;
+        }
+
+        public void setDefaultRole(DefaultRole defaultRole) {
+            this.defaultRole = defaultRole;
+        }
+
+        public List<String> getRoles() {
+            return roles;
+        }
+
+        public void setRoles(List<String> roles) {
+            this.roles = roles;
+        }
+    }
+}
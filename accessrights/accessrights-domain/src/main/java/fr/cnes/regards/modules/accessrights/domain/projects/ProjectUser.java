@@ -33,6 +33,7 @@ import javax.persistence.ForeignKey;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.NamedAttributeNode;
@@ -62,6 +63,8 @@ import fr.cnes.regards.modules.accessrights.domain.projects.listeners.ProjectUse
  */
 @Entity
 @Table(name = "t_project_user",
+        indexes = { @Index(name = "idx_project_user_status_id", columnList = "status, id"),
+                @Index(name = "idx_project_user_role_id", columnList = "role_id, id") },
         uniqueConstraints = @UniqueConstraint(name = "uk_project_user_email", columnNames = { "email" }))
 @EntityListeners(ProjectUserListener.class)
 @SequenceGenerator(name = "projectUserSequence", initialValue = 1, sequenceName = "seq_project_user")
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.domain.projects;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of a keyset (seek) pagination over {@link ProjectUser}s, i.e. the sort key and its value for the last
+ * returned user.<br/>
+ * Clients only handle its opaque form given by {@link #encode()}.
+ *
+ * @author REGARDS Team
+ */
+public final class ProjectUserCursor {
+
+    /**
+     * Unique attributes a keyset pagination can be ordered by
+     */
+    public enum SortKey {
+
+        ID("id"),
+
+        EMAIL("email");
+
+        private final String attribute;
+
+        SortKey(String attribute) {
+            this.attribute = attribute;
+        }
+
+        /**
+         * @return {@link ProjectUser} attribute name
+         */
+        public String getAttribute() {
+            return attribute;
+        }
+    }
+
+    private static final char SEPARATOR = ':';
+
+    private final SortKey sortKey;
+
+    /**
+     * Sort key value of the last returned user, null before the first page
+     */
+    private final String lastValue;
+
+    private ProjectUserCursor(SortKey sortKey, String lastValue) {
+        this.sortKey = sortKey;
+        this.lastValue = lastValue;
+    }
+
+    /**
+     * @param sortKey sort key
+     * @return cursor before the first page
+     */
+    public static ProjectUserCursor first(SortKey sortKey) {
+        return new ProjectUserCursor(sortKey, null);
+    }
+
+    /**
+     * @param sortKey sort key
+     * @param last last returned user
+     * @return cursor just after the given user
+     */
+    public static ProjectUserCursor after(SortKey sortKey, ProjectUser last) {
+        return new ProjectUserCursor(sortKey,
+                sortKey == SortKey.ID ? String.valueOf(last.getId()) : last.getEmail());
+    }
+
+    /**
+     * @param cursor opaque cursor
+     * @return decoded cursor
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    public static ProjectUserCursor decode(String cursor) {
+        String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separator = value.indexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid project user cursor " + cursor);
+        }
+        SortKey sortKey = SortKey.valueOf(value.substring(0, separator));
+        String lastValue = value.substring(separator + 1);
+        if (lastValue.isEmpty()) {
+            return first(sortKey);
+        }
+        if (sortKey == SortKey.ID) {
+            // Fails on invalid identifier
+            Long.parseLong(lastValue);
+        }
+        return new ProjectUserCursor(sortKey, lastValue);
+    }
+
+    /**
+     * @return opaque form of this cursor
+     */
+    public String encode() {
+        String value = sortKey.name() + SEPARATOR + (lastValue == null ? "" : lastValue);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public SortKey getSortKey() {
+        return sortKey;
+    }
+
+    /**
+     * @return true if this cursor is before the first page
+     */
+    public boolean isFirst() {
+        return lastValue == null;
+    }
+
+    public String getLastValue() {
+        return lastValue;
+    }
+
+    /**
+     * @return identifier of the last returned user, only relevant for {@link SortKey#ID}
+     */
+    public Long getLastId() {
+        return isFirst() ? null : Long.valueOf(lastValue);
+    }
+}
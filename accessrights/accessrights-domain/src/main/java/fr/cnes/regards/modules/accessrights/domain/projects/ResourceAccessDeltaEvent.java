@@ -0,0 +1,197 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.domain.projects;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import fr.cnes.regards.framework.amqp.event.Event;
+import fr.cnes.regards.framework.amqp.event.ISubscribable;
+import fr.cnes.regards.framework.amqp.event.Target;
+
+/**
+ * Change of the resources granted to a role on one microservice, published along with the framework resource access
+ * event so that microservices can patch their access rights instead of retrieving them all again.<br>
+ * Version is the access rights version of the tenant after the change. All changes of a same transaction share the
+ * same version.
+ * @author REGARDS Team
+ */
+@Event(target = Target.ALL)
+public class ResourceAccessDeltaEvent implements ISubscribable {
+
+    /**
+     * Microservice owning the changed resources
+     */
+    private String microservice;
+
+    /**
+     * Changed role
+     */
+    private String roleName;
+
+    /**
+     * Access rights version of the tenant after the change
+     */
+    private long version;
+
+    /**
+     * Resources granted to the role
+     */
+    private List<ResourceKey> added = new ArrayList<>();
+
+    /**
+     * Resources no longer granted to the role
+     */
+    private List<ResourceKey> removed = new ArrayList<>();
+
+    /**
+     * Default constructor
+     */
+    public ResourceAccessDeltaEvent() {
+        // for (de)serialization
+    }
+
+    /**
+     * Constructor
+     * @param microservice microservice owning the changed resources
+     * @param roleName changed role
+     * @param version access rights version after the change
+     */
+    public ResourceAccessDeltaEvent(String microservice, String roleName, long version) {
+        this.microservice = microservice;
+        this.roleName = roleName;
+        this.version = version;
+    }
+
+    public String getMicroservice() {
+        return microservice;
+    }
+
+    public void setMicroservice(String microservice) {
+        this.microservice = microservice;
+    }
+
+    public String getRoleName() {
+        return roleName;
+    }
+
+    public void setRoleName(String roleName) {
+        this.roleName = roleName;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public List<ResourceKey> getAdded() {
+        return added;
+    }
+
+    public void setAdded(List<ResourceKey> added) {
+        this.added = added;
+    }
+
+    public List<ResourceKey> getRemoved() {
+        return removed;
+    }
+
+    public void setRemoved(List<ResourceKey> removed) {
+        this.removed = removed;
+    }
+
+    /**
+     * Identifies a resource of a microservice
+     */
+    public static class ResourceKey {
+
+        private RequestMethod verb;
+
+        private String resource;
+
+        /**
+         * Default constructor
+         */
+        public ResourceKey() {
+            // for (de)serialization
+        }
+
+        /**
+         * Constructor
+         * @param verb http verb
+         * @param resource resource path
+         */
+        public ResourceKey(RequestMethod verb, String resource) {
+            this.verb = verb;
+            this.resource = resource;
+        }
+
+        /**
+         * @param access {@link ResourcesAccess}
+         * @return key of the given resource
+         */
+        public static ResourceKey of(ResourcesAccess access) {
+            return new ResourceKey(access.getVerb(), access.getResource());
+        }
+
+        public RequestMethod getVerb() {
+            return verb;
+        }
+
+        public void setVerb(RequestMethod verb) {
+            this.verb = verb;
+        }
+
+        public String getResource() {
+            return resource;
+        }
+
+        public void setResource(String resource) {
+            this.resource = resource;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if ((o == null) || (getClass() != o.getClass())) {
+                return false;
+            }
+            ResourceKey other = (ResourceKey) o;
+            return (verb == other.verb) && Objects.equals(resource, other.resource);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(verb, resource);
+        }
+
+        @Override
+        public String toString() {
+            return verb + "@" + resource;
+        }
+    }
+}
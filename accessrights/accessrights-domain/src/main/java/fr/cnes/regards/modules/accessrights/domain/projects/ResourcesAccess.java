@@ -18,6 +18,7 @@
  */
 package fr.cnes.regards.modules.accessrights.domain.projects;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
@@ -29,6 +30,8 @@ import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Type;
 import javax.validation.constraints.NotBlank;
 import org.springframework.web.bind.annotation.RequestMethod;
@@ -48,10 +51,17 @@ import fr.cnes.regards.framework.security.role.DefaultRole;
 
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ResourcesAccess.CACHE_REGION)
 @Table(name = "t_resources_access")
 @SequenceGenerator(name = "resourcesAccessSequence", initialValue = 1, sequenceName = "seq_resources_access")
 public class ResourcesAccess implements IIdentifiable<Long> {
 
+    /**
+     * Second level cache region of resources accesses
+     */
+    public static final String CACHE_REGION = "accessrights.resourcesaccess";
+
     /**
      * Resource identifier
      */
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.domain.projects;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.validation.constraints.NotBlank;
+
+import fr.cnes.regards.framework.jpa.IIdentifiable;
+
+/**
+ * Content hash of the last set of endpoints registered by a microservice.<br>
+ * Used to skip {@link ResourcesAccess} registration when a microservice restarts with unchanged endpoints.
+ * @author REGARDS Team
+ */
+@Entity
+@Table(name = "t_resources_fingerprint",
+        uniqueConstraints = @UniqueConstraint(name = "uk_resources_fingerprint_microservice",
+                columnNames = { "microservice" }))
+@SequenceGenerator(name = "resourcesFingerprintSequence", initialValue = 1,
+        sequenceName = "seq_resources_fingerprint")
+public class ResourcesFingerprint implements IIdentifiable<Long> {
+
+    /**
+     * Identifier
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "resourcesFingerprintSequence")
+    @Column(name = "id")
+    private Long id;
+
+    /**
+     * Microservice owning the registered endpoints
+     */
+    @NotBlank
+    @Column(name = "microservice", length = 32)
+    private String microservice;
+
+    /**
+     * Hexadecimal SHA-256 hash of the registered endpoints
+     */
+    @NotBlank
+    @Column(name = "fingerprint", length = 64)
+    private String fingerprint;
+
+    /**
+     * Default constructor
+     */
+    public ResourcesFingerprint() {
+        super();
+    }
+
+    /**
+     * Constructor
+     * @param microservice microservice name
+     * @param fingerprint endpoints hash
+     */
+    public ResourcesFingerprint(String microservice, String fingerprint) {
+        super();
+        this.microservice = microservice;
+        this.fingerprint = fingerprint;
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getMicroservice() {
+        return microservice;
+    }
+
+    public void setMicroservice(String microservice) {
+        this.microservice = microservice;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+}
@@ -22,6 +22,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Convert;
 import javax.persistence.Entity;
@@ -45,6 +46,9 @@ import javax.persistence.UniqueConstraint;
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import fr.cnes.regards.framework.gson.annotation.GsonIgnore;
 import fr.cnes.regards.framework.jpa.IIdentifiable;
 import fr.cnes.regards.modules.accessrights.domain.projects.validation.HasValidParent;
@@ -63,10 +67,14 @@ import fr.cnes.regards.modules.accessrights.domain.projects.validation.HasValidP
  *     <li>PROJECT ADMIN</li>
  * </ol>
  *
+ * Roles and their permissions are stored in the second level cache (see {@link #CACHE_REGION}) when it is enabled.
+ *
  * @author Xavier-Alexandre Brochard
  * @author Sébastien Binda
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Role.CACHE_REGION)
 @Table(name = "t_role", indexes = { @Index(name = "idx_role_name", columnList = "name") },
         uniqueConstraints = @UniqueConstraint(name = "uk_role_name", columnNames = { "name" }))
 @SequenceGenerator(name = "roleSequence", initialValue = 1, sequenceName = "seq_role")
@@ -80,6 +88,21 @@ import fr.cnes.regards.modules.accessrights.domain.projects.validation.HasValidP
                         attributeNodes = { @NamedAttributeNode(value = "permissions") }) }) })
 public class Role implements IIdentifiable<Long> {
 
+    /**
+     * Second level cache region of roles
+     */
+    public static final String CACHE_REGION = "accessrights.role";
+
+    /**
+     * Second level cache region of role permissions
+     */
+    public static final String PERMISSIONS_CACHE_REGION = "accessrights.role.permissions";
+
+    /**
+     * Query cache region of role queries
+     */
+    public static final String QUERY_CACHE_REGION = "accessrights.role.queries";
+
     /**
      * Role identifier
      */
@@ -110,6 +133,7 @@ public class Role implements IIdentifiable<Long> {
     @Valid
     @ManyToMany
     @OrderBy("resource")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Role.PERMISSIONS_CACHE_REGION)
     @JoinTable(name = "ta_resource_role",
             joinColumns = @JoinColumn(name = "role_id", referencedColumnName = "ID",
                     foreignKey = @ForeignKey(name = "fk_resource_role_role_id")),
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.domain.projects;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import fr.cnes.regards.framework.security.role.DefaultRole;
+
+/**
+ * Immutable, name based view of the {@link Role} tree of one tenant.<br/>
+ * Parents, children, strict descendants and lineage (strict ancestors, nearest first) are computed once at build time
+ * so that hierarchy questions can be answered without any database access.<br/>
+ * As for {@link RoleLineageAssembler}, the lineage follows the {@link Role#getParentRole()} streak.
+ *
+ * @author REGARDS Team
+ */
+public final class RoleHierarchy {
+
+    private static final RoleHierarchy EMPTY = new RoleHierarchy(Collections.emptyMap(), Collections.emptySet());
+
+    /**
+     * Parent role name by role name, null for roots (PUBLIC, PROJECT_ADMIN, INSTANCE_ADMIN)
+     */
+    private final Map<String, String> parents;
+
+    private final Set<String> natives;
+
+    private final Set<String> names;
+
+    private final Map<String, Set<String>> children;
+
+    private final Map<String, Set<String>> descendants;
+
+    private final Map<String, List<String>> lineages;
+
+    private RoleHierarchy(Map<String, String> parents, Set<String> natives) {
+        this.parents = parents;
+        this.natives = natives;
+        // Compute role names and direct children
+        Set<String> allNames = new HashSet<>(natives);
+        Map<String, Set<String>> childrenByName = new HashMap<>();
+        for (Map.Entry<String, String> entry : parents.entrySet()) {
+            allNames.add(entry.getKey());
+            if (entry.getValue() != null) {
+                allNames.add(entry.getValue());
+                childrenByName.computeIfAbsent(entry.getValue(), k -> new HashSet<>()).add(entry.getKey());
+            }
+        }
+        this.names = Collections.unmodifiableSet(allNames);
+        // Compute lineages
+        Map<String, List<String>> lineageByName = new HashMap<>();
+        for (String name : allNames) {
+            lineageByName.put(name, Collections.unmodifiableList(computeLineage(name)));
+        }
+        this.lineages = Collections.unmodifiableMap(lineageByName);
+        // Compute strict descendants from lineages
+        Map<String, Set<String>> descendantsByName = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : lineageByName.entrySet()) {
+            for (String ancestor : entry.getValue()) {
+                descendantsByName.computeIfAbsent(ancestor, k -> new HashSet<>()).add(entry.getKey());
+            }
+        }
+        Map<String, Set<String>> unmodifiableChildren = new HashMap<>();
+        childrenByName.forEach((name, set) -> unmodifiableChildren.put(name, Collections.unmodifiableSet(set)));
+        this.children = Collections.unmodifiableMap(unmodifiableChildren);
+        Map<String, Set<String>> unmodifiableDescendants = new HashMap<>();
+        descendantsByName
+                .forEach((name, set) -> unmodifiableDescendants.put(name, Collections.unmodifiableSet(set)));
+        this.descendants = Collections.unmodifiableMap(unmodifiableDescendants);
+    }
+
+    /**
+     * @return a hierarchy without any role
+     */
+    public static RoleHierarchy empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Build the hierarchy of the given roles. Parent roles are only read through their names.
+     * @param roles all roles of a tenant
+     * @return {@link RoleHierarchy}
+     */
+    public static RoleHierarchy of(Collection<Role> roles) {
+        Map<String, String> parents = new HashMap<>();
+        Set<String> natives = new HashSet<>();
+        for (Role role : roles) {
+            parents.put(role.getName(), role.getParentRole() == null ? null : role.getParentRole().getName());
+            if (role.isNative()) {
+                natives.add(role.getName());
+            }
+        }
+        return new RoleHierarchy(Collections.unmodifiableMap(parents), Collections.unmodifiableSet(natives));
+    }
+
+    private List<String> computeLineage(String name) {
+        List<String> lineage = new ArrayList<>();
+        // Guard against inconsistent data (cycles) with visited names
+        Set<String> visited = new LinkedHashSet<>();
+        visited.add(name);
+        String parent = parents.get(name);
+        while ((parent != null) && visited.add(parent)) {
+            lineage.add(parent);
+            parent = parents.get(parent);
+        }
+        return lineage;
+    }
+
+    /**
+     * @param name role name
+     * @return true if the role is part of this hierarchy
+     */
+    public boolean contains(String name) {
+        return names.contains(name);
+    }
+
+    /**
+     * @return all role names of this hierarchy
+     */
+    public Set<String> getNames() {
+        return names;
+    }
+
+    /**
+     * @param name role name
+     * @return true if the role is a native one
+     */
+    public boolean isNative(String name) {
+        return natives.contains(name);
+    }
+
+    /**
+     * @param name role name
+     * @return parent role name if any
+     */
+    public Optional<String> getParent(String name) {
+        return Optional.ofNullable(parents.get(name));
+    }
+
+    /**
+     * @param name role name
+     * @return names of the roles which parent is the given one
+     */
+    public Set<String> getChildren(String name) {
+        return children.getOrDefault(name, Collections.emptySet());
+    }
+
+    /**
+     * @param name role name
+     * @return names of all the roles having the given one in their lineage (the role itself excluded)
+     */
+    public Set<String> getDescendants(String name) {
+        return descendants.getOrDefault(name, Collections.emptySet());
+    }
+
+    /**
+     * @param name role name
+     * @return parent, grand parent and so on of the given role (the role itself excluded)
+     */
+    public List<String> getLineage(String name) {
+        return lineages.getOrDefault(name, Collections.emptyList());
+    }
+
+    /**
+     * @param name role name
+     * @return number of ancestors of the given role, 0 for a root role
+     */
+    public int getDepth(String name) {
+        return getLineage(name).size();
+    }
+
+    /**
+     * Check if a role is hierarchically inferior to another one, with the same rules as the role service :
+     * PROJECT_ADMIN is inferior to nobody, everything else is inferior to PROJECT_ADMIN and INSTANCE_ADMIN and a role
+     * is inferior to another one if it is (or, if not native, its parent is) in the lineage of the other one.
+     * @param first role that should be inferior
+     * @param second reference role
+     * @return true if first is strictly inferior to second
+     */
+    public boolean isHierarchicallyInferior(String first, String second) {
+        if (DefaultRole.PROJECT_ADMIN.toString().equals(first)) {
+            return false;
+        }
+        if (DefaultRole.INSTANCE_ADMIN.toString().equals(second) || DefaultRole.PROJECT_ADMIN.toString()
+                .equals(second)) {
+            return true;
+        }
+        if (first.equals(second)) {
+            return false;
+        }
+        String reference = isNative(first) ? first : parents.get(first);
+        return (reference != null) && getLineage(second).contains(reference);
+    }
+
+    /**
+     * @return number of roles in this hierarchy
+     */
+    public int size() {
+        return names.size();
+    }
+}
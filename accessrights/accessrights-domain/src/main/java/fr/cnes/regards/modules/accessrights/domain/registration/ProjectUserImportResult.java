@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.domain.registration;
+
+/**
+ * Result of the import of one {@link AccessRequestDto} by a bulk project user import.
+ *
+ * @author REGARDS Team
+ */
+public class ProjectUserImportResult {
+
+    /**
+     * Import status of a row
+     */
+    public enum Status {
+        /**
+         * The project user has been created
+         */
+        CREATED,
+        /**
+         * A project user already exists for this email. It is left untouched.
+         */
+        ALREADY_EXISTS,
+        /**
+         * The row is invalid or its account could not be created
+         */
+        INVALID,
+        /**
+         * The row could not be processed because of a technical error
+         */
+        ERROR
+    }
+
+    /**
+     * Position of the row in the import, starting from 0
+     */
+    private int index;
+
+    private String email;
+
+    private Status status;
+
+    /**
+     * Role given to the created project user
+     */
+    private String roleName;
+
+    /**
+     * True if the account of the user has been created by the import
+     */
+    private boolean accountCreated;
+
+    /**
+     * Reason of the failure, if any
+     */
+    private String message;
+
+    public ProjectUserImportResult() {
+    }
+
+    public ProjectUserImportResult(int index, String email) {
+        this.index = index;
+        this.email = email;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getRoleName() {
+        return roleName;
+    }
+
+    public void setRoleName(String roleName) {
+        this.roleName = roleName;
+    }
+
+    public boolean isAccountCreated() {
+        return accountCreated;
+    }
+
+    public void setAccountCreated(boolean accountCreated) {
+        this.accountCreated = accountCreated;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Set the final status of the row
+     * @param status {@link Status}
+     * @param message reason of the failure, may be null
+     * @return this result
+     */
+    public ProjectUserImportResult withStatus(Status status, String message) {
+        this.status = status;
+        this.message = message;
+        return this;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.domain.projects;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUserCursor.SortKey;
+
+/**
+ * Unit testing of {@link ProjectUserCursor}
+ *
+ * @author REGARDS Team
+ */
+public class ProjectUserCursorTest {
+
+    @Test
+    public void testEncodeDecode() {
+        ProjectUser user = new ProjectUser();
+        user.setId(42L);
+        user.setEmail("user:one@regards.fr");
+
+        ProjectUserCursor byId = ProjectUserCursor.decode(ProjectUserCursor.after(SortKey.ID, user).encode());
+        Assert.assertEquals(SortKey.ID, byId.getSortKey());
+        Assert.assertEquals(Long.valueOf(42L), byId.getLastId());
+        Assert.assertFalse(byId.isFirst());
+
+        ProjectUserCursor byEmail = ProjectUserCursor.decode(ProjectUserCursor.after(SortKey.EMAIL, user).encode());
+        Assert.assertEquals(SortKey.EMAIL, byEmail.getSortKey());
+        Assert.assertEquals(user.getEmail(), byEmail.getLastValue());
+
+        ProjectUserCursor first = ProjectUserCursor.decode(ProjectUserCursor.first(SortKey.EMAIL).encode());
+        Assert.assertTrue(first.isFirst());
+        Assert.assertNull(first.getLastId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCursor() {
+        ProjectUserCursor.decode("not a cursor");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidIdentifier() {
+        ProjectUserCursor.decode(Base64.getUrlEncoder().encodeToString("ID:abc".getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.domain.projects;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit testing of {@link RoleHierarchy}
+ *
+ * @author REGARDS Team
+ */
+public class RoleHierarchyTest {
+
+    private Role publicRole;
+
+    private Role registeredUser;
+
+    private Role admin;
+
+    private Role projectAdmin;
+
+    private Role adminSon;
+
+    private Role registeredUserSon;
+
+    private RoleHierarchy hierarchy;
+
+    @Before
+    public void init() {
+        RoleFactory factory = new RoleFactory().doNotAutoCreateParents();
+        publicRole = factory.createPublic();
+        registeredUser = factory.createRegisteredUser();
+        registeredUser.setParentRole(publicRole);
+        admin = factory.createAdmin();
+        admin.setParentRole(registeredUser);
+        projectAdmin = factory.createProjectAdmin();
+        adminSon = new Role("ADMIN_SON", admin);
+        registeredUserSon = new Role("REGISTERED_USER_SON", registeredUser);
+        hierarchy = RoleHierarchy
+                .of(Arrays.asList(publicRole, registeredUser, admin, projectAdmin, adminSon, registeredUserSon));
+    }
+
+    @Test
+    public void testLineage() {
+        Assert.assertEquals(6, hierarchy.size());
+        Assert.assertTrue(hierarchy.getLineage(publicRole.getName()).isEmpty());
+        Assert.assertEquals(Arrays.asList(registeredUser.getName(), publicRole.getName()),
+                            hierarchy.getLineage(admin.getName()));
+        Assert.assertEquals(Arrays.asList(admin.getName(), registeredUser.getName(), publicRole.getName()),
+                            hierarchy.getLineage(adminSon.getName()));
+        Assert.assertEquals(3, hierarchy.getDepth(adminSon.getName()));
+        Assert.assertEquals(0, hierarchy.getDepth(projectAdmin.getName()));
+        Assert.assertEquals(admin.getName(), hierarchy.getParent(adminSon.getName()).get());
+        Assert.assertFalse(hierarchy.getParent(publicRole.getName()).isPresent());
+    }
+
+    @Test
+    public void testDescendants() {
+        Assert.assertEquals(new HashSet<>(Arrays.asList(registeredUser.getName(), registeredUserSon.getName(),
+                                                        admin.getName(), adminSon.getName())),
+                            hierarchy.getDescendants(publicRole.getName()));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(adminSon.getName())),
+                            hierarchy.getDescendants(admin.getName()));
+        Assert.assertTrue(hierarchy.getDescendants(projectAdmin.getName()).isEmpty());
+        Assert.assertEquals(new HashSet<>(Arrays.asList(admin.getName(), registeredUserSon.getName())),
+                            hierarchy.getChildren(registeredUser.getName()));
+    }
+
+    @Test
+    public void testHierarchicallyInferior() {
+        Assert.assertTrue(hierarchy.isHierarchicallyInferior(publicRole.getName(), admin.getName()));
+        Assert.assertTrue(hierarchy.isHierarchicallyInferior(registeredUser.getName(), adminSon.getName()));
+        // Non native role is compared through its parent
+        Assert.assertTrue(hierarchy.isHierarchicallyInferior(registeredUserSon.getName(), admin.getName()));
+        Assert.assertFalse(hierarchy.isHierarchicallyInferior(admin.getName(), registeredUser.getName()));
+        Assert.assertFalse(hierarchy.isHierarchicallyInferior(admin.getName(), admin.getName()));
+        Assert.assertTrue(hierarchy.isHierarchicallyInferior(admin.getName(), projectAdmin.getName()));
+        Assert.assertFalse(hierarchy.isHierarchicallyInferior(projectAdmin.getName(), admin.getName()));
+    }
+
+    @Test
+    public void testNativeAndUnknownRoles() {
+        Assert.assertTrue(hierarchy.isNative(admin.getName()));
+        Assert.assertFalse(hierarchy.isNative(adminSon.getName()));
+        Assert.assertFalse(hierarchy.contains("UNKNOWN"));
+        Assert.assertTrue(hierarchy.getLineage("UNKNOWN").isEmpty());
+        Assert.assertTrue(hierarchy.getDescendants("UNKNOWN").isEmpty());
+        Assert.assertEquals(0, RoleHierarchy.empty().size());
+    }
+}
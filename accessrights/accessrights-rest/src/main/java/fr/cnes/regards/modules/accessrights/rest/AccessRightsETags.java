@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.rest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Entity tags of access rights responses.<br/>
+ * A tag is built from the access rights version of the tenant and from everything else the response depends on
+ * (tenant, caller role, request parameters) so that a client can skip unchanged bodies with <code>If-None-Match</code>.
+ *
+ * @author REGARDS Team
+ */
+final class AccessRightsETags {
+
+    private AccessRightsETags() {
+    }
+
+    /**
+     * Discriminants are length prefixed before being digested with SHA-256 so that two different lists cannot be
+     * encoded the same way.
+     * @param version access rights version
+     * @param discriminants everything else the response depends on
+     * @return strong entity tag
+     */
+    static String of(long version, Object... discriminants) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+        for (Object discriminant : discriminants) {
+            // Null is encoded apart from the "null" string
+            String encoded = discriminant == null ? "~" : discriminant.toString().length() + ":" + discriminant;
+            digest.update(encoded.getBytes(StandardCharsets.UTF_8));
+        }
+        StringBuilder tag = new StringBuilder("\"").append(version).append('-');
+        for (byte b : digest.digest()) {
+            tag.append(String.format("%02x", b));
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * @param ifNoneMatch <code>If-None-Match</code> request header value (may be null)
+     * @param etag current entity tag
+     * @return whether the client already holds the current representation
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        return Arrays.stream(ifNoneMatch.split(",")).map(String::trim)
+                .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                .anyMatch(tag -> "*".equals(tag) || etag.equals(tag));
+    }
+
+    /**
+     * @return body less 304 response
+     */
+    static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
+    /**
+     * @return 200 response carrying the entity tag
+     */
+    static <T> ResponseEntity<T> ok(String etag, T body) {
+        return ResponseEntity.ok().eTag(etag).body(body);
+    }
+}
@@ -29,10 +29,12 @@ import org.springframework.data.web.PageableDefault;
 import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
@@ -41,11 +43,17 @@ import fr.cnes.regards.framework.authentication.IAuthenticationResolver;
 import fr.cnes.regards.framework.hateoas.IResourceController;
 import fr.cnes.regards.framework.hateoas.IResourceService;
 import fr.cnes.regards.framework.module.rest.exception.ModuleException;
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
 import fr.cnes.regards.framework.security.annotation.ResourceAccess;
 import fr.cnes.regards.framework.security.domain.ResourceMapping;
 import fr.cnes.regards.framework.security.role.DefaultRole;
+import fr.cnes.regards.modules.accessrights.domain.projects.AccessCheck;
+import fr.cnes.regards.modules.accessrights.domain.projects.AuthoritiesSnapshot;
 import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
+import fr.cnes.regards.modules.accessrights.service.resources.IAuthoritiesSnapshotService;
 import fr.cnes.regards.modules.accessrights.service.resources.IResourcesService;
+import fr.cnes.regards.modules.accessrights.service.resources.IRouteAuthorizationService;
+import fr.cnes.regards.modules.accessrights.service.version.IAccessRightsVersionService;
 
 /**
  * Microservice resource management API
@@ -70,6 +78,21 @@ public class MicroserviceResourceController implements IResourceController<Resou
      */
     public static final String CONTROLLER_MAPPING = CONTROLLERS_MAPPING + "/{controllername}";
 
+    /**
+     * Root to retrieve all access rights of a microservice at once
+     */
+    public static final String SNAPSHOT_MAPPING = "/snapshot";
+
+    /**
+     * Root to retrieve the current access rights version
+     */
+    public static final String SNAPSHOT_VERSION_MAPPING = SNAPSHOT_MAPPING + "/version";
+
+    /**
+     * Root to check many endpoint calls at once
+     */
+    public static final String AUTHORIZATIONS_MAPPING = "/authorizations";
+
     /**
      * Resource service
      */
@@ -82,17 +105,42 @@ public class MicroserviceResourceController implements IResourceController<Resou
     @Autowired
     private IResourceService hateoasService;
 
+    /**
+     * Authorities snapshot service
+     */
+    @Autowired
+    private IAuthoritiesSnapshotService snapshotService;
+
+    /**
+     * Route authorization service
+     */
+    @Autowired
+    private IRouteAuthorizationService routeAuthorizationService;
+
     /**
      * Retrieve authentication information
      */
     @Autowired
     private IAuthenticationResolver authResolver;
 
+    /**
+     * Access rights version service
+     */
+    @Autowired
+    private IAccessRightsVersionService versionService;
+
+    /**
+     * Runtime tenant resolver
+     */
+    @Autowired
+    private IRuntimeTenantResolver runtimeTenantResolver;
+
     /**
      * Retrieve the resource accesses available to the user of the given microservice
      * @param microserviceName microservice
      * @param pageable pagination information
      * @param assembler page assembler
+     * @param ifNoneMatch entity tag of the page already known by the client if any
      * @return list of user resource accesses for given microservice
      * @throws ModuleException if error occurs
      */
@@ -102,10 +150,16 @@ public class MicroserviceResourceController implements IResourceController<Resou
     public ResponseEntity<PagedModel<EntityModel<ResourcesAccess>>> getAllResourceAccessesByMicroservice(
             @PathVariable("microservicename") String microserviceName,
             @PageableDefault(sort = "id", direction = Sort.Direction.ASC) Pageable pageable,
-            PagedResourcesAssembler<ResourcesAccess> assembler) throws ModuleException {
-        return new ResponseEntity<>(
-                toPagedResources(resourceService.retrieveRessources(microserviceName, pageable), assembler),
-                HttpStatus.OK);
+            PagedResourcesAssembler<ResourcesAccess> assembler,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
+            throws ModuleException {
+        String etag = AccessRightsETags.of(versionService.getVersion(), runtimeTenantResolver.getTenant(),
+                                           authResolver.getRole(), microserviceName, pageable);
+        if (AccessRightsETags.matches(ifNoneMatch, etag)) {
+            return AccessRightsETags.notModified(etag);
+        }
+        return AccessRightsETags
+                .ok(etag, toPagedResources(resourceService.retrieveRessources(microserviceName, pageable), assembler));
     }
 
     /**
@@ -155,6 +209,55 @@ public class MicroserviceResourceController implements IResourceController<Resou
         return new ResponseEntity<>(toResources(resources), HttpStatus.OK);
     }
 
+    /**
+     * Retrieve all roles and all resources of the given microservice with their granted roles in one call
+     * @param microserviceName microservice
+     * @param ifNoneMatch entity tag of the snapshot already known by the client if any
+     * @return {@link AuthoritiesSnapshot}
+     */
+    @RequestMapping(method = RequestMethod.GET, value = SNAPSHOT_MAPPING)
+    @ResourceAccess(description = "Retrieve all access rights of a microservice", role = DefaultRole.INSTANCE_ADMIN)
+    public ResponseEntity<AuthoritiesSnapshot> retrieveAuthoritiesSnapshot(
+            @PathVariable("microservicename") String microserviceName,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = AccessRightsETags.of(versionService.getVersion(), runtimeTenantResolver.getTenant(),
+                                           microserviceName);
+        if (AccessRightsETags.matches(ifNoneMatch, etag)) {
+            return AccessRightsETags.notModified(etag);
+        }
+        AuthoritiesSnapshot snapshot = snapshotService.retrieveSnapshot(microserviceName);
+        // Snapshot version may be more recent than the one read above
+        return AccessRightsETags.ok(AccessRightsETags.of(snapshot.getVersion(), runtimeTenantResolver.getTenant(),
+                                                         microserviceName),
+                                    snapshot);
+    }
+
+    /**
+     * Retrieve the current access rights version so that a microservice can check its local access rights are up to
+     * date without retrieving them all
+     * @param microserviceName microservice
+     * @return current access rights version of the tenant
+     */
+    @RequestMapping(method = RequestMethod.GET, value = SNAPSHOT_VERSION_MAPPING)
+    @ResourceAccess(description = "Retrieve the current access rights version", role = DefaultRole.INSTANCE_ADMIN)
+    public ResponseEntity<Long> retrieveAuthoritiesVersion(@PathVariable("microservicename") String microserviceName) {
+        return new ResponseEntity<>(versionService.getVersion(), HttpStatus.OK);
+    }
+
+    /**
+     * Decide in one call whether each role may call each verb and path of the given microservice
+     * @param microserviceName microservice
+     * @param checks role, verb and path to check
+     * @return given checks with their decision, in the same order
+     */
+    @RequestMapping(method = RequestMethod.POST, value = AUTHORIZATIONS_MAPPING)
+    @ResourceAccess(description = "Check many endpoint calls of a microservice at once",
+            role = DefaultRole.PROJECT_ADMIN)
+    public ResponseEntity<List<AccessCheck>> checkAuthorizations(
+            @PathVariable("microservicename") String microserviceName, @RequestBody List<AccessCheck> checks) {
+        return new ResponseEntity<>(routeAuthorizationService.check(microserviceName, checks), HttpStatus.OK);
+    }
+
     @Override
     public EntityModel<ResourcesAccess> toResource(ResourcesAccess element, Object... extras) {
         return hateoasService.toResource(element);
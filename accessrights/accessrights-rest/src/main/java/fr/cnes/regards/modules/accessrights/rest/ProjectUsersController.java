@@ -18,12 +18,21 @@
  */
 package fr.cnes.regards.modules.accessrights.rest;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
@@ -31,7 +40,9 @@ import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.LinkRelation;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -40,6 +51,7 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
 import fr.cnes.regards.framework.authentication.IAuthenticationResolver;
 import fr.cnes.regards.framework.hateoas.IResourceController;
@@ -48,16 +60,24 @@ import fr.cnes.regards.framework.hateoas.LinkRels;
 import fr.cnes.regards.framework.hateoas.MethodParamFactory;
 import fr.cnes.regards.framework.module.rest.exception.EntityException;
 import fr.cnes.regards.framework.module.rest.exception.EntityInconsistentIdentifierException;
+import fr.cnes.regards.framework.module.rest.exception.EntityInvalidException;
 import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
 import fr.cnes.regards.framework.module.rest.exception.EntityOperationForbiddenException;
 import fr.cnes.regards.framework.module.rest.exception.EntityTransitionForbiddenException;
 import fr.cnes.regards.framework.security.annotation.ResourceAccess;
 import fr.cnes.regards.framework.security.role.DefaultRole;
 import fr.cnes.regards.modules.accessrights.domain.UserStatus;
+import fr.cnes.regards.modules.accessrights.domain.projects.KeysetPage;
 import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUser;
+import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUserCursor;
+import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUserCursor.SortKey;
 import fr.cnes.regards.modules.accessrights.domain.projects.Role;
 import fr.cnes.regards.modules.accessrights.domain.registration.AccessRequestDto;
+import fr.cnes.regards.modules.accessrights.domain.registration.ProjectUserImportResult;
 import fr.cnes.regards.modules.accessrights.service.projectuser.IProjectUserService;
+import fr.cnes.regards.modules.accessrights.service.projectuser.ProjectUserExportService;
+import fr.cnes.regards.modules.accessrights.service.projectuser.ProjectUserExportService.ExportFormat;
+import fr.cnes.regards.modules.accessrights.service.projectuser.ProjectUserImportService;
 import fr.cnes.regards.modules.accessrights.service.projectuser.workflow.state.ProjectUserWorkflowManager;
 import fr.cnes.regards.modules.accessrights.service.role.IRoleService;
 
@@ -86,6 +106,21 @@ public class ProjectUsersController implements IResourceController<ProjectUser>
 
     public static final String PENDINGACCESSES = "/pendingaccesses";
 
+    /**
+     * Relative path to the keyset paginated listing of project users
+     */
+    public static final String KEYSET_PATH = "/keyset";
+
+    /**
+     * Relative path to the export of all project users
+     */
+    public static final String EXPORT_PATH = "/export";
+
+    /**
+     * Relative path to the bulk import of project users
+     */
+    public static final String IMPORT_PATH = "/import";
+
     /**
      * Service handling project users
      */
@@ -104,6 +139,18 @@ public class ProjectUsersController implements IResourceController<ProjectUser>
     @Autowired
     private IResourceService resourceService;
 
+    /**
+     * Service exporting project users
+     */
+    @Autowired
+    private ProjectUserExportService projectUserExportService;
+
+    /**
+     * Service handling bulk imports of project users
+     */
+    @Autowired
+    private ProjectUserImportService projectUserImportService;
+
     /**
      * Service handling roles.
      */
@@ -117,9 +164,12 @@ public class ProjectUsersController implements IResourceController<ProjectUser>
     private IAuthenticationResolver authResolver;
 
     /**
-     * Retrieve the {@link List} of all {@link ProjectUser}s.
+     * Retrieve the {@link List} of all {@link ProjectUser}s.<br/>
+     * If a search text is given, other filters and paging are ignored and a single page of at most page size users
+     * matching the text anywhere in their email, ignoring case, is returned, best matches first.
      * @param status
      * @param emailStart
+     * @param search text to search in emails
      * @param pageable
      * @param pagedResourcesAssembler
      * @return a {@link List} of {@link ProjectUser}
@@ -130,13 +180,116 @@ public class ProjectUsersController implements IResourceController<ProjectUser>
     public ResponseEntity<PagedModel<EntityModel<ProjectUser>>> retrieveProjectUserList(
             @RequestParam(name = "status", required = false) String status,
             @RequestParam(name = "partialEmail", required = false) String emailStart,
+            @RequestParam(name = "search", required = false) String search,
             @PageableDefault(sort = "id", direction = Sort.Direction.ASC) Pageable pageable,
             PagedResourcesAssembler<ProjectUser> pagedResourcesAssembler) {
         Page<ProjectUser> users;
-        users = projectUserService.retrieveUserList(status, emailStart, pageable);
+        if ((search != null) && !search.trim().isEmpty()) {
+            users = new PageImpl<>(projectUserService.searchUsers(search, pageable.getPageSize()));
+        } else {
+            users = projectUserService.retrieveUserList(status, emailStart, pageable);
+        }
         return new ResponseEntity<>(toPagedResources(users, pagedResourcesAssembler), HttpStatus.OK);
     }
 
+    /**
+     * Retrieve a page of {@link ProjectUser}s using keyset pagination. Unlike {@link #retrieveProjectUserList}, next
+     * page is reached with the returned opaque cursor and the total count is only computed on demand, so that deep
+     * pages are as fast as the first one.
+     * @param status optional user status
+     * @param emailStart optional email prefix
+     * @param roleName optional role name
+     * @param sort sort key of the first page, <code>id</code> or <code>email</code>. Ignored when a cursor is given.
+     * @param cursor cursor of the page to retrieve, as returned with the previous page. None for the first page.
+     * @param size page size
+     * @param withCount whether the total number of users has to be computed
+     * @return a page of {@link ProjectUser}s
+     * @throws EntityInvalidException if sort, cursor or size are not valid
+     */
+    @ResponseBody
+    @RequestMapping(value = KEYSET_PATH, method = RequestMethod.GET)
+    @ResourceAccess(description = "retrieve the list of users of the project with keyset pagination",
+            role = DefaultRole.EXPLOIT)
+    public ResponseEntity<KeysetPage<EntityModel<ProjectUser>>> retrieveProjectUserKeysetPage(
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "partialEmail", required = false) String emailStart,
+            @RequestParam(name = "role", required = false) String roleName,
+            @RequestParam(name = "sort", defaultValue = "id") String sort,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "20") int size,
+            @RequestParam(name = "count", defaultValue = "false") boolean withCount) throws EntityInvalidException {
+        ProjectUserCursor userCursor;
+        try {
+            userCursor = (cursor == null) ? ProjectUserCursor.first(SortKey.valueOf(sort.toUpperCase()))
+                    : ProjectUserCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new EntityInvalidException(e.getMessage());
+        }
+        KeysetPage<ProjectUser> users = projectUserService.retrieveUserList(status, emailStart, roleName, userCursor,
+                                                                             size, withCount);
+        return new ResponseEntity<>(users.map(user -> toResource(user)), HttpStatus.OK);
+    }
+
+    /**
+     * Export all {@link ProjectUser}s of the project with their role, status and visible metadata. Users are streamed
+     * to the response as they are read from the database.
+     * @param format <code>ndjson</code> (default) or <code>csv</code>
+     * @param response HTTP response to write to
+     * @throws EntityInvalidException if format is unknown
+     * @throws IOException if writing fails
+     */
+    @RequestMapping(value = EXPORT_PATH, method = RequestMethod.GET)
+    @ResourceAccess(description = "export all users of the project", role = DefaultRole.EXPLOIT)
+    public void exportProjectUsers(@RequestParam(name = "format", defaultValue = "ndjson") String format,
+            HttpServletResponse response) throws EntityInvalidException, IOException {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new EntityInvalidException("Unknown export format " + format);
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                           "attachment; filename=\"users." + exportFormat.getExtension() + "\"");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        projectUserExportService.export(exportFormat, writer);
+    }
+
+    /**
+     * Create several project users at once by bypassing registration process. Accounts are created when needed.
+     * Each user is validated like {@link #createUser(AccessRequestDto)}, an invalid one is reported in its result.
+     * @param dtos users to create
+     * @return the result of each user, in the given order
+     */
+    @ResponseBody
+    @RequestMapping(value = IMPORT_PATH, method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResourceAccess(description = "Create several projectUsers by bypassing registration process",
+            role = DefaultRole.EXPLOIT)
+    public ResponseEntity<List<ProjectUserImportResult>> importProjectUsers(@RequestBody List<AccessRequestDto> dtos) {
+        return new ResponseEntity<>(projectUserImportService.importProjectUsers(dtos), HttpStatus.OK);
+    }
+
+    /**
+     * Create several project users at once from a file containing a JSON array of {@link AccessRequestDto}s.
+     * @param file JSON file
+     * @return the result of each user, in the given order
+     * @throws EntityInvalidException if the file is not a JSON array of {@link AccessRequestDto}s
+     * @throws IOException if the file cannot be read
+     */
+    @ResponseBody
+    @RequestMapping(value = IMPORT_PATH, method = RequestMethod.POST,
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @ResourceAccess(description = "Create several projectUsers from a file by bypassing registration process",
+            role = DefaultRole.EXPLOIT)
+    public ResponseEntity<List<ProjectUserImportResult>> importProjectUsers(@RequestParam("file") MultipartFile file)
+            throws EntityInvalidException, IOException {
+        try (Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+            return new ResponseEntity<>(projectUserImportService.importProjectUsers(reader), HttpStatus.OK);
+        }
+    }
+
     /**
      * Retrieve all users with a pending access requests.
      * @param pageable
@@ -359,7 +512,8 @@ public class ProjectUsersController implements IResourceController<ProjectUser>
                                     MethodParamFactory.build(Long.class, element.getId()));
             resourceService.addLink(resource, this.getClass(), "retrieveProjectUserList", LinkRels.LIST,
                                     MethodParamFactory.build(String.class, element.getStatus().toString()),
-                                    MethodParamFactory.build(String.class), MethodParamFactory.build(Pageable.class),
+                                    MethodParamFactory.build(String.class), MethodParamFactory.build(String.class),
+                                    MethodParamFactory.build(Pageable.class),
                                     MethodParamFactory.build(PagedResourcesAssembler.class));
             // Specific links to add in WAITING_ACCESS state
             if (UserStatus.WAITING_ACCESS.equals(element.getStatus())) {
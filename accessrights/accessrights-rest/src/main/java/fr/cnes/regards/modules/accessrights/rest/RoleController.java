@@ -20,6 +20,7 @@ package fr.cnes.regards.modules.accessrights.rest;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -28,14 +29,17 @@ import javax.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.LinkRelation;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
+import fr.cnes.regards.framework.authentication.IAuthenticationResolver;
 import fr.cnes.regards.framework.hateoas.IResourceController;
 import fr.cnes.regards.framework.hateoas.IResourceService;
 import fr.cnes.regards.framework.hateoas.LinkRels;
@@ -44,14 +48,17 @@ import fr.cnes.regards.framework.module.rest.exception.EntityException;
 import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
 import fr.cnes.regards.framework.module.rest.exception.EntityOperationForbiddenException;
 import fr.cnes.regards.framework.module.rest.exception.ModuleException;
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
 import fr.cnes.regards.framework.security.annotation.ResourceAccess;
 import fr.cnes.regards.framework.security.role.DefaultRole;
 import fr.cnes.regards.framework.security.utils.endpoint.RoleAuthority;
 import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUser;
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
 import fr.cnes.regards.modules.accessrights.domain.projects.Role;
 import fr.cnes.regards.modules.accessrights.service.projectuser.IProjectUserService;
 import fr.cnes.regards.modules.accessrights.service.role.IRoleService;
 import fr.cnes.regards.modules.accessrights.service.role.RoleService;
+import fr.cnes.regards.modules.accessrights.service.version.IAccessRightsVersionService;
 
 /**
  * Role management API
@@ -86,6 +93,11 @@ public class RoleController implements IResourceController<Role> {
      */
     public static final String ROLE_WITH_RESOURCE_MAPPING = "/resources/{resourceId}";
 
+    /**
+     * Mapping for updating resource accesses of several roles at once
+     */
+    public static final String ROLES_RESOURCES_MAPPING = "/resources";
+
     /**
      * {@link RoleService}
      */
@@ -104,15 +116,42 @@ public class RoleController implements IResourceController<Role> {
     @Autowired
     private IResourceService resourceService;
 
+    /**
+     * Access rights version service
+     */
+    @Autowired
+    private IAccessRightsVersionService versionService;
+
+    /**
+     * Runtime tenant resolver
+     */
+    @Autowired
+    private IRuntimeTenantResolver runtimeTenantResolver;
+
+    /**
+     * Authentication resolver
+     */
+    @Autowired
+    private IAuthenticationResolver authResolver;
+
     /**
      * Define the endpoint for retrieving the list of all roles.
-     * @return A {@link List} of roles as {@link Role} wrapped in an {@link ResponseEntity}
+     * @param ifNoneMatch entity tag of the list already known by the client if any
+     * @return A {@link List} of roles as {@link Role} wrapped in an {@link ResponseEntity}, without body if the
+     *         roles did not change since the given entity tag
      */
     @RequestMapping(method = RequestMethod.GET)
     @ResourceAccess(description = "Retrieve the list of roles", role = DefaultRole.EXPLOIT)
-    public ResponseEntity<List<EntityModel<Role>>> getAllRoles() {
+    public ResponseEntity<List<EntityModel<Role>>> getAllRoles(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Listed roles and their links depend on the caller role
+        String etag = AccessRightsETags.of(versionService.getVersion(), runtimeTenantResolver.getTenant(),
+                                           authResolver.getRole());
+        if (AccessRightsETags.matches(ifNoneMatch, etag)) {
+            return AccessRightsETags.notModified(etag);
+        }
         final Set<Role> roles = roleService.retrieveRoles();
-        return new ResponseEntity<>(toResources(roles), HttpStatus.OK);
+        return AccessRightsETags.ok(etag, toResources(roles));
     }
 
     /**
@@ -140,6 +179,22 @@ public class RoleController implements IResourceController<Role> {
         return new ResponseEntity<>(toResources(roleService.retrieveRolesWithResource(resourceId)), HttpStatus.OK);
     }
 
+    /**
+     * Define the endpoint for replacing the resource accesses of several roles at once.
+     * @param resourcesAccessesByRole resource accesses to set by role name
+     * @return updated roles
+     * @throws EntityException if one of the roles does not exist or one of the changes is forbidden. In this case,
+     *             no change is applied.
+     */
+    @RequestMapping(method = RequestMethod.PUT, path = ROLES_RESOURCES_MAPPING)
+    @ResourceAccess(description = "Update resource accesses of several roles at once",
+            role = DefaultRole.PROJECT_ADMIN)
+    public ResponseEntity<List<EntityModel<Role>>> updateRolesResources(
+            @RequestBody Map<String, Set<ResourcesAccess>> resourcesAccessesByRole) throws EntityException {
+        return new ResponseEntity<>(toResources(roleService.updateRolesResourcesAccess(resourcesAccessesByRole)),
+                HttpStatus.OK);
+    }
+
     /**
      * Define the endpoint for creating a new {@link Role}.
      * @param newRole The new {@link Role} values
@@ -250,9 +305,11 @@ public class RoleController implements IResourceController<Role> {
                 //we add the link to manage a role resources accesses except for PROJECT_ADMIN and INSTANCE_ADMIN
                 resourceService.addLink(resource, RoleResourceController.class, "getRoleResources",
                                         LinkRelation.of("manage-resource-access"),
-                                        MethodParamFactory.build(String.class, role.getName()));
+                                        MethodParamFactory.build(String.class, role.getName()),
+                                        MethodParamFactory.build(String.class));
             }
-            resourceService.addLink(resource, this.getClass(), "getAllRoles", LinkRels.LIST);
+            resourceService.addLink(resource, this.getClass(), "getAllRoles", LinkRels.LIST,
+                                    MethodParamFactory.build(String.class));
             resourceService.addLink(resource, this.getClass(), "getBorrowableRoles", LinkRelation.of("borrowable"));
         }
         return resource;
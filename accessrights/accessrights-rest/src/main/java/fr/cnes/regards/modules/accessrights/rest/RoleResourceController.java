@@ -25,10 +25,12 @@ import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
@@ -41,12 +43,14 @@ import fr.cnes.regards.framework.hateoas.LinkRels;
 import fr.cnes.regards.framework.hateoas.MethodParamFactory;
 import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
 import fr.cnes.regards.framework.module.rest.exception.ModuleException;
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
 import fr.cnes.regards.framework.security.annotation.ResourceAccess;
 import fr.cnes.regards.framework.security.role.DefaultRole;
 import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
 import fr.cnes.regards.modules.accessrights.domain.projects.Role;
 import fr.cnes.regards.modules.accessrights.service.resources.IResourcesService;
 import fr.cnes.regards.modules.accessrights.service.role.IRoleService;
+import fr.cnes.regards.modules.accessrights.service.version.IAccessRightsVersionService;
 
 /**
  * Role resource management API
@@ -84,13 +88,31 @@ public class RoleResourceController implements IResourceController<ResourcesAcce
     @Autowired
     private IResourceService hateoasService;
 
+    /**
+     * Access rights version service
+     */
+    @Autowired
+    private IAccessRightsVersionService versionService;
+
+    /**
+     * Runtime tenant resolver
+     */
+    @Autowired
+    private IRuntimeTenantResolver runtimeTenantResolver;
+
     @RequestMapping(method = RequestMethod.GET)
     @ResourceAccess(description = "Get all resource accesses of a role", role = DefaultRole.PROJECT_ADMIN)
     public ResponseEntity<List<EntityModel<ResourcesAccess>>> getRoleResources(
-            @PathVariable("role_name") String roleName) throws ModuleException {
+            @PathVariable("role_name") String roleName,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
+            throws ModuleException {
+        String etag = AccessRightsETags.of(versionService.getVersion(), runtimeTenantResolver.getTenant(), roleName);
+        if (AccessRightsETags.matches(ifNoneMatch, etag)) {
+            return AccessRightsETags.notModified(etag);
+        }
         Role role = roleService.retrieveRole(roleName);
         Set<ResourcesAccess> resources = roleService.retrieveRoleResourcesAccesses(role.getId());
-        return new ResponseEntity<>(toResources(resources, roleName), HttpStatus.OK);
+        return AccessRightsETags.ok(etag, toResources(resources, roleName));
     }
 
     @RequestMapping(method = RequestMethod.POST)
@@ -117,7 +139,8 @@ public class RoleResourceController implements IResourceController<ResourcesAcce
 
         EntityModel<ResourcesAccess> resource = hateoasService.toResource(resourcesAccess);
         hateoasService.addLink(resource, this.getClass(), "getRoleResources", LinkRels.LIST,
-                               MethodParamFactory.build(String.class, roleName));
+                               MethodParamFactory.build(String.class, roleName),
+                               MethodParamFactory.build(String.class));
         hateoasService.addLink(resource, this.getClass(), "addRoleResource", LinkRels.CREATE,
                                MethodParamFactory.build(String.class, roleName),
                                MethodParamFactory.build(ResourcesAccess.class));
@@ -35,6 +35,7 @@ import fr.cnes.regards.framework.security.utils.jwt.JWTService;
 import fr.cnes.regards.framework.test.integration.AbstractRegardsTransactionalIT;
 import fr.cnes.regards.framework.test.report.annotation.Purpose;
 import fr.cnes.regards.modules.accessrights.dao.projects.IResourcesAccessRepository;
+import fr.cnes.regards.modules.accessrights.domain.projects.AccessCheck;
 import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
 
 /**
@@ -140,6 +141,38 @@ public class MicroserviceResourceControllerIT extends AbstractRegardsTransaction
                    DEFAULT_CONTROLLER);
     }
 
+    @Test
+    @Purpose("Check that all access rights of a microservice can be retrieved at once")
+    public void retrieveAuthoritiesSnapshotTest() {
+        performGet(MicroserviceResourceController.TYPE_MAPPING + MicroserviceResourceController.SNAPSHOT_MAPPING,
+                   instanceToken,
+                   customizer().expectStatusOk().expectIsNotEmpty("$.roles").expectToHaveSize("$.resources", 1)
+                           .expectValue("$.microservice", DEFAULT_MICROSERVICE),
+                   "Error retrieving authorities snapshot", DEFAULT_MICROSERVICE);
+    }
+
+    @Test
+    @Purpose("Check that many endpoint calls can be checked at once")
+    public void checkAuthorizationsTest() {
+        List<AccessCheck> checks = new ArrayList<>();
+        checks.add(new AccessCheck(DefaultRole.INSTANCE_ADMIN.toString(), RequestMethod.GET, CONFIGURED_ENDPOINT_URL));
+        checks.add(new AccessCheck(DefaultRole.PUBLIC.toString(), RequestMethod.GET, CONFIGURED_ENDPOINT_URL));
+        performPost(MicroserviceResourceController.TYPE_MAPPING + MicroserviceResourceController.AUTHORIZATIONS_MAPPING,
+                    instanceToken, checks,
+                    customizer().expectStatusOk().expectToHaveSize(JSON_PATH_ROOT, 2)
+                            .expectValue("$[0].allowed", true).expectValue("$[1].allowed", false),
+                    "Error checking authorizations", DEFAULT_MICROSERVICE);
+    }
+
+    @Test
+    @Purpose("Check that the access rights version can be retrieved without the access rights")
+    public void retrieveAuthoritiesVersionTest() {
+        performGet(MicroserviceResourceController.TYPE_MAPPING
+                + MicroserviceResourceController.SNAPSHOT_VERSION_MAPPING, instanceToken,
+                   customizer().expectStatusOk().expectIsNotEmpty(JSON_PATH_ROOT),
+                   "Error retrieving access rights version", DEFAULT_MICROSERVICE);
+    }
+
     /**
      * Check that the microservice allow to retrieve all resource endpoints configurations for a given microservice name
      * and a given controller name
@@ -29,7 +29,9 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.web.bind.annotation.RequestMethod;
 
 import fr.cnes.regards.framework.jpa.multitenant.transactional.MultitenantTransactional;
@@ -193,7 +195,9 @@ public class RolesControllerIT extends AbstractRegardsTransactionalIT {
                            // Updated : Permissions are ignore in roles results requests to avoid lazy load.
                            // expectations.add(MockMvcResultMatchers.jsonPath("$.*.content.permissions", hasSize(6)));
                            // 3 = 3 roles has a parent (public, project_admin, instance_admin has no parent)
-                           .expectToHaveSize("$.*.content.parentRole", 4),
+                           .expectToHaveSize("$.*.content.parentRole", 4)
+                           // Versioned list can be conditionally requested
+                           .expect(MockMvcResultMatchers.header().exists(HttpHeaders.ETAG)),
                    "TODO Error message");
     }
 
@@ -41,7 +41,8 @@ public interface ILicenseService {
 
     /**
      * Reset the license state for all users of the current project
+     * @return number of users which had accepted the license
      */
-    void resetLicence();
+    int resetLicence();
 
 }
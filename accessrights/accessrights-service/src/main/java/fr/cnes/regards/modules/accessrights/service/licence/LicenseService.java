@@ -116,7 +116,7 @@ public class LicenseService implements ILicenseService {
      * Reset the license state for all users of the current project
      */
     @Override
-    public void resetLicence() {
-        projectUserService.resetLicence();
+    public int resetLicence() {
+        return projectUserService.resetLicence();
     }
 }
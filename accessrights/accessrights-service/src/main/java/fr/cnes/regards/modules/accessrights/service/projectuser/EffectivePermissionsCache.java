@@ -0,0 +1,258 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service.projectuser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import fr.cnes.regards.framework.amqp.ISubscriber;
+import fr.cnes.regards.framework.amqp.domain.IHandler;
+import fr.cnes.regards.framework.amqp.domain.TenantWrapper;
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+import fr.cnes.regards.framework.security.event.RoleEvent;
+import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUserEvent;
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourceAccessDeltaEvent;
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
+
+/**
+ * Cache of the effective permissions of a project user, i.e. its own permissions merged with the ones of its role or of
+ * the borrowed role, by tenant, email and borrowed role.<br/>
+ * Entries of a tenant are evicted on any access rights change (role or role permissions) and entries of a user on any
+ * change of this user, locally after commit and on other instances through the role, resource access delta and project
+ * user events. Changes of a user done by another instance without any event are covered by the time to live.
+ *
+ * @author REGARDS Team
+ */
+@Component
+public class EffectivePermissionsCache implements ApplicationListener<ApplicationReadyEvent> {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(EffectivePermissionsCache.class);
+
+    /**
+     * AMQP tenant subscriber
+     */
+    private final ISubscriber subscriber;
+
+    /**
+     * Runtime tenant resolver
+     */
+    private final IRuntimeTenantResolver runtimeTenantResolver;
+
+    /**
+     * Effective permissions
+     */
+    private final Cache<Key, List<ResourcesAccess>> permissions;
+
+    /**
+     * Number of evictions, used to discard permissions computed while an eviction occurs
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public EffectivePermissionsCache(ISubscriber subscriber, IRuntimeTenantResolver runtimeTenantResolver,
+            @Value("${regards.accessrights.permissions.cache.maximum-size:10000}") long maximumSize,
+            @Value("${regards.accessrights.permissions.cache.time-to-live:300}") long timeToLive) {
+        this.subscriber = subscriber;
+        this.runtimeTenantResolver = runtimeTenantResolver;
+        permissions = CacheBuilder.newBuilder().maximumSize(maximumSize).expireAfterWrite(timeToLive, TimeUnit.SECONDS)
+                .build();
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        subscriber.subscribeTo(RoleEvent.class, new RoleEventHandler());
+        subscriber.subscribeTo(ResourceAccessDeltaEvent.class, new ResourceAccessDeltaEventHandler());
+        subscriber.subscribeTo(ProjectUserEvent.class, new ProjectUserEventHandler());
+    }
+
+    /**
+     * @return current eviction generation, to give back to {@link #put(String, String, List, long)}
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * @param email user email
+     * @param borrowedRoleName borrowed role name, may be null
+     * @return copy of the cached effective permissions of the user in the current tenant if any
+     */
+    public Optional<List<ResourcesAccess>> get(String email, String borrowedRoleName) {
+        String tenant = runtimeTenantResolver.getTenant();
+        if (tenant == null) {
+            return Optional.empty();
+        }
+        List<ResourcesAccess> cached = permissions.getIfPresent(new Key(tenant, email, borrowedRoleName));
+        return cached == null ? Optional.empty() : Optional.of(new ArrayList<>(cached));
+    }
+
+    /**
+     * Cache effective permissions of the user in the current tenant unless an eviction occurred since they have been
+     * computed
+     * @param email user email
+     * @param borrowedRoleName borrowed role name, may be null
+     * @param effectivePermissions effective permissions
+     * @param computedGeneration generation read before the permissions were computed
+     */
+    public void put(String email, String borrowedRoleName, List<ResourcesAccess> effectivePermissions,
+            long computedGeneration) {
+        String tenant = runtimeTenantResolver.getTenant();
+        if ((tenant != null) && (computedGeneration == generation.get())
+                && !TransactionSynchronizationManager.hasResource(this)) {
+            permissions.put(new Key(tenant, email, borrowedRoleName), new ArrayList<>(effectivePermissions));
+        }
+    }
+
+    /**
+     * Evict all permissions of the current tenant, now and after commit if a transaction is running
+     */
+    public void evictTenant() {
+        String tenant = runtimeTenantResolver.getTenant();
+        if (tenant != null) {
+            evict(tenant, null);
+            afterCommit(() -> evict(tenant, null));
+        }
+    }
+
+    /**
+     * Evict all permissions of the given user in the current tenant, now and after commit if a transaction is running
+     * @param email user email
+     */
+    public void evictUser(String email) {
+        String tenant = runtimeTenantResolver.getTenant();
+        if (tenant != null) {
+            evict(tenant, email);
+            afterCommit(() -> evict(tenant, email));
+        }
+    }
+
+    /**
+     * Evict permissions of a tenant
+     * @param tenant tenant
+     * @param email user email or null for all users
+     */
+    private void evict(String tenant, String email) {
+        generation.incrementAndGet();
+        permissions.asMap().keySet()
+                .removeIf(key -> key.tenant.equals(tenant) && ((email == null) || email.equals(key.email)));
+        LOGGER.debug("Effective permissions of {} evicted for tenant {}", email == null ? "all users" : email, tenant);
+    }
+
+    /**
+     * Run the given eviction once more after commit so that permissions computed by a concurrent transaction cannot
+     * be kept. Until then, the current transaction does not cache its own uncommitted permissions.
+     */
+    private void afterCommit(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (!TransactionSynchronizationManager.hasResource(this)) {
+                TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(EffectivePermissionsCache.this);
+                }
+            });
+        }
+    }
+
+    private class RoleEventHandler implements IHandler<RoleEvent> {
+
+        @Override
+        public void handle(TenantWrapper<RoleEvent> wrapper) {
+            evict(wrapper.getTenant(), null);
+        }
+    }
+
+    private class ResourceAccessDeltaEventHandler implements IHandler<ResourceAccessDeltaEvent> {
+
+        @Override
+        public void handle(TenantWrapper<ResourceAccessDeltaEvent> wrapper) {
+            evict(wrapper.getTenant(), null);
+        }
+    }
+
+    private class ProjectUserEventHandler implements IHandler<ProjectUserEvent> {
+
+        @Override
+        public void handle(TenantWrapper<ProjectUserEvent> wrapper) {
+            evict(wrapper.getTenant(), wrapper.getContent().getEmail());
+        }
+    }
+
+    /**
+     * Cache key
+     */
+    private static final class Key {
+
+        private final String tenant;
+
+        private final String email;
+
+        private final String borrowedRoleName;
+
+        private Key(String tenant, String email, String borrowedRoleName) {
+            this.tenant = tenant;
+            this.email = email;
+            this.borrowedRoleName = borrowedRoleName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if ((o == null) || (getClass() != o.getClass())) {
+                return false;
+            }
+            Key other = (Key) o;
+            return tenant.equals(other.tenant) && Objects.equals(email, other.email)
+                    && Objects.equals(borrowedRoleName, other.borrowedRoleName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tenant, email, borrowedRoleName);
+        }
+    }
+}
@@ -31,8 +31,10 @@ import fr.cnes.regards.framework.module.rest.exception.EntityInvalidException;
 import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
 import fr.cnes.regards.framework.module.rest.exception.EntityOperationForbiddenException;
 import fr.cnes.regards.modules.accessrights.domain.UserStatus;
+import fr.cnes.regards.modules.accessrights.domain.projects.KeysetPage;
 import fr.cnes.regards.modules.accessrights.domain.projects.MetaData;
 import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUser;
+import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUserCursor;
 import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
 import fr.cnes.regards.modules.accessrights.domain.projects.Role;
 import fr.cnes.regards.modules.accessrights.domain.registration.AccessRequestDto;
@@ -53,6 +55,30 @@ public interface IProjectUserService {
      */
     Page<ProjectUser> retrieveUserList(String status, String emailStart, Pageable pPageable);
 
+    /**
+     * Retrieve a page of {@link ProjectUser}s filtered by given properties using keyset pagination, i.e. seeking
+     * directly after the given cursor instead of skipping previous users. Response time does not depend on the page
+     * depth.
+     * @param status optional user status
+     * @param emailStart optional email prefix
+     * @param roleName optional role name
+     * @param cursor position after which users are retrieved
+     * @param size page size
+     * @param withCount whether the total number of filtered users has to be computed
+     * @return the page of project users with the cursor of the next page
+     * @throws EntityInvalidException if size is not strictly positive
+     */
+    KeysetPage<ProjectUser> retrieveUserList(String status, String emailStart, String roleName,
+            ProjectUserCursor cursor, int size, boolean withCount) throws EntityInvalidException;
+
+    /**
+     * Search {@link ProjectUser}s by email prefix or substring, ignoring case.
+     * @param text searched text
+     * @param limit maximum number of results
+     * @return matching project users, best matches first
+     */
+    List<ProjectUser> searchUsers(String text, int limit);
+
     /**
      * Retrieve the {@link ProjectUser} of passed <code>id</code>.
      * @param pUserId The {@link ProjectUser}'s <code>id</code>
@@ -192,8 +218,9 @@ public interface IProjectUserService {
 
     /**
      * reset the licence for each user from the current project(which is in the SecurityContext)
+     * @return number of users which had accepted the licence
      */
-    void resetLicence();
+    int resetLicence();
 
     /**
      * @param role
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service.projectuser;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.google.gson.JsonObject;
+
+import fr.cnes.regards.framework.jpa.multitenant.transactional.MultitenantTransactional;
+import fr.cnes.regards.modules.accessrights.dao.projects.IProjectUserRepository;
+import fr.cnes.regards.modules.accessrights.domain.UserVisibility;
+import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUser;
+
+/**
+ * Export of all {@link ProjectUser}s of the current tenant, with their role, status and visible metadata.<br/>
+ * Users are read through a forward-only database cursor and written one by one, so memory does not depend on the
+ * number of users.
+ *
+ * @author REGARDS Team
+ */
+@Service
+@MultitenantTransactional
+public class ProjectUserExportService {
+
+    /**
+     * Export formats
+     */
+    public enum ExportFormat {
+
+        /**
+         * One JSON object per line
+         */
+        NDJSON("application/x-ndjson", "ndjson"),
+
+        /**
+         * Comma separated values with a header line, metadata as a JSON object
+         */
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+
+        private final String extension;
+
+        ExportFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectUserExportService.class);
+
+    private static final String CSV_HEADER = "id,email,role,status,metadata";
+
+    private final IProjectUserRepository projectUserRepository;
+
+    public ProjectUserExportService(IProjectUserRepository projectUserRepository) {
+        this.projectUserRepository = projectUserRepository;
+    }
+
+    /**
+     * Write all project users of the current tenant
+     * @param format export format
+     * @param writer destination, not closed
+     * @return number of exported users
+     * @throws IOException if writing fails
+     */
+    public long export(ExportFormat format, Writer writer) throws IOException {
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        long count = 0;
+        try (Stream<Object[]> rows = projectUserRepository.streamForExport(UserVisibility.HIDDEN)) {
+            Iterator<Object[]> iterator = rows.iterator();
+            ExportedUser current = null;
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                if ((current == null) || (current.id != ((Number) row[0]).longValue())) {
+                    if (current != null) {
+                        current.write(format, writer);
+                        count++;
+                    }
+                    current = new ExportedUser(row);
+                }
+                current.addMetadata(row);
+            }
+            if (current != null) {
+                current.write(format, writer);
+                count++;
+            }
+        }
+        writer.flush();
+        LOGGER.info("{} project users exported as {}", count, format);
+        return count;
+    }
+
+    private static String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if ((value.indexOf(',') < 0) && (value.indexOf('"') < 0) && (value.indexOf('\n') < 0)
+                && (value.indexOf('\r') < 0)) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * User being exported, built from its consecutive rows
+     */
+    private static final class ExportedUser {
+
+        private final long id;
+
+        private final String email;
+
+        private final String role;
+
+        private final String status;
+
+        private final Map<String, String> metadata = new LinkedHashMap<>();
+
+        private ExportedUser(Object[] row) {
+            id = ((Number) row[0]).longValue();
+            email = (String) row[1];
+            role = (String) row[2];
+            status = Objects.toString(row[3], null);
+        }
+
+        private void addMetadata(Object[] row) {
+            if (row[4] != null) {
+                metadata.put((String) row[4], (String) row[5]);
+            }
+        }
+
+        private void write(ExportFormat format, Writer writer) throws IOException {
+            JsonObject metadataObject = new JsonObject();
+            metadata.forEach(metadataObject::addProperty);
+            if (format == ExportFormat.CSV) {
+                writer.write(String.join(",", String.valueOf(id), escapeCsv(email), escapeCsv(role),
+                                         escapeCsv(status), escapeCsv(metadataObject.toString())));
+            } else {
+                JsonObject user = new JsonObject();
+                user.addProperty("id", id);
+                user.addProperty("email", email);
+                user.addProperty("role", role);
+                user.addProperty("status", status);
+                user.add("metadata", metadataObject);
+                writer.write(user.toString());
+            }
+            writer.write('\n');
+        }
+    }
+}
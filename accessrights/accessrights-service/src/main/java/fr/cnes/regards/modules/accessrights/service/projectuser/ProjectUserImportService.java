@@ -0,0 +1,292 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service.projectuser;
+
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import com.google.common.collect.Lists;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import fr.cnes.regards.framework.jpa.multitenant.transactional.MultitenantTransactional;
+import fr.cnes.regards.framework.module.rest.exception.EntityInvalidException;
+import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
+import fr.cnes.regards.modules.accessrights.dao.projects.IProjectUserRepository;
+import fr.cnes.regards.modules.accessrights.domain.UserStatus;
+import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUser;
+import fr.cnes.regards.modules.accessrights.domain.projects.Role;
+import fr.cnes.regards.modules.accessrights.domain.registration.AccessRequestDto;
+import fr.cnes.regards.modules.accessrights.domain.registration.ProjectUserImportResult;
+import fr.cnes.regards.modules.accessrights.domain.registration.ProjectUserImportResult.Status;
+import fr.cnes.regards.modules.accessrights.instance.client.IAccountsClient;
+import fr.cnes.regards.modules.accessrights.instance.domain.Account;
+import fr.cnes.regards.modules.accessrights.instance.domain.AccountNPassword;
+import fr.cnes.regards.modules.accessrights.instance.domain.AccountProvisioning;
+import fr.cnes.regards.modules.accessrights.instance.domain.AccountStatus;
+import fr.cnes.regards.modules.accessrights.service.role.IRoleService;
+
+/**
+ * Bulk creation of {@link ProjectUser}s, bypassing the registration process like
+ * {@link IProjectUserService#createProjectUser(AccessRequestDto)}.<br/>
+ * Requested roles are resolved once, existing users and accounts are checked and missing accounts are created by
+ * batches of {@link #BATCH_SIZE} rows, and new users are saved together so that inserts are sent by JDBC batches.<br/>
+ * A row never fails the whole import: each row gets its own {@link ProjectUserImportResult}.
+ *
+ * @author REGARDS Team
+ */
+@Service
+@MultitenantTransactional
+public class ProjectUserImportService {
+
+    /**
+     * Number of rows checked or provisioned by a single query or instance call
+     */
+    public static final int BATCH_SIZE = 500;
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectUserImportService.class);
+
+    private static final Type ROWS_TYPE = new TypeToken<List<AccessRequestDto>>() {
+
+    }.getType();
+
+    private final IProjectUserRepository projectUserRepository;
+
+    private final IRoleService roleService;
+
+    private final IAccountsClient accountsClient;
+
+    private final EffectivePermissionsCache permissionsCache;
+
+    private final Gson gson;
+
+    private final Validator validator;
+
+    public ProjectUserImportService(IProjectUserRepository projectUserRepository, IRoleService roleService,
+            IAccountsClient accountsClient, EffectivePermissionsCache permissionsCache, Gson gson,
+            Validator validator) {
+        this.projectUserRepository = projectUserRepository;
+        this.roleService = roleService;
+        this.accountsClient = accountsClient;
+        this.permissionsCache = permissionsCache;
+        this.gson = gson;
+        this.validator = validator;
+    }
+
+    /**
+     * Import project users from a JSON array of {@link AccessRequestDto}s
+     * @param reader JSON content, not closed
+     * @return result of each row, in the given order
+     * @throws EntityInvalidException if the content is not a JSON array of {@link AccessRequestDto}s
+     */
+    public List<ProjectUserImportResult> importProjectUsers(Reader reader) throws EntityInvalidException {
+        List<AccessRequestDto> rows;
+        try {
+            rows = gson.fromJson(reader, ROWS_TYPE);
+        } catch (JsonParseException e) {
+            throw new EntityInvalidException("Invalid import file : " + e.getMessage());
+        }
+        return importProjectUsers(rows == null ? Collections.emptyList() : rows);
+    }
+
+    /**
+     * Import project users. Each row is validated like a single user creation, an invalid row is reported as such
+     * without failing the others.
+     * @param rows users to create, with their account if it does not exist yet
+     * @return result of each row, in the given order
+     */
+    public List<ProjectUserImportResult> importProjectUsers(List<AccessRequestDto> rows) {
+        List<ProjectUserImportResult> results = new ArrayList<>(rows.size());
+        // Rows still to import, by index
+        Map<Integer, AccessRequestDto> pending = new HashMap<>();
+        Set<String> emails = new HashSet<>();
+        for (int index = 0; index < rows.size(); index++) {
+            AccessRequestDto row = rows.get(index);
+            String email = (row == null) ? null : row.getEmail();
+            ProjectUserImportResult result = new ProjectUserImportResult(index, email);
+            results.add(result);
+            String violations = (email == null) ? null : validate(row);
+            if ((email == null) || email.trim().isEmpty()) {
+                result.withStatus(Status.INVALID, "Missing email");
+            } else if (violations != null) {
+                result.withStatus(Status.INVALID, violations);
+            } else if (!emails.add(email)) {
+                result.withStatus(Status.INVALID, "Duplicate email in import");
+            } else {
+                pending.put(index, row);
+            }
+        }
+
+        // Existing project users
+        for (List<String> batch : Lists.partition(new ArrayList<>(emails), BATCH_SIZE)) {
+            Set<String> existing = projectUserRepository.findExistingEmails(batch);
+            pending.entrySet().removeIf(entry -> {
+                boolean exists = existing.contains(entry.getValue().getEmail());
+                if (exists) {
+                    results.get(entry.getKey()).withStatus(Status.ALREADY_EXISTS, null);
+                }
+                return exists;
+            });
+        }
+
+        // Accounts
+        List<Integer> indexes = pending.keySet().stream().sorted().collect(Collectors.toList());
+        for (List<Integer> batch : Lists.partition(indexes, BATCH_SIZE)) {
+            provisionAccounts(batch, pending, results);
+        }
+
+        // Project users
+        Map<String, Role> roles = resolveRoles(pending.values());
+        OffsetDateTime now = OffsetDateTime.now();
+        List<ProjectUser> projectUsers = new ArrayList<>(pending.size());
+        for (Integer index : indexes) {
+            AccessRequestDto row = pending.get(index);
+            if (row != null) {
+                Role role = roles.get(row.getRoleName());
+                ProjectUser projectUser = new ProjectUser();
+                projectUser.setEmail(row.getEmail());
+                projectUser.setRole(role);
+                if (row.getMetadata() != null) {
+                    projectUser.setMetadata(row.getMetadata());
+                }
+                projectUser.setStatus(UserStatus.ACCESS_GRANTED);
+                projectUser.setLastUpdate(now);
+                projectUsers.add(projectUser);
+                results.get(index).setRoleName(role.getName());
+                results.get(index).withStatus(Status.CREATED, null);
+            }
+        }
+        projectUserRepository.saveAll(projectUsers);
+        projectUsers.forEach(projectUser -> permissionsCache.evictUser(projectUser.getEmail()));
+        LOGGER.info("{} project users created out of {} imported rows", projectUsers.size(), rows.size());
+        return results;
+    }
+
+    /**
+     * @return the bean validation violations of the row, null if it is valid
+     */
+    private String validate(AccessRequestDto row) {
+        Set<ConstraintViolation<AccessRequestDto>> violations = validator.validate(row);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted().collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Check and create the accounts of a batch of rows with a single instance call. Rows whose account could not be
+     * created are removed from the pending ones.
+     */
+    private void provisionAccounts(List<Integer> batch, Map<Integer, AccessRequestDto> pending,
+            List<ProjectUserImportResult> results) {
+        List<AccountNPassword> accounts = new ArrayList<>(batch.size());
+        for (Integer index : batch) {
+            AccessRequestDto row = pending.get(index);
+            Account account = new Account(row.getEmail(), row.getFirstName(), row.getLastName(), row.getPassword());
+            account.setStatus(AccountStatus.ACTIVE);
+            accounts.add(new AccountNPassword(account, row.getPassword()));
+        }
+        List<AccountProvisioning> provisionings = null;
+        String error = null;
+        try {
+            ResponseEntity<List<AccountProvisioning>> response = accountsClient.provisionAccounts(accounts);
+            provisionings = response.getBody();
+            if ((provisionings == null) || (provisionings.size() != batch.size())) {
+                error = "Unexpected account provisioning response " + response.getStatusCode();
+            }
+        } catch (HttpServerErrorException | HttpClientErrorException e) {
+            LOGGER.error(e.getMessage(), e);
+            error = "Account provisioning failed : " + e.getMessage();
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Integer index = batch.get(i);
+            ProjectUserImportResult result = results.get(index);
+            if (error != null) {
+                result.withStatus(Status.ERROR, error);
+                pending.remove(index);
+            } else {
+                AccountProvisioning provisioning = provisionings.get(i);
+                if (provisioning.getStatus() == AccountProvisioning.Status.INVALID) {
+                    result.withStatus(Status.INVALID, provisioning.getMessage());
+                    pending.remove(index);
+                } else {
+                    result.setAccountCreated(provisioning.getStatus() == AccountProvisioning.Status.CREATED);
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolve each requested role once. Unknown or missing roles fall back to the default role, as for a single user
+     * creation.
+     * @return roles by requested name, null key for the default role
+     */
+    private Map<String, Role> resolveRoles(Collection<AccessRequestDto> rows) {
+        Map<String, Role> roles = new HashMap<>();
+        Role defaultRole = null;
+        for (AccessRequestDto row : rows) {
+            String roleName = row.getRoleName();
+            if (!roles.containsKey(roleName)) {
+                Role role = null;
+                if ((roleName != null) && !roleName.isEmpty()) {
+                    try {
+                        role = roleService.retrieveRole(roleName);
+                    } catch (EntityNotFoundException e) {
+                        LOGGER.warn("Requested role {} does not exist, users are associated to default role",
+                                    roleName);
+                        LOGGER.debug(e.getMessage(), e);
+                    }
+                }
+                if (role == null) {
+                    if (defaultRole == null) {
+                        defaultRole = roleService.getDefaultRole();
+                    }
+                    role = defaultRole;
+                }
+                roles.put(roleName, role);
+            }
+        }
+        return roles;
+    }
+}
@@ -33,6 +33,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -56,8 +57,10 @@ import fr.cnes.regards.modules.accessrights.dao.projects.IProjectUserRepository;
 import fr.cnes.regards.modules.accessrights.dao.projects.ProjectUserSpecification;
 import fr.cnes.regards.modules.accessrights.domain.UserStatus;
 import fr.cnes.regards.modules.accessrights.domain.UserVisibility;
+import fr.cnes.regards.modules.accessrights.domain.projects.KeysetPage;
 import fr.cnes.regards.modules.accessrights.domain.projects.MetaData;
 import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUser;
+import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUserCursor;
 import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
 import fr.cnes.regards.modules.accessrights.domain.projects.Role;
 import fr.cnes.regards.modules.accessrights.domain.registration.AccessRequestDto;
@@ -118,10 +121,17 @@ public class ProjectUserService implements IProjectUserService {
      */
     private final String instanceAdminUserEmail;
 
+    /**
+     * Cache of the effective permissions of project users
+     */
+    private final EffectivePermissionsCache permissionsCache;
+
     public ProjectUserService(IAuthenticationResolver authResolver, IProjectUserRepository pProjectUserRepository,
             final IRoleService pRoleService, IAccountsClient accountsClient,
-            @Value("${regards.accounts.root.user.login}") String pInstanceAdminUserEmail, Gson gson) {
+            @Value("${regards.accounts.root.user.login}") String pInstanceAdminUserEmail, Gson gson,
+            EffectivePermissionsCache permissionsCache) {
         super();
+        this.permissionsCache = permissionsCache;
         this.authResolver = authResolver;
         projectUserRepository = pProjectUserRepository;
         roleService = pRoleService;
@@ -135,6 +145,32 @@ public class ProjectUserService implements IProjectUserService {
         return projectUserRepository.findAll(ProjectUserSpecification.search(status, emailStart), pageable);
     }
 
+    @Override
+    public KeysetPage<ProjectUser> retrieveUserList(String status, String emailStart, String roleName,
+            ProjectUserCursor cursor, int size, boolean withCount) throws EntityInvalidException {
+        if (size < 1) {
+            throw new EntityInvalidException("Page size must be strictly positive");
+        }
+        Slice<ProjectUser> slice = projectUserRepository
+                .findSlice(ProjectUserSpecification.searchAfter(status, emailStart, roleName, cursor), size);
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            List<ProjectUser> content = slice.getContent();
+            nextCursor = ProjectUserCursor.after(cursor.getSortKey(), content.get(content.size() - 1)).encode();
+        }
+        Long totalElements = null;
+        if (withCount) {
+            totalElements = projectUserRepository.count(ProjectUserSpecification
+                    .searchAfter(status, emailStart, roleName, ProjectUserCursor.first(cursor.getSortKey())));
+        }
+        return new KeysetPage<>(slice.getContent(), nextCursor, totalElements);
+    }
+
+    @Override
+    public List<ProjectUser> searchUsers(String text, int limit) {
+        return projectUserRepository.searchByEmail(text, limit);
+    }
+
     @Override
     public ProjectUser retrieveUser(Long userId) throws EntityNotFoundException {
         Optional<ProjectUser> userOpt = projectUserRepository.findById(userId);
@@ -272,6 +308,11 @@ public class ProjectUserService implements IProjectUserService {
     @Override
     public List<ResourcesAccess> retrieveProjectUserAccessRights(String email, String borrowedRoleName)
             throws EntityException {
+        Optional<List<ResourcesAccess>> cached = permissionsCache.get(email, borrowedRoleName);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        long generation = permissionsCache.getGeneration();
         ProjectUser projectUser = retrieveOneByEmail(email);
         Role returnedRole = projectUser.getRole();
 
@@ -294,6 +335,7 @@ public class ProjectUserService implements IProjectUserService {
         } catch (EntityNotFoundException e) {
             LOG.debug("Could not retrieve permissions from role", e);
         }
+        permissionsCache.put(email, borrowedRoleName, merged, generation);
         return merged;
     }
 
@@ -358,17 +400,18 @@ public class ProjectUserService implements IProjectUserService {
      * @param projectUser The user to save
      */
     private ProjectUser save(ProjectUser projectUser) {
+        permissionsCache.evictUser(projectUser.getEmail());
         projectUser.setLastUpdate(OffsetDateTime.now());
         return projectUserRepository.save(projectUser);
     }
 
     @Override
-    public void resetLicence() {
-        List<ProjectUser> users = projectUserRepository.findAll();
-        for (ProjectUser anyone : users) {
-            anyone.setLicenseAccepted(false);
-        }
-        projectUserRepository.saveAll(users);
+    public int resetLicence() {
+        int count = projectUserRepository.resetLicences(OffsetDateTime.now());
+        // Users are not loaded, so evict all of them
+        permissionsCache.evictTenant();
+        LOG.info("Licence reset for {} project users", count);
+        return count;
     }
 
     @Override
@@ -379,6 +422,7 @@ public class ProjectUserService implements IProjectUserService {
     @Override
     public void deleteByEmail(String Email) throws EntityNotFoundException {
         ProjectUser projectUser = retrieveOneByEmail(Email);
+        permissionsCache.evictUser(projectUser.getEmail());
         projectUserRepository.delete(projectUser);
     }
 
@@ -106,11 +106,17 @@ public class WaitForQualificationListener
         // Retrieve the account/project user email
         String email = wrapper.getContent().getAccountEmail();
         LOG.info("Account accepted event received for user {}.", email);
-        // Now for each tenant, lets handle this account activation
+        // Now for each tenant, lets handle this account activation. A failing tenant does not prevent the others from
+        // being handled.
         for (String tenant : tenantResolver.getAllActiveTenants()) {
-            runtimeTenantResolver.forceTenant(tenant);
-            onAccountActivation(email);
-            runtimeTenantResolver.clearTenant();
+            try {
+                runtimeTenantResolver.forceTenant(tenant);
+                onAccountActivation(email);
+            } catch (RuntimeException e) { // NOSONAR
+                LOG.error(String.format("Account activation of user %s failed for tenant %s", email, tenant), e);
+            } finally {
+                runtimeTenantResolver.clearTenant();
+            }
         }
     }
 
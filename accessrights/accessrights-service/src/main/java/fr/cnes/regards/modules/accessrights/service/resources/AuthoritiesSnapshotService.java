@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service.resources;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import fr.cnes.regards.framework.jpa.multitenant.transactional.MultitenantTransactional;
+import fr.cnes.regards.modules.accessrights.dao.projects.IResourcesAccessRepository;
+import fr.cnes.regards.modules.accessrights.dao.projects.IRoleRepository;
+import fr.cnes.regards.modules.accessrights.domain.projects.AuthoritiesSnapshot;
+import fr.cnes.regards.modules.accessrights.domain.projects.AuthoritiesSnapshot.ResourceEntry;
+import fr.cnes.regards.modules.accessrights.domain.projects.AuthoritiesSnapshot.RoleEntry;
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
+import fr.cnes.regards.modules.accessrights.domain.projects.Role;
+import fr.cnes.regards.modules.accessrights.service.version.IAccessRightsVersionService;
+
+/**
+ * {@link IAuthoritiesSnapshotService} implementation. A snapshot is built with three queries whatever the number of
+ * roles.
+ * @author REGARDS Team
+ */
+@Service
+@MultitenantTransactional
+public class AuthoritiesSnapshotService implements IAuthoritiesSnapshotService {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuthoritiesSnapshotService.class);
+
+    private final IRoleRepository roleRepository;
+
+    private final IResourcesAccessRepository resourceAccessRepo;
+
+    private final IAccessRightsVersionService versionService;
+
+    public AuthoritiesSnapshotService(IRoleRepository roleRepository, IResourcesAccessRepository resourceAccessRepo,
+            IAccessRightsVersionService versionService) {
+        this.roleRepository = roleRepository;
+        this.resourceAccessRepo = resourceAccessRepo;
+        this.versionService = versionService;
+    }
+
+    @Override
+    public AuthoritiesSnapshot retrieveSnapshot(String microservice) {
+        // Read version first so that a concurrent modification can only make the snapshot look older than it is
+        AuthoritiesSnapshot snapshot = new AuthoritiesSnapshot(microservice, versionService.getVersion());
+        for (Role role : roleRepository.findAllWithParent()) {
+            snapshot.getRoles().add(new RoleEntry(role));
+        }
+        Map<Long, ResourceEntry> entries = new HashMap<>();
+        List<ResourcesAccess> resources = resourceAccessRepo.findByMicroservice(microservice);
+        for (ResourcesAccess resource : resources) {
+            ResourceEntry entry = new ResourceEntry(resource);
+            entries.put(resource.getId(), entry);
+            snapshot.getResources().add(entry);
+        }
+        for (Object[] association : resourceAccessRepo.findRoleResourceIdsByMicroservice(microservice)) {
+            ResourceEntry entry = entries.get(association[1]);
+            if (entry != null) {
+                entry.getRoles().add((String) association[0]);
+            }
+        }
+        LOGGER.debug("Authorities snapshot of microservice {} built with {} roles and {} resources (version {})",
+                     microservice, snapshot.getRoles().size(), resources.size(), snapshot.getVersion());
+        return snapshot;
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service.resources;
+
+import fr.cnes.regards.modules.accessrights.domain.projects.AuthoritiesSnapshot;
+
+/**
+ * Business service building the {@link AuthoritiesSnapshot} of a microservice for the current tenant
+ * @author REGARDS Team
+ */
+public interface IAuthoritiesSnapshotService {
+
+    /**
+     * Retrieve all roles and all resources of a microservice with their granted roles in one snapshot
+     * @param microservice microservice name
+     * @return {@link AuthoritiesSnapshot}
+     */
+    AuthoritiesSnapshot retrieveSnapshot(String microservice);
+}
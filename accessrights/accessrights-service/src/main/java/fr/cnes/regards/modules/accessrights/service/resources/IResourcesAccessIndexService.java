@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service.resources;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
+import fr.cnes.regards.modules.accessrights.domain.projects.Role;
+
+/**
+ * Business service giving access to a compact bitset representation of {@link ResourcesAccess} sets.<br/>
+ * Each {@link ResourcesAccess} of the current tenant is given a bit position so that containment and difference
+ * computations between sets of permissions are done on words instead of hashing full entities.<br/>
+ * Accesses that are not indexed (not persisted yet or registered after the index was built) are still supported through
+ * regular {@link Set} semantics.<br/>
+ * The effective permissions of each {@link Role} are held as a cached {@link BitSet} until permissions of any role of
+ * the tenant change.
+ *
+ * @author REGARDS Team
+ */
+public interface IResourcesAccessIndexService {
+
+    /**
+     * Convert given accesses to a {@link BitSet}
+     * @param accesses {@link ResourcesAccess}s to convert
+     * @return {@link BitSet} or an empty optional if at least one access is not indexed
+     */
+    Optional<BitSet> toBitSet(Collection<ResourcesAccess> accesses);
+
+    /**
+     * Retrieve the effective permissions of a role as a {@link BitSet}. The bitset is computed once and cached by role
+     * name until {@link #invalidateRoles()} or {@link #invalidate()} is called.
+     * @param role {@link Role}
+     * @return a copy of the cached {@link BitSet} or an empty optional if at least one permission is not indexed
+     */
+    Optional<BitSet> getPermissionBits(Role role);
+
+    /**
+     * Retrieve identifiers of the accesses set in the given {@link BitSet}
+     * @param bits {@link BitSet} computed by this service
+     * @return {@link ResourcesAccess} identifiers
+     */
+    Set<Long> toIds(BitSet bits);
+
+    /**
+     * Check if all the given accesses are contained in the container
+     * @param container reference accesses
+     * @param accesses accesses to check
+     * @return true if container contains all the accesses
+     */
+    boolean containsAll(Collection<ResourcesAccess> container, Collection<ResourcesAccess> accesses);
+
+    /**
+     * Check if the given role owns all the given accesses, using the cached permissions of the role
+     * @param container reference role
+     * @param accesses accesses to check
+     * @return true if the role owns all the accesses
+     */
+    boolean containsAll(Role container, Collection<ResourcesAccess> accesses);
+
+    /**
+     * Check if the given role owns all the accesses of another role, using the cached permissions of both roles
+     * @param container reference role
+     * @param role role which accesses are checked
+     * @return true if container owns all the accesses of role
+     */
+    boolean containsAll(Role container, Role role);
+
+    /**
+     * Compute the accesses of <code>from</code> that are not in <code>excluded</code>
+     * @param from accesses to filter
+     * @param excluded accesses to exclude
+     * @return a new modifiable {@link Set} of {@link ResourcesAccess}
+     */
+    Set<ResourcesAccess> difference(Collection<ResourcesAccess> from, Collection<ResourcesAccess> excluded);
+
+    /**
+     * Drop the index of the current tenant so it is rebuilt on next use.
+     */
+    void invalidate();
+
+    /**
+     * Drop the cached role permissions of the current tenant. Must be called each time permissions of a role are
+     * modified. If a transaction is running, they are dropped once more when it completes.
+     */
+    void invalidateRoles();
+}
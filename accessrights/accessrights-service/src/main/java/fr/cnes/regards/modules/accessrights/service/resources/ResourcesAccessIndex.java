@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service.resources;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
+
+/**
+ * Immutable dense index of the {@link ResourcesAccess} of one tenant : each known identifier is associated to a bit
+ * position so that a set of {@link ResourcesAccess} can be held as a {@link BitSet}.
+ *
+ * @author REGARDS Team
+ */
+final class ResourcesAccessIndex {
+
+    /**
+     * Bit position by {@link ResourcesAccess} identifier
+     */
+    private final Map<Long, Integer> bitById;
+
+    /**
+     * {@link ResourcesAccess} identifier by bit position
+     */
+    private final long[] idByBit;
+
+    /**
+     * Constructor
+     * @param ids known {@link ResourcesAccess} identifiers
+     */
+    ResourcesAccessIndex(List<Long> ids) {
+        bitById = new HashMap<>(ids.size() * 2);
+        idByBit = new long[ids.size()];
+        int bit = 0;
+        for (Long id : ids) {
+            if ((id != null) && !bitById.containsKey(id)) {
+                bitById.put(id, bit);
+                idByBit[bit] = id;
+                bit++;
+            }
+        }
+    }
+
+    /**
+     * @param accesses {@link ResourcesAccess}s to convert
+     * @return {@link BitSet} of the given accesses or an empty optional if at least one of them is not indexed
+     */
+    Optional<BitSet> toBitSet(Collection<ResourcesAccess> accesses) {
+        BitSet bits = new BitSet(idByBit.length);
+        for (ResourcesAccess access : accesses) {
+            Integer bit = (access == null) || (access.getId() == null) ? null : bitById.get(access.getId());
+            if (bit == null) {
+                return Optional.empty();
+            }
+            bits.set(bit);
+        }
+        return Optional.of(bits);
+    }
+
+    /**
+     * @param id {@link ResourcesAccess} identifier
+     * @return bit position of the identifier, -1 if not indexed
+     */
+    int getBit(Long id) {
+        Integer bit = id == null ? null : bitById.get(id);
+        return bit == null ? -1 : bit;
+    }
+
+    /**
+     * @param bit bit position
+     * @return {@link ResourcesAccess} identifier set at this position
+     */
+    long getId(int bit) {
+        return idByBit[bit];
+    }
+
+    /**
+     * @return number of indexed {@link ResourcesAccess}
+     */
+    int size() {
+        return bitById.size();
+    }
+}
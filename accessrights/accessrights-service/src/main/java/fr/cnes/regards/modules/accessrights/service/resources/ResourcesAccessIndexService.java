@@ -0,0 +1,328 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service.resources;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import fr.cnes.regards.framework.amqp.ISubscriber;
+import fr.cnes.regards.framework.amqp.domain.IHandler;
+import fr.cnes.regards.framework.amqp.domain.TenantWrapper;
+import fr.cnes.regards.framework.jpa.multitenant.transactional.MultitenantTransactional;
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+import fr.cnes.regards.framework.security.event.RoleEvent;
+import fr.cnes.regards.modules.accessrights.dao.projects.IResourcesAccessRepository;
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourceAccessDeltaEvent;
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
+import fr.cnes.regards.modules.accessrights.domain.projects.Role;
+
+/**
+ * {@link IResourcesAccessIndexService} implementation.<br/>
+ * The index of a tenant is lazily built from the identifiers of all its {@link ResourcesAccess}. Role permission
+ * bitsets are held with the index they were computed from. They are dropped on local modifications and when a
+ * {@link RoleEvent} or a {@link ResourceAccessDeltaEvent} is received from another instance.<br/>
+ * Bitsets computed by a transaction which invalidated them, or while they were invalidated, are not cached.
+ *
+ * @author REGARDS Team
+ */
+@Service
+@MultitenantTransactional
+public class ResourcesAccessIndexService
+        implements IResourcesAccessIndexService, ApplicationListener<ApplicationReadyEvent> {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResourcesAccessIndexService.class);
+
+    /**
+     * JPA Repository
+     */
+    private final IResourcesAccessRepository resourceAccessRepo;
+
+    /**
+     * Runtime tenant resolver
+     */
+    private final IRuntimeTenantResolver runtimeTenantResolver;
+
+    /**
+     * AMQP tenant subscriber
+     */
+    @Autowired
+    private ISubscriber subscriber;
+
+    /**
+     * Indexes by tenant
+     */
+    private final Map<String, TenantIndex> indexes = new ConcurrentHashMap<>();
+
+    public ResourcesAccessIndexService(IResourcesAccessRepository resourceAccessRepo,
+            IRuntimeTenantResolver runtimeTenantResolver) {
+        this.resourceAccessRepo = resourceAccessRepo;
+        this.runtimeTenantResolver = runtimeTenantResolver;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        subscriber.subscribeTo(RoleEvent.class, new RoleEventHandler());
+        subscriber.subscribeTo(ResourceAccessDeltaEvent.class, new ResourceAccessDeltaEventHandler());
+    }
+
+    @Override
+    public Optional<BitSet> toBitSet(Collection<ResourcesAccess> accesses) {
+        return getIndex().index.toBitSet(accesses);
+    }
+
+    @Override
+    public Optional<BitSet> getPermissionBits(Role role) {
+        return getRoleBits(getIndex(), role).map(bits -> (BitSet) bits.clone());
+    }
+
+    @Override
+    public Set<Long> toIds(BitSet bits) {
+        ResourcesAccessIndex index = getIndex().index;
+        Set<Long> ids = new LinkedHashSet<>();
+        for (int bit = bits.nextSetBit(0); (bit >= 0) && (bit < index.size()); bit = bits.nextSetBit(bit + 1)) {
+            ids.add(index.getId(bit));
+        }
+        return ids;
+    }
+
+    @Override
+    public boolean containsAll(Collection<ResourcesAccess> container, Collection<ResourcesAccess> accesses) {
+        if (accesses.isEmpty()) {
+            return true;
+        }
+        ResourcesAccessIndex index = getIndex().index;
+        Optional<BitSet> accessBits = index.toBitSet(accesses);
+        if (accessBits.isPresent()) {
+            Optional<BitSet> containerBits = index.toBitSet(container);
+            if (containerBits.isPresent()) {
+                // accesses \ container must be empty
+                BitSet missing = accessBits.get();
+                missing.andNot(containerBits.get());
+                return missing.isEmpty();
+            }
+        }
+        return asSet(container).containsAll(accesses);
+    }
+
+    @Override
+    public boolean containsAll(Role container, Collection<ResourcesAccess> accesses) {
+        if (accesses.isEmpty()) {
+            return true;
+        }
+        TenantIndex tenantIndex = getIndex();
+        Optional<BitSet> containerBits = getRoleBits(tenantIndex, container);
+        if (containerBits.isPresent()) {
+            boolean indexed = true;
+            for (ResourcesAccess access : accesses) {
+                int bit = (access == null) ? -1 : tenantIndex.index.getBit(access.getId());
+                if (bit < 0) {
+                    indexed = false;
+                } else if (!containerBits.get().get(bit)) {
+                    return false;
+                }
+            }
+            if (indexed) {
+                return true;
+            }
+        }
+        return asSet(container.getPermissions()).containsAll(accesses);
+    }
+
+    @Override
+    public boolean containsAll(Role container, Role role) {
+        TenantIndex tenantIndex = getIndex();
+        Optional<BitSet> roleBits = getRoleBits(tenantIndex, role);
+        Optional<BitSet> containerBits = roleBits.isPresent() ? getRoleBits(tenantIndex, container) : Optional.empty();
+        if (containerBits.isPresent()) {
+            // Cached bitsets are shared, so they are only read
+            for (int bit = roleBits.get().nextSetBit(0); bit >= 0; bit = roleBits.get().nextSetBit(bit + 1)) {
+                if (!containerBits.get().get(bit)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return asSet(container.getPermissions()).containsAll(role.getPermissions());
+    }
+
+    @Override
+    public Set<ResourcesAccess> difference(Collection<ResourcesAccess> from, Collection<ResourcesAccess> excluded) {
+        Set<ResourcesAccess> result = new HashSet<>();
+        if (excluded.isEmpty()) {
+            result.addAll(from);
+            return result;
+        }
+        ResourcesAccessIndex index = getIndex().index;
+        Optional<BitSet> fromBits = index.toBitSet(from);
+        Optional<BitSet> excludedBits = fromBits.isPresent() ? index.toBitSet(excluded) : Optional.empty();
+        if (excludedBits.isPresent()) {
+            for (ResourcesAccess access : from) {
+                if (!excludedBits.get().get(index.getBit(access.getId()))) {
+                    result.add(access);
+                }
+            }
+        } else {
+            result.addAll(from);
+            result.removeAll(asSet(excluded));
+        }
+        return result;
+    }
+
+    @Override
+    public void invalidate() {
+        String tenant = runtimeTenantResolver.getTenant();
+        if ((tenant != null) && (indexes.remove(tenant) != null)) {
+            LOGGER.debug("Resources access index of tenant {} invalidated", tenant);
+        }
+    }
+
+    @Override
+    public void invalidateRoles() {
+        String tenant = runtimeTenantResolver.getTenant();
+        if (tenant == null) {
+            return;
+        }
+        invalidateRoles(tenant);
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(this)) {
+            // Bitsets computed from uncommitted or concurrently outdated permissions must not be kept
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ResourcesAccessIndexService.this);
+                    invalidateRoles(tenant);
+                }
+            });
+        }
+    }
+
+    private void invalidateRoles(String tenant) {
+        TenantIndex tenantIndex = indexes.get(tenant);
+        if (tenantIndex != null) {
+            tenantIndex.generation.incrementAndGet();
+            tenantIndex.roleBits.clear();
+            LOGGER.debug("Role permission bitsets of tenant {} invalidated", tenant);
+        }
+    }
+
+    private static Set<ResourcesAccess> asSet(Collection<ResourcesAccess> accesses) {
+        return accesses instanceof Set ? (Set<ResourcesAccess>) accesses : new HashSet<>(accesses);
+    }
+
+    /**
+     * @return cached permissions of the role, computed if needed, or an empty optional if one of them is not indexed
+     */
+    private Optional<BitSet> getRoleBits(TenantIndex tenantIndex, Role role) {
+        if (role.getName() == null) {
+            return tenantIndex.index.toBitSet(role.getPermissions());
+        }
+        BitSet bits = tenantIndex.roleBits.get(role.getName());
+        if (bits == null) {
+            long generation = tenantIndex.generation.get();
+            Optional<BitSet> computed = tenantIndex.index.toBitSet(role.getPermissions());
+            if (!computed.isPresent()) {
+                return computed;
+            }
+            bits = computed.get();
+            // Permissions of the transaction which invalidated the bitsets may be uncommitted
+            if (!TransactionSynchronizationManager.hasResource(this)) {
+                tenantIndex.roleBits.put(role.getName(), bits);
+                if (generation != tenantIndex.generation.get()) {
+                    // Invalidated while computed
+                    tenantIndex.roleBits.remove(role.getName(), bits);
+                }
+            }
+        }
+        return Optional.of(bits);
+    }
+
+    private TenantIndex getIndex() {
+        String tenant = runtimeTenantResolver.getTenant();
+        if (tenant == null) {
+            // No tenant, no cache
+            return build();
+        }
+        return indexes.computeIfAbsent(tenant, t -> build());
+    }
+
+    private TenantIndex build() {
+        ResourcesAccessIndex index = new ResourcesAccessIndex(resourceAccessRepo.findAllIds());
+        LOGGER.debug("Resources access index built with {} resources", index.size());
+        return new TenantIndex(index);
+    }
+
+    /**
+     * Index of a tenant with the permissions of its roles
+     */
+    private static class TenantIndex {
+
+        private final ResourcesAccessIndex index;
+
+        /**
+         * Permissions by role name, as positions of this index
+         */
+        private final Map<String, BitSet> roleBits = new ConcurrentHashMap<>();
+
+        /**
+         * Number of role permissions invalidations
+         */
+        private final AtomicLong generation = new AtomicLong();
+
+        private TenantIndex(ResourcesAccessIndex index) {
+            this.index = index;
+        }
+    }
+
+    private class RoleEventHandler implements IHandler<RoleEvent> {
+
+        @Override
+        public void handle(TenantWrapper<RoleEvent> wrapper) {
+            invalidateRoles(wrapper.getTenant());
+        }
+    }
+
+    private class ResourceAccessDeltaEventHandler implements IHandler<ResourceAccessDeltaEvent> {
+
+        @Override
+        public void handle(TenantWrapper<ResourceAccessDeltaEvent> wrapper) {
+            invalidateRoles(wrapper.getTenant());
+        }
+    }
+}
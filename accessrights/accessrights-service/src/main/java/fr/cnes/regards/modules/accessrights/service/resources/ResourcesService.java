@@ -18,6 +18,9 @@
  */
 package fr.cnes.regards.modules.accessrights.service.resources;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.HashSet;
@@ -25,16 +28,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.StringJoiner;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
-import com.google.common.collect.Lists;
-
 import fr.cnes.regards.framework.authentication.IAuthenticationResolver;
 import fr.cnes.regards.framework.jpa.multitenant.transactional.MultitenantTransactional;
 import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
@@ -43,7 +44,9 @@ import fr.cnes.regards.framework.security.domain.ResourceMapping;
 import fr.cnes.regards.framework.security.role.DefaultRole;
 import fr.cnes.regards.framework.security.utils.endpoint.RoleAuthority;
 import fr.cnes.regards.modules.accessrights.dao.projects.IResourcesAccessRepository;
+import fr.cnes.regards.modules.accessrights.dao.projects.IResourcesFingerprintRepository;
 import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesFingerprint;
 import fr.cnes.regards.modules.accessrights.domain.projects.Role;
 import fr.cnes.regards.modules.accessrights.service.role.IRoleService;
 
@@ -65,6 +68,11 @@ public class ResourcesService implements IResourcesService {
      */
     private static final Logger LOG = LoggerFactory.getLogger(ResourcesService.class);
 
+    /**
+     * Algorithm used to compute registered endpoints fingerprint
+     */
+    private static final String FINGERPRINT_ALGORITHM = "SHA-256";
+
     /**
      * JPA Repository
      */
@@ -80,14 +88,27 @@ public class ResourcesService implements IResourcesService {
      */
     private final IAuthenticationResolver authResolver;
 
+    /**
+     * Bitset index of resources accesses
+     */
+    private final IResourcesAccessIndexService resourcesAccessIndex;
+
+    /**
+     * Registered endpoints fingerprint repository
+     */
+    private final IResourcesFingerprintRepository fingerprintRepo;
+
     /**
      * Constructor
      */
     public ResourcesService(IResourcesAccessRepository resourceAccessRepo, IRoleService roleService,
-            IAuthenticationResolver authResolver) {
+            IAuthenticationResolver authResolver, IResourcesAccessIndexService resourcesAccessIndex,
+            IResourcesFingerprintRepository fingerprintRepo) {
         this.resourceAccessRepo = resourceAccessRepo;
+        this.fingerprintRepo = fingerprintRepo;
         this.roleService = roleService;
         this.authResolver = authResolver;
+        this.resourcesAccessIndex = resourcesAccessIndex;
     }
 
     @Override
@@ -110,10 +131,15 @@ public class ResourcesService implements IResourcesService {
                         .findByMicroserviceAndDefaultRoleNot(microserviceName, DefaultRole.INSTANCE_ADMIN, pageable);
             }
         } else {
-            // Else retrieve only accessible resources
-            Role currentRole = roleService.retrieveRole(roleName);
-            List<ResourcesAccess> accessibleResourcesAccesses = Lists.newArrayList(currentRole.getPermissions());
-            results = new PageImpl<>(accessibleResourcesAccesses, pageable, accessibleResourcesAccesses.size());
+            // Else retrieve only accessible resources, paged and filtered by database
+            if (!roleService.existByName(roleName)) {
+                throw new EntityNotFoundException(roleName, Role.class);
+            }
+            if (microserviceName == null) {
+                results = resourceAccessRepo.findByRoleName(roleName, pageable);
+            } else {
+                results = resourceAccessRepo.findByRoleNameAndMicroservice(roleName, microserviceName, pageable);
+            }
         }
         return results;
     }
@@ -162,18 +188,30 @@ public class ResourcesService implements IResourcesService {
             }
         }
 
+        // Skip registration if endpoints did not change since last one
+        String fingerprint = computeFingerprint(resources);
+        Optional<ResourcesFingerprint> lastFingerprint = fingerprintRepo.findByMicroservice(microserviceName);
+        if (lastFingerprint.isPresent() && fingerprint.equals(lastFingerprint.get().getFingerprint())) {
+            LOG.debug("Resources of microservice {} unchanged since last registration", microserviceName);
+            return;
+        }
+
         // Retrieve already configured resources for the given microservice
-        List<ResourcesAccess> existingResources = resourceAccessRepo.findByMicroservice(microserviceName);
+        Set<ResourcesAccess> knownResources = new HashSet<>(resourceAccessRepo.findByMicroservice(microserviceName));
 
-        // Extract and save new resources
+        // Extract and save new resources (known set also prevents duplicates in the registered ones)
         List<ResourcesAccess> newResources = new ArrayList<>();
         for (ResourcesAccess ra : resources) {
-            if (!existingResources.contains(ra)) {
+            if (knownResources.add(ra)) {
                 newResources.add(ra);
             }
         }
+        LOG.info("Registering {} new resources out of {} for microservice {}", newResources.size(), resources.size(),
+                 microserviceName);
         if (!newResources.isEmpty()) {
             resourceAccessRepo.saveAll(newResources);
+            // New resources have to be indexed
+            resourcesAccessIndex.invalidate();
         }
 
         // Compute map by native roles
@@ -189,6 +227,43 @@ public class ResourcesService implements IResourcesService {
             roleService.addResourceAccesses(role.getId(),
                                             entry.getValue().toArray(new ResourcesAccess[0]));
         }
+
+        // Remember registered endpoints
+        ResourcesFingerprint toSave = lastFingerprint.orElseGet(() -> new ResourcesFingerprint(microserviceName, null));
+        toSave.setFingerprint(fingerprint);
+        fingerprintRepo.save(toSave);
+    }
+
+    /**
+     * Compute an order independent hash of the given resources
+     * @param resources {@link ResourcesAccess}s to hash
+     * @return hexadecimal hash
+     */
+    private static String computeFingerprint(List<ResourcesAccess> resources) {
+        List<String> lines = new ArrayList<>(resources.size());
+        for (ResourcesAccess ra : resources) {
+            StringJoiner line = new StringJoiner("|");
+            line.add(ra.getMicroservice()).add(String.valueOf(ra.getVerb())).add(ra.getResource())
+                    .add(ra.getControllerSimpleName()).add(String.valueOf(ra.getDefaultRole()))
+                    .add(ra.getDescription());
+            lines.add(line.toString());
+        }
+        lines.sort(null);
+        try {
+            MessageDigest digest = MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+            for (String line : lines) {
+                digest.update(line.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is always available in the JDK
+            throw new IllegalStateException(e);
+        }
     }
 
     @Override
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service.resources;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import fr.cnes.regards.framework.jpa.multitenant.event.spring.TenantConnectionDiscarded;
+import fr.cnes.regards.framework.jpa.multitenant.transactional.MultitenantTransactional;
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+import fr.cnes.regards.framework.security.utils.endpoint.RoleAuthority;
+import fr.cnes.regards.modules.accessrights.domain.projects.AccessCheck;
+import fr.cnes.regards.modules.accessrights.service.version.IAccessRightsVersionService;
+
+/**
+ * {@link IRouteAuthorizationService} implementation. Checks are answered from a {@link RouteDecisionTable} compiled
+ * once per tenant and microservice. All tables of a tenant are dropped as soon as its access rights version changes or
+ * its connection is discarded.<br/>
+ * Instance administrator and system roles are allowed everywhere, as in the security starter. Project administrator is
+ * allowed on every resource which is not reserved to the instance administrator, as in the resources listing.
+ * @author REGARDS Team
+ */
+@Service
+public class RouteAuthorizationService implements IRouteAuthorizationService {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(RouteAuthorizationService.class);
+
+    private final IAuthoritiesSnapshotService snapshotService;
+
+    private final IAccessRightsVersionService versionService;
+
+    private final IRuntimeTenantResolver runtimeTenantResolver;
+
+    /**
+     * Compiled tables by microservice by tenant
+     */
+    private final Map<String, Map<String, RouteDecisionTable>> tables = new ConcurrentHashMap<>();
+
+    public RouteAuthorizationService(IAuthoritiesSnapshotService snapshotService,
+            IAccessRightsVersionService versionService, IRuntimeTenantResolver runtimeTenantResolver) {
+        this.snapshotService = snapshotService;
+        this.versionService = versionService;
+        this.runtimeTenantResolver = runtimeTenantResolver;
+    }
+
+    @Override
+    @MultitenantTransactional
+    public List<AccessCheck> check(String microservice, List<AccessCheck> checks) {
+        RouteDecisionTable table = getTable(microservice);
+        for (AccessCheck check : checks) {
+            String role = check.getRole();
+            boolean allowed;
+            if (role == null) {
+                allowed = false;
+            } else if (RoleAuthority.isInstanceAdminRole(role) || RoleAuthority.isSysRole(role)) {
+                allowed = true;
+            } else if (RoleAuthority.isProjectAdminRole(role)) {
+                // Same rule as the resources listing
+                allowed = table.isOwnedByProjectAdmin(check.getVerb(), check.getPath());
+            } else {
+                allowed = table.isAllowed(role, check.getVerb(), check.getPath());
+            }
+            check.setAllowed(allowed);
+        }
+        return checks;
+    }
+
+    /**
+     * Tables of a discarded tenant are never used again
+     */
+    @EventListener
+    public void processEvent(TenantConnectionDiscarded event) {
+        tables.remove(event.getTenant());
+        LOGGER.debug("Route decision tables of tenant {} dropped", event.getTenant());
+    }
+
+    private RouteDecisionTable getTable(String microservice) {
+        long version = versionService.getVersion();
+        Map<String, RouteDecisionTable> tenantTables = tables
+                .computeIfAbsent(runtimeTenantResolver.getTenant(), tenant -> new ConcurrentHashMap<>());
+        RouteDecisionTable table = tenantTables.get(microservice);
+        if ((table == null) || (table.getVersion() != version)) {
+            if (table != null) {
+                // Version is shared by all microservices of the tenant so their tables are outdated too
+                tenantTables.clear();
+            }
+            table = RouteDecisionTable.of(snapshotService.retrieveSnapshot(microservice));
+            tenantTables.put(microservice, table);
+            LOGGER.debug("Route decision table of microservice {} compiled (version {})", microservice,
+                         table.getVersion());
+        }
+        return table;
+    }
+}
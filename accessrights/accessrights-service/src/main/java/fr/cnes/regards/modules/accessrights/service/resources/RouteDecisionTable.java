@@ -0,0 +1,207 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service.resources;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import fr.cnes.regards.framework.security.role.DefaultRole;
+import fr.cnes.regards.modules.accessrights.domain.projects.AuthoritiesSnapshot;
+import fr.cnes.regards.modules.accessrights.domain.projects.AuthoritiesSnapshot.ResourceEntry;
+
+/**
+ * Compiled access rights of a microservice : one path template trie by http verb whose endpoints hold the granted
+ * roles.<br/>
+ * Path segments are matched literally first then against path variables ({id}, *) and finally against a trailing
+ * catch all (**), backtracking when a branch leads to no endpoint, so that the most specific template wins as in the
+ * request routing. A table is immutable once built.
+ * @author REGARDS Team
+ */
+public final class RouteDecisionTable {
+
+    /**
+     * Access rights version the table has been built from
+     */
+    private final long version;
+
+    /**
+     * Trie roots by verb
+     */
+    private final Map<RequestMethod, Node> roots = new EnumMap<>(RequestMethod.class);
+
+    private RouteDecisionTable(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Compile the given snapshot
+     * @param snapshot {@link AuthoritiesSnapshot} of a microservice
+     * @return {@link RouteDecisionTable}
+     */
+    public static RouteDecisionTable of(AuthoritiesSnapshot snapshot) {
+        RouteDecisionTable table = new RouteDecisionTable(snapshot.getVersion());
+        for (ResourceEntry entry : snapshot.getResources()) {
+            table.add(entry.getVerb(), entry.getResource(), entry.getRoles(), entry.getDefaultRole());
+        }
+        return table;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @param role calling role
+     * @param verb http verb
+     * @param path concrete path or registered template
+     * @return true if the path matches an endpoint of the given verb granted to the given role
+     */
+    public boolean isAllowed(String role, RequestMethod verb, String path) {
+        if (role == null) {
+            return false;
+        }
+        Node endpoint = findEndpoint(verb, path);
+        return (endpoint != null) && endpoint.roles.contains(role);
+    }
+
+    /**
+     * Project administrator owns every resource which is not reserved to the instance administrator, whatever the
+     * roles it is granted to.
+     * @param verb http verb
+     * @param path concrete path or registered template
+     * @return true if the path matches an endpoint of the given verb not reserved to the instance administrator
+     */
+    public boolean isOwnedByProjectAdmin(RequestMethod verb, String path) {
+        Node endpoint = findEndpoint(verb, path);
+        return (endpoint != null) && endpoint.ownedByProjectAdmin;
+    }
+
+    private Node findEndpoint(RequestMethod verb, String path) {
+        if ((verb == null) || (path == null)) {
+            return null;
+        }
+        Node root = roots.get(verb);
+        return root == null ? null : root.match(split(path), 0);
+    }
+
+    private void add(RequestMethod verb, String template, Collection<String> grantedRoles,
+            DefaultRole defaultRole) {
+        if ((verb == null) || (template == null)) {
+            return;
+        }
+        Node node = roots.computeIfAbsent(verb, v -> new Node());
+        for (String segment : split(template)) {
+            node = node.child(segment);
+        }
+        if (node.roles == null) {
+            node.roles = new HashSet<>();
+        }
+        node.roles.addAll(grantedRoles);
+        // Same rule as the resources listing : unknown default role is not owned by the project administrator
+        node.ownedByProjectAdmin |= (defaultRole != null) && (defaultRole != DefaultRole.INSTANCE_ADMIN);
+    }
+
+    private static List<String> split(String path) {
+        int query = path.indexOf('?');
+        String cleaned = query < 0 ? path : path.substring(0, query);
+        List<String> segments = new ArrayList<>();
+        for (String segment : cleaned.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Trie node
+     */
+    private static final class Node {
+
+        private Map<String, Node> literals = Collections.emptyMap();
+
+        private Node variable;
+
+        private Node catchAll;
+
+        /**
+         * Granted roles if an endpoint ends at this node, null otherwise
+         */
+        private Set<String> roles;
+
+        /**
+         * Whether an endpoint ending at this node is not reserved to the instance administrator
+         */
+        private boolean ownedByProjectAdmin;
+
+        private Node child(String segment) {
+            if ("**".equals(segment)) {
+                if (catchAll == null) {
+                    catchAll = new Node();
+                }
+                return catchAll;
+            }
+            if ("*".equals(segment) || segment.contains("{")) {
+                if (variable == null) {
+                    variable = new Node();
+                }
+                return variable;
+            }
+            if (literals.isEmpty()) {
+                literals = new HashMap<>();
+            }
+            return literals.computeIfAbsent(segment, s -> new Node());
+        }
+
+        /**
+         * @return matching endpoint node, null if none
+         */
+        private Node match(List<String> segments, int index) {
+            if (index == segments.size()) {
+                if (roles != null) {
+                    return this;
+                }
+                return catchAll == null ? null : catchAll.asEndpoint();
+            }
+            String segment = segments.get(index);
+            Node literal = literals.get(segment);
+            Node matched = literal == null ? null : literal.match(segments, index + 1);
+            if ((matched == null) && (variable != null)) {
+                matched = variable.match(segments, index + 1);
+            }
+            if ((matched == null) && (catchAll != null)) {
+                matched = catchAll.asEndpoint();
+            }
+            return matched;
+        }
+
+        private Node asEndpoint() {
+            return roles == null ? null : this;
+        }
+    }
+}
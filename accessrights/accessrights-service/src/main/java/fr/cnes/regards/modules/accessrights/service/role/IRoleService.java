@@ -19,6 +19,7 @@
 package fr.cnes.regards.modules.accessrights.service.role;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -27,6 +28,7 @@ import org.springframework.data.domain.Pageable;
 
 import fr.cnes.regards.framework.module.rest.exception.EntityException;
 import fr.cnes.regards.framework.module.rest.exception.EntityInconsistentIdentifierException;
+import fr.cnes.regards.framework.module.rest.exception.EntityInvalidException;
 import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
 import fr.cnes.regards.framework.module.rest.exception.EntityOperationForbiddenException;
 import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUser;
@@ -152,6 +154,22 @@ public interface IRoleService {
      */
     Role updateRoleResourcesAccess(Long pRoleId, Set<ResourcesAccess> pResourcesAccesses) throws EntityException;
 
+    /**
+     * Replace old ResourcesAccesses of several roles at once.<br/>
+     * All changes are checked before any of them is applied. Net changes are then applied in a single transaction,
+     * parents of non native roles are managed once for the whole batch and events are published once per role and
+     * microservice.
+     *
+     * @param resourcesAccessesByRole the {@link ResourcesAccess}es to set by {@link Role} name
+     * @return updated roles
+     * @throws EntityException {@link EntityNotFoundException} if one of the roles does not exist,
+     *             {@link EntityOperationForbiddenException} if one of the changes is forbidden,
+     *             {@link EntityInvalidException} if an access is removed from a role and added to one of its native
+     *             ascendants in the same batch
+     */
+    Set<Role> updateRolesResourcesAccess(Map<String, Set<ResourcesAccess>> resourcesAccessesByRole)
+            throws EntityException;
+
     /**
      * Clear the {@link List} of {@link ResourcesAccess} of the {@link Role} with passed <code>id</code>.
      *
@@ -188,6 +206,18 @@ public interface IRoleService {
      */
     Page<ProjectUser> retrieveRoleProjectUserList(String roleName, Pageable pPageable) throws EntityNotFoundException;
 
+    /**
+     * Retrieve the emails of all {@link ProjectUser}s of the {@link Role} of passed <code>name</code> and of its
+     * descendants.
+     *
+     * @param roleName
+     *            The {@link Role}'s <code>name</code>
+     * @return emails of the {@link ProjectUser}s
+     * @throws EntityNotFoundException
+     *             Thrown when no {@link Role} with passed <code>name</code> could be found
+     */
+    Set<String> retrieveRoleProjectUserEmails(String roleName) throws EntityNotFoundException;
+
     /**
      * Return true when {@link Role} of passed <code>id</code> exists in db.
      *
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service.role;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import fr.cnes.regards.framework.amqp.IPublisher;
+import fr.cnes.regards.framework.security.event.ResourceAccessEvent;
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourceAccessDeltaEvent;
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourceAccessDeltaEvent.ResourceKey;
+import fr.cnes.regards.modules.accessrights.service.version.IAccessRightsVersionService;
+
+/**
+ * Collect {@link ResourceAccessEvent}s emitted during a transaction and publish them once, deduplicated, after commit.
+ * <br/>
+ * Without any running transaction, events are published immediately. On rollback, collected events are dropped.<br/>
+ * Each collected change also increments the access rights version of the tenant.<br/>
+ * Along with each {@link ResourceAccessEvent}, a {@link ResourceAccessDeltaEvent} carrying the granted and revoked
+ * resources merged over the transaction is published so that microservices can patch their access rights.
+ *
+ * @author REGARDS Team
+ */
+@Component
+public class ResourceAccessEventCollector {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResourceAccessEventCollector.class);
+
+    /**
+     * AMQP tenant publisher
+     */
+    private final IPublisher publisher;
+
+    /**
+     * Access rights version service
+     */
+    private final IAccessRightsVersionService versionService;
+
+    public ResourceAccessEventCollector(IPublisher publisher, IAccessRightsVersionService versionService) {
+        this.publisher = publisher;
+        this.versionService = versionService;
+    }
+
+    /**
+     * Register a change of the accesses of the given role on the given microservice
+     * @param microservice microservice owning the changed resources
+     * @param roleName changed role
+     * @param granted true if given resources have been granted to the role, false if they have been revoked
+     * @param resources changed resources
+     */
+    public void collect(String microservice, String roleName, boolean granted, Collection<ResourceKey> resources) {
+        versionService.incrementVersion();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Delta delta = new Delta();
+            delta.merge(granted, resources);
+            publish(microservice, roleName, versionService.getVersion(), delta);
+            return;
+        }
+        PendingEvents pending = (PendingEvents) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            PendingEvents events = new PendingEvents(versionService.getVersion());
+            TransactionSynchronizationManager.bindResource(this, events);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCommit() {
+                    LOGGER.debug("Publishing {} resource access events (version {})", events.deltas.size(),
+                                 events.version);
+                    events.deltas.forEach((event, delta) -> publish(event.getKey(), event.getValue(),
+                                                                    events.version, delta));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ResourceAccessEventCollector.this);
+                }
+            });
+            pending = events;
+        }
+        pending.deltas.computeIfAbsent(new AbstractMap.SimpleImmutableEntry<>(microservice, roleName), k -> new Delta())
+                .merge(granted, resources);
+    }
+
+    private void publish(String microservice, String roleName, long version, Delta delta) {
+        // Delta first so that it has a chance to be applied before the refresh triggered by the legacy event
+        ResourceAccessDeltaEvent deltaEvent = new ResourceAccessDeltaEvent(microservice, roleName, version);
+        deltaEvent.setAdded(new ArrayList<>(delta.added));
+        deltaEvent.setRemoved(new ArrayList<>(delta.removed));
+        publisher.publish(deltaEvent);
+        publisher.publish(new ResourceAccessEvent(microservice, roleName));
+    }
+
+    /**
+     * Changes collected during a transaction. The version is read once, after the first increment of the transaction.
+     */
+    private static class PendingEvents {
+
+        private final long version;
+
+        private final Map<Map.Entry<String, String>, Delta> deltas = new LinkedHashMap<>();
+
+        PendingEvents(long version) {
+            this.version = version;
+        }
+    }
+
+    /**
+     * Merged granted and revoked resources of a role on a microservice. A resource is never in both sets, the last
+     * change wins.
+     */
+    private static class Delta {
+
+        private final Set<ResourceKey> added = new LinkedHashSet<>();
+
+        private final Set<ResourceKey> removed = new LinkedHashSet<>();
+
+        void merge(boolean granted, Collection<ResourceKey> resources) {
+            if (granted) {
+                removed.removeAll(resources);
+                added.addAll(resources);
+            } else {
+                added.removeAll(resources);
+                removed.addAll(resources);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service.role;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import fr.cnes.regards.framework.security.utils.endpoint.RoleAuthority;
+import fr.cnes.regards.modules.accessrights.domain.projects.Role;
+import fr.cnes.regards.modules.accessrights.domain.projects.RoleHierarchy;
+
+/**
+ * Authorization context of the caller, resolved once per request from its security role and the
+ * {@link RoleHierarchy} of the tenant so that many roles can be checked and sorted without any further query.
+ *
+ * @author REGARDS Team
+ */
+final class RoleAuthorizationContext {
+
+    /**
+     * Caller security role, null for internal calls
+     */
+    private final String securityRole;
+
+    /**
+     * Whether caller is granted to manage any role (internal call or privileged role)
+     */
+    private final boolean privileged;
+
+    private final RoleHierarchy hierarchy;
+
+    /**
+     * Strict ancestors of the caller role
+     */
+    private final Set<String> ancestors;
+
+    RoleAuthorizationContext(String securityRole, RoleHierarchy hierarchy) {
+        this.securityRole = securityRole;
+        this.privileged = (securityRole == null) || RoleAuthority.isSysRole(securityRole)
+                || RoleAuthority.isInstanceAdminRole(securityRole) || RoleAuthority.isProjectAdminRole(securityRole);
+        this.hierarchy = hierarchy;
+        this.ancestors = new HashSet<>(hierarchy.getLineage(securityRole));
+    }
+
+    /**
+     * @param roleName role name
+     * @return whether the role is known by this context
+     */
+    boolean contains(String roleName) {
+        return hierarchy.contains(roleName);
+    }
+
+    /**
+     * Same rules as {@link RoleService} : caller can manage a role if it is privileged or if the role (or its parent
+     * for a custom role) is strictly inferior to its own one.
+     * @param roleName name of a role known by this context
+     * @return whether the caller can manage the role
+     */
+    boolean canManage(String roleName) {
+        if (privileged) {
+            return true;
+        }
+        if (!hierarchy.contains(securityRole)) {
+            return false;
+        }
+        String reference = hierarchy.isNative(roleName) ? roleName : hierarchy.getParent(roleName).orElse(null);
+        if (reference == null) {
+            return true;
+        }
+        if (RoleAuthority.isProjectAdminRole(reference) || reference.equals(securityRole)) {
+            return false;
+        }
+        return ancestors.contains(reference);
+    }
+
+    /**
+     * @see RoleService#isHierarchicallyInferior(Role, Role)
+     */
+    boolean isHierarchicallyInferior(Role first, Role second) {
+        return hierarchy.isHierarchicallyInferior(first.getName(), second.getName());
+    }
+}
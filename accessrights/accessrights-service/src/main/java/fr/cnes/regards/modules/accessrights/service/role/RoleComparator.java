@@ -20,6 +20,7 @@ package fr.cnes.regards.modules.accessrights.service.role;
 
 import java.util.Comparator;
 import java.util.Objects;
+import java.util.function.BiPredicate;
 
 import fr.cnes.regards.modules.accessrights.domain.projects.Role;
 
@@ -32,10 +33,17 @@ import fr.cnes.regards.modules.accessrights.domain.projects.Role;
  */
 public class RoleComparator implements Comparator<Role> {
 
-    private final IRoleService roleService;
+    /**
+     * Tells whether first role is hierarchically inferior to the second one
+     */
+    private final BiPredicate<Role, Role> inferiority;
 
     public RoleComparator(IRoleService roleService) {
-        this.roleService = roleService;
+        this(roleService::isHierarchicallyInferior);
+    }
+
+    public RoleComparator(BiPredicate<Role, Role> inferiority) {
+        this.inferiority = inferiority;
     }
 
     @Override
@@ -45,7 +53,7 @@ public class RoleComparator implements Comparator<Role> {
             return 0;
         }
 
-        if (roleService.isHierarchicallyInferior(role, other)) {
+        if (inferiority.test(role, other)) {
             // if role and other are both sons of the same parent, then they are considered hierarchically inferior to
             // each other but we want to order them according to there names, we add check on parent nullability so we are sure it is not one of the native role
             if((!role.isNative() && !other.isNative()) && Objects.equals(role.getParentRole(), other.getParentRole())) {
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service.role;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import fr.cnes.regards.framework.amqp.ISubscriber;
+import fr.cnes.regards.framework.amqp.domain.IHandler;
+import fr.cnes.regards.framework.amqp.domain.TenantWrapper;
+import fr.cnes.regards.framework.security.event.RoleEvent;
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourceAccessDeltaEvent;
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
+import fr.cnes.regards.modules.accessrights.domain.projects.Role;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Manage the second level cache regions of {@link Role}s and {@link ResourcesAccess}es.<br/>
+ * Local modifications are applied to the regions by Hibernate itself. Modifications done by other instances are
+ * received through {@link RoleEvent}s and {@link ResourceAccessDeltaEvent}s and evict the whole regions, as cache
+ * entries of all tenants share them (tenant identifier is part of the cache keys).<br/>
+ * When statistics are enabled with <code>regards.accessrights.cache.statistics.enabled</code>, hit ratio of each
+ * region is exposed through the <code>regards.accessrights.cache.hit.ratio</code> gauge.<br/>
+ * Nothing is done if the second level cache is disabled.
+ *
+ * @author REGARDS Team
+ */
+@Component
+public class RoleEntityCache implements ApplicationListener<ApplicationReadyEvent> {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoleEntityCache.class);
+
+    /**
+     * Role permissions collection role, i.e. its cache key prefix
+     */
+    private static final String PERMISSIONS_COLLECTION = Role.class.getName() + ".permissions";
+
+    /**
+     * Entity and collection regions
+     */
+    private static final String[] DOMAIN_REGIONS = { Role.CACHE_REGION, Role.PERMISSIONS_CACHE_REGION,
+            ResourcesAccess.CACHE_REGION };
+
+    private final EntityManager entityManager;
+
+    private final ISubscriber subscriber;
+
+    private final ObjectProvider<MeterRegistry> registry;
+
+    /**
+     * Whether cache statistics, and so hit ratio gauges, are enabled
+     */
+    private final boolean statisticsEnabled;
+
+    public RoleEntityCache(EntityManager entityManager, ISubscriber subscriber,
+            ObjectProvider<MeterRegistry> registry,
+            @Value("${regards.accessrights.cache.statistics.enabled:false}") boolean statisticsEnabled) {
+        this.entityManager = entityManager;
+        this.subscriber = subscriber;
+        this.registry = registry;
+        this.statisticsEnabled = statisticsEnabled;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        subscriber.subscribeTo(RoleEvent.class, new RoleEventHandler());
+        subscriber.subscribeTo(ResourceAccessDeltaEvent.class, new ResourceAccessDeltaEventHandler());
+        registerMetrics();
+    }
+
+    /**
+     * Evict all cached roles, role permissions, resources accesses and role queries
+     */
+    public void evict() {
+        Cache cache = getSessionFactory().getCache();
+        cache.evictEntityData(Role.class);
+        cache.evictEntityData(ResourcesAccess.class);
+        cache.evictCollectionData(PERMISSIONS_COLLECTION);
+        cache.evictQueryRegion(Role.QUERY_CACHE_REGION);
+        LOGGER.debug("Role and resources access cache regions evicted");
+    }
+
+    private void registerMetrics() {
+        if (!statisticsEnabled) {
+            return;
+        }
+        MeterRegistry meterRegistry = registry.getIfAvailable();
+        Statistics statistics = getSessionFactory().getStatistics();
+        if ((meterRegistry == null) || !statistics.isStatisticsEnabled()) {
+            LOGGER.warn("Cache statistics enabled but no meter registry or Hibernate statistics, no hit ratio gauge");
+            return;
+        }
+        for (String region : DOMAIN_REGIONS) {
+            Gauge.builder("regards.accessrights.cache.hit.ratio", statistics,
+                          s -> hitRatio(s.getDomainDataRegionStatistics(region)))
+                    .tag("region", region).register(meterRegistry);
+        }
+        Gauge.builder("regards.accessrights.cache.hit.ratio", statistics,
+                      s -> hitRatio(s.getQueryRegionStatistics(Role.QUERY_CACHE_REGION)))
+                .tag("region", Role.QUERY_CACHE_REGION).register(meterRegistry);
+    }
+
+    private static double hitRatio(CacheRegionStatistics regionStatistics) {
+        if (regionStatistics == null) {
+            return Double.NaN;
+        }
+        long hits = regionStatistics.getHitCount();
+        long requests = hits + regionStatistics.getMissCount();
+        return requests == 0 ? Double.NaN : (double) hits / requests;
+    }
+
+    private SessionFactory getSessionFactory() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+    }
+
+    private class RoleEventHandler implements IHandler<RoleEvent> {
+
+        @Override
+        public void handle(TenantWrapper<RoleEvent> wrapper) {
+            evict();
+        }
+    }
+
+    private class ResourceAccessDeltaEventHandler implements IHandler<ResourceAccessDeltaEvent> {
+
+        @Override
+        public void handle(TenantWrapper<ResourceAccessDeltaEvent> wrapper) {
+            evict();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service.role;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import fr.cnes.regards.framework.amqp.ISubscriber;
+import fr.cnes.regards.framework.amqp.domain.IHandler;
+import fr.cnes.regards.framework.amqp.domain.TenantWrapper;
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+import fr.cnes.regards.framework.security.event.RoleEvent;
+import fr.cnes.regards.modules.accessrights.dao.projects.IRoleRepository;
+import fr.cnes.regards.modules.accessrights.domain.projects.Role;
+import fr.cnes.regards.modules.accessrights.domain.projects.RoleHierarchy;
+
+/**
+ * Per tenant cache of the {@link RoleHierarchy}.<br/>
+ * A tenant hierarchy is lazily built from a single query and replaced as a whole each time a {@link RoleEvent} is
+ * received for this tenant or a local modification of the role tree is done.
+ *
+ * @author REGARDS Team
+ */
+@Component
+public class RoleHierarchyCache implements ApplicationListener<ApplicationReadyEvent>, IHandler<RoleEvent> {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoleHierarchyCache.class);
+
+    /**
+     * CRUD repository managing {@link Role}s
+     */
+    private final IRoleRepository roleRepository;
+
+    /**
+     * Runtime tenant resolver
+     */
+    private final IRuntimeTenantResolver runtimeTenantResolver;
+
+    /**
+     * AMQP tenant subscriber
+     */
+    @Autowired
+    private ISubscriber subscriber;
+
+    /**
+     * Hierarchies by tenant
+     */
+    private final Map<String, RoleHierarchy> hierarchies = new ConcurrentHashMap<>();
+
+    public RoleHierarchyCache(IRoleRepository roleRepository, IRuntimeTenantResolver runtimeTenantResolver) {
+        this.roleRepository = roleRepository;
+        this.runtimeTenantResolver = runtimeTenantResolver;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        subscriber.subscribeTo(RoleEvent.class, this);
+    }
+
+    @Override
+    public void handle(TenantWrapper<RoleEvent> wrapper) {
+        invalidate(wrapper.getTenant());
+    }
+
+    /**
+     * @return the role hierarchy of the current tenant
+     */
+    public RoleHierarchy get() {
+        String tenant = runtimeTenantResolver.getTenant();
+        if (tenant == null) {
+            // No tenant, no cache
+            return build();
+        }
+        return hierarchies.computeIfAbsent(tenant, t -> build());
+    }
+
+    /**
+     * Invalidate the hierarchy of the current tenant.<br/>
+     * If a transaction is running, hierarchy is invalidated once more when it completes, whether it is committed or
+     * rolled back, so that neither a concurrent rebuild nor a rebuild from uncommitted rows is kept.
+     */
+    public void invalidate() {
+        String tenant = runtimeTenantResolver.getTenant();
+        if (tenant != null) {
+            invalidate(tenant);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        invalidate(tenant);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Invalidate the hierarchy of the given tenant
+     * @param tenant tenant
+     */
+    public void invalidate(String tenant) {
+        if (hierarchies.remove(tenant) != null) {
+            LOGGER.debug("Role hierarchy of tenant {} invalidated", tenant);
+        }
+    }
+
+    private RoleHierarchy build() {
+        RoleHierarchy hierarchy = RoleHierarchy.of(roleRepository.findAllWithParent());
+        LOGGER.debug("Role hierarchy built with {} roles", hierarchy.size());
+        return hierarchy;
+    }
+}
@@ -20,9 +20,11 @@ package fr.cnes.regards.modules.accessrights.service.role;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.StringJoiner;
@@ -34,8 +36,10 @@ import javax.annotation.PostConstruct;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 
@@ -49,10 +53,10 @@ import fr.cnes.regards.framework.jpa.multitenant.transactional.MultitenantTransa
 import fr.cnes.regards.framework.module.rest.exception.EntityAlreadyExistsException;
 import fr.cnes.regards.framework.module.rest.exception.EntityException;
 import fr.cnes.regards.framework.module.rest.exception.EntityInconsistentIdentifierException;
+import fr.cnes.regards.framework.module.rest.exception.EntityInvalidException;
 import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
 import fr.cnes.regards.framework.module.rest.exception.EntityOperationForbiddenException;
 import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
-import fr.cnes.regards.framework.multitenant.ITenantResolver;
 import fr.cnes.regards.framework.security.event.ResourceAccessEvent;
 import fr.cnes.regards.framework.security.event.RoleEvent;
 import fr.cnes.regards.framework.security.role.DefaultRole;
@@ -61,10 +65,15 @@ import fr.cnes.regards.framwork.logbackappender.LogConstants;
 import fr.cnes.regards.modules.accessrights.dao.projects.IProjectUserRepository;
 import fr.cnes.regards.modules.accessrights.dao.projects.IRoleRepository;
 import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUser;
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourceAccessDeltaEvent.ResourceKey;
 import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
 import fr.cnes.regards.modules.accessrights.domain.projects.Role;
 import fr.cnes.regards.modules.accessrights.domain.projects.RoleFactory;
+import fr.cnes.regards.modules.accessrights.domain.projects.RoleHierarchy;
 import fr.cnes.regards.modules.accessrights.domain.projects.RoleLineageAssembler;
+import fr.cnes.regards.modules.accessrights.service.resources.IResourcesAccessIndexService;
+import fr.cnes.regards.modules.accessrights.service.tenant.TenantBootstrapExecutor;
+import fr.cnes.regards.modules.accessrights.service.version.IAccessRightsVersionService;
 
 /**
  * {@link IRoleService} implementation
@@ -105,9 +114,9 @@ public class RoleService implements IRoleService {
     private final IProjectUserRepository projectUserRepository;
 
     /**
-     * Tenant resolver to access all configured tenant
+     * Runs startup work on all active tenants
      */
-    private final ITenantResolver tenantResolver;
+    private final TenantBootstrapExecutor tenantBootstrap;
 
     /**
      * Runtime tenant resolver
@@ -124,16 +133,51 @@ public class RoleService implements IRoleService {
      */
     private final IAuthenticationResolver authResolver;
 
+    /**
+     * In memory role hierarchy by tenant
+     */
+    private final RoleHierarchyCache roleHierarchyCache;
+
+    /**
+     * Bitset index of resources accesses
+     */
+    private final IResourcesAccessIndexService resourcesAccessIndex;
+
+    /**
+     * Deduplicated after commit publication of {@link ResourceAccessEvent}s
+     */
+    private final ResourceAccessEventCollector resourceAccessEventCollector;
+
+    /**
+     * If true, propagation of resources accesses along the role hierarchy is done with set based SQL statements
+     * instead of saving roles one by one
+     */
+    private final boolean setBasedPropagation;
+
+    /**
+     * Access rights version service
+     */
+    private final IAccessRightsVersionService versionService;
+
     public RoleService(IRoleRepository roleRepository, IProjectUserRepository projectUserRepository,
-            ITenantResolver tenantResolver, IRuntimeTenantResolver runtimeTenantResolver, IPublisher publisher,
-            IAuthenticationResolver authResolver) {
+            TenantBootstrapExecutor tenantBootstrap, IRuntimeTenantResolver runtimeTenantResolver, IPublisher publisher,
+            IAuthenticationResolver authResolver, RoleHierarchyCache roleHierarchyCache,
+            IResourcesAccessIndexService resourcesAccessIndex,
+            ResourceAccessEventCollector resourceAccessEventCollector,
+            @Value("${regards.accessrights.propagation.set-based:false}") boolean setBasedPropagation,
+            IAccessRightsVersionService versionService) {
         super();
         this.roleRepository = roleRepository;
         this.projectUserRepository = projectUserRepository;
-        this.tenantResolver = tenantResolver;
+        this.tenantBootstrap = tenantBootstrap;
         this.runtimeTenantResolver = runtimeTenantResolver;
         this.publisher = publisher;
         this.authResolver = authResolver;
+        this.roleHierarchyCache = roleHierarchyCache;
+        this.resourcesAccessIndex = resourcesAccessIndex;
+        this.resourceAccessEventCollector = resourceAccessEventCollector;
+        this.setBasedPropagation = setBasedPropagation;
+        this.versionService = versionService;
     }
 
     /**
@@ -141,16 +185,8 @@ public class RoleService implements IRoleService {
      */
     @PostConstruct
     public void init() {
-        // Ensure the existence of default roles.
-        for (String tenant : tenantResolver.getAllActiveTenants()) {
-            // Set working tenant
-            try {
-                runtimeTenantResolver.forceTenant(tenant);
-                initDefaultRoles();
-            } finally {
-                runtimeTenantResolver.clearTenant();
-            }
-        }
+        // Ensure the existence of default roles, tenants being initialized in parallel
+        tenantBootstrap.runForAllTenants("Default roles initialization", this::initDefaultRoles);
     }
 
     /**
@@ -187,6 +223,8 @@ public class RoleService implements IRoleService {
             return role.get();
         }
         defaultRole.setParentRole(parentRole);
+        roleHierarchyCache.invalidate();
+        resourcesAccessIndex.invalidateRoles();
         return roleRepository.save(defaultRole);
     }
 
@@ -195,6 +233,9 @@ public class RoleService implements IRoleService {
      */
     @Override
     public Set<Role> retrieveRoles() {
+        // Resolve caller authorization once for all roles
+        RoleAuthorizationContext context = new RoleAuthorizationContext(authResolver.getRole(),
+                roleHierarchyCache.get());
         List<Role> manageableRoles = new ArrayList<>();
         for (Role role : roleRepository.findAllDistinctLazy()) {
             // Instance Admin role is only usable by one user:
@@ -203,6 +244,16 @@ public class RoleService implements IRoleService {
                 continue;
             }
 
+            if (context.contains(role.getName())) {
+                if (context.canManage(role.getName())) {
+                    manageableRoles.add(role);
+                } else {
+                    LOGGER.debug("Do not send role {} cause authenticated user cannot manage it!", role.getName());
+                }
+                continue;
+            }
+
+            // Role created meanwhile, not known by the authorization context
             try {
                 // Check if current user can manage this role
                 canManageRole(role);
@@ -215,7 +266,12 @@ public class RoleService implements IRoleService {
             }
         }
 
-        Set<Role> sortedRole = new TreeSet<>(new RoleComparator(this));
+        Set<Role> sortedRole = new TreeSet<>(new RoleComparator((first, second) -> {
+            if (context.contains(first.getName()) && context.contains(second.getName())) {
+                return context.isHierarchicallyInferior(first, second);
+            }
+            return isHierarchicallyInferior(first, second);
+        }));
         sortedRole.addAll(manageableRoles);
         return sortedRole;
 
@@ -351,20 +407,105 @@ public class RoleService implements IRoleService {
         Set<ResourcesAccess> permissions = role.getPermissions();
 
         // extract which one are to be removed
-        Set<ResourcesAccess> toBeRemoved = new HashSet<>(permissions);
-        toBeRemoved.removeAll(resourcesAccesses);
+        Set<ResourcesAccess> toBeRemoved = resourcesAccessIndex.difference(permissions, resourcesAccesses);
         // remove them by handling descendancy
         removeResourcesAccesses(role, toBeRemoved.toArray(new ResourcesAccess[0]));
 
         // extract which ResourcesAccess is really new
-        Set<ResourcesAccess> newOnes = new HashSet<>(resourcesAccesses);
-        newOnes.removeAll(permissions);
+        Set<ResourcesAccess> newOnes = resourcesAccessIndex.difference(resourcesAccesses, permissions);
         // add the ResourceAccesses by handling descendancy
         addResourceAccesses(role, newOnes.toArray(new ResourcesAccess[0]));
 
         return role;
     }
 
+    @Override
+    public Set<Role> updateRolesResourcesAccess(Map<String, Set<ResourcesAccess>> resourcesAccessesByRole)
+            throws EntityException {
+        // Resolve all roles and check all changes first so that nothing is modified if one of them is not allowed
+        List<RoleAccessesChange> changes = new ArrayList<>();
+        for (Map.Entry<String, Set<ResourcesAccess>> entry : resourcesAccessesByRole.entrySet()) {
+            Role role = roleRepository.findByName(entry.getKey())
+                    .orElseThrow(() -> new EntityNotFoundException(entry.getKey(), Role.class));
+            Set<ResourcesAccess> permissions = role.getPermissions();
+            ResourcesAccess[] toBeRemoved = resourcesAccessIndex.difference(permissions, entry.getValue())
+                    .toArray(new ResourcesAccess[0]);
+            ResourcesAccess[] newOnes = resourcesAccessIndex.difference(entry.getValue(), permissions)
+                    .toArray(new ResourcesAccess[0]);
+            if ((toBeRemoved.length > 0) && role.getName().equals(DefaultRole.PROJECT_ADMIN.toString())) {
+                throw new EntityOperationForbiddenException(role.getName(), Role.class,
+                        "Removing resource accesses from role PROJECT_ADMIN is forbidden!");
+            }
+            canManageRole(role);
+            canAddResourceAccesses(newOnes);
+            changes.add(new RoleAccessesChange(role, toBeRemoved, newOnes));
+        }
+        checkConsistency(changes);
+
+        // Apply all removals then all additions. Parents of non native roles are only managed once at the end.
+        Set<String> reducedNativeRoles = new HashSet<>();
+        Set<String> updatedNonNativeRoles = new HashSet<>();
+        for (RoleAccessesChange change : changes) {
+            if (change.toBeRemoved.length > 0) {
+                if (change.role.isNative()) {
+                    removeAndPropagate(change.role, change.toBeRemoved);
+                    reducedNativeRoles.add(change.role.getName());
+                } else {
+                    removeFromRole(change.role, change.toBeRemoved);
+                    updatedNonNativeRoles.add(change.role.getName());
+                }
+            }
+        }
+        for (RoleAccessesChange change : changes) {
+            if (change.newOnes.length > 0) {
+                if (change.role.isNative()) {
+                    addAndPropagate(change.role, change.newOnes);
+                } else {
+                    addToRole(change.role, change.newOnes);
+                    updatedNonNativeRoles.add(change.role.getName());
+                }
+            }
+        }
+        manageParentRoles(reducedNativeRoles, updatedNonNativeRoles);
+        return changes.stream().map(change -> change.role).collect(Collectors.toSet());
+    }
+
+    /**
+     * Additions on a native role are propagated to all its descendants after all removals of the batch, so an access
+     * cannot be removed from a role and added to one of its native ascendants in the same batch : the removal would be
+     * silently undone.
+     * @param changes all changes of a batch
+     * @throws EntityInvalidException if two changes contradict each other
+     */
+    private void checkConsistency(List<RoleAccessesChange> changes) throws EntityInvalidException {
+        RoleHierarchy hierarchy = null;
+        for (RoleAccessesChange addition : changes) {
+            if ((addition.newOnes.length == 0) || !addition.role.isNative()) {
+                continue;
+            }
+            if (hierarchy == null) {
+                hierarchy = roleHierarchyCache.get();
+            }
+            Set<String> descendants = hierarchy.getDescendants(addition.role.getName());
+            for (RoleAccessesChange removal : changes) {
+                if ((removal.toBeRemoved.length > 0) && descendants.contains(removal.role.getName())) {
+                    Set<ResourcesAccess> contradictions = Sets.newHashSet(removal.toBeRemoved);
+                    contradictions.retainAll(Arrays.asList(addition.newOnes));
+                    if (!contradictions.isEmpty()) {
+                        StringJoiner sj = new StringJoiner(", ");
+                        contradictions.forEach(ra -> sj.add(ra.getVerb() + "@" + ra.getResource()));
+                        String message = String
+                                .format("Accesses %s cannot be removed from role %s and added to its ascendant %s "
+                                        + "at the same time", sj.toString(), removal.role.getName(),
+                                        addition.role.getName());
+                        LOGGER.error(message);
+                        throw new EntityInvalidException(message);
+                    }
+                }
+            }
+        }
+    }
+
     @Override
     public void addResourceAccesses(Long roleId, ResourcesAccess... newOnes) throws EntityException {
         Role role = roleRepository.findOneById(roleId);
@@ -441,11 +582,9 @@ public class RoleService implements IRoleService {
 
         Optional<Role> currentRole = roleRepository.findOneByName(securityRole);
 
-        Set<ResourcesAccess> resourcesToAdd = new HashSet<>();
-        Collections.addAll(resourcesToAdd, newOnes);
-
         // Check if current user has itself the resource accesses he wants to add
-        if (currentRole.isPresent() && currentRole.get().getPermissions().containsAll(resourcesToAdd)) {
+        if (currentRole.isPresent()
+                && resourcesAccessIndex.containsAll(currentRole.get(), Arrays.asList(newOnes))) {
             LOGGER.debug("User with role {} can add specified resource accesses", currentRole.get().getName());
         } else if (currentRole.isPresent()) {
             String message = "A user can only add resources he has yet. One or more resources doesn't match this requirement.";
@@ -485,15 +624,22 @@ public class RoleService implements IRoleService {
      * @param resourcesAccesses accesses to add
      */
     private void addAndPropagate(Role role, ResourcesAccess... resourcesAccesses) {
+        if (setBasedPropagation && hasIdentifiers(resourcesAccesses)) {
+            Set<String> roleNames = new HashSet<>(roleHierarchyCache.get().getDescendants(role.getName()));
+            roleNames.add(role.getName());
+            propagateSetBased(roleNames, true, resourcesAccesses);
+            return;
+        }
         // Add accesses
         boolean changed = role.getPermissions().addAll(Sets.newHashSet(resourcesAccesses));
+        resourcesAccessIndex.invalidateRoles();
         // Save changes
         roleRepository.save(role);
         if (changed) {
             StringJoiner sj = new StringJoiner(", ");
             Arrays.stream(resourcesAccesses).forEach(ra -> sj.add(ra.getVerb() + "@" + ra.getResource()));
             LOGGER.info(ROLE_GAINED_ACCESS, role.getName(), sj.toString());
-            publishResourceAccessEvent(role.getName(), resourcesAccesses);
+            publishResourceAccessEvent(role.getName(), true, resourcesAccesses);
         }
         // Retrieve its descendants
         Set<Role> sons = roleRepository.findByParentRoleName(role.getName());
@@ -509,35 +655,93 @@ public class RoleService implements IRoleService {
      */
     private void addAndManageParent(Role role, ResourcesAccess... resourcesAccesses)
             throws EntityOperationForbiddenException {
+        addToRole(role, resourcesAccesses);
+        // Change parent if required
+        manageParentFromAdmin(role);
+    }
+
+    /**
+     * Add accesses on current role only
+     * @param role role to manage
+     * @param resourcesAccesses accesses to add
+     */
+    private void addToRole(Role role, ResourcesAccess... resourcesAccesses) {
         // Add accesses
         boolean changed = role.getPermissions().addAll(Sets.newHashSet(resourcesAccesses));
+        resourcesAccessIndex.invalidateRoles();
         // Save changes
         roleRepository.save(role);
         if (changed) {
             StringJoiner sj = new StringJoiner(", ");
             Arrays.stream(resourcesAccesses).forEach(ra -> sj.add(ra.getVerb() + "@" + ra.getResource()));
             LOGGER.info(ROLE_GAINED_ACCESS, role.getName(), sj.toString());
-            publishResourceAccessEvent(role.getName(), resourcesAccesses);
+            publishResourceAccessEvent(role.getName(), true, resourcesAccesses);
         }
-        // Change parent if required
-        manageParentFromAdmin(role);
     }
 
     /**
      * Inform security starter an (or many) access(es) changed
+     * @param granted true if accesses have been granted to the role, false if they have been revoked
      * @param resourcesAccesses resource accesses that have changed
      */
-    private void publishResourceAccessEvent(String roleName, ResourcesAccess... resourcesAccesses) {
+    private void publishResourceAccessEvent(String roleName, boolean granted, ResourcesAccess... resourcesAccesses) {
+        // Publish an event for each concerned microservice once transaction is committed
+        groupByMicroservice(resourcesAccesses)
+                .forEach((microservice, keys) -> resourceAccessEventCollector.collect(microservice, roleName, granted,
+                                                                                     keys));
+    }
+
+    /**
+     * @return keys of the given accesses by microservice
+     */
+    private static Map<String, List<ResourceKey>> groupByMicroservice(ResourcesAccess... resourcesAccesses) {
+        return Arrays.stream(resourcesAccesses)
+                .collect(Collectors.groupingBy(ResourcesAccess::getMicroservice,
+                                               Collectors.mapping(ResourceKey::of, Collectors.toList())));
+    }
+
+    /**
+     * @return true if all given accesses are persisted ones
+     */
+    private static boolean hasIdentifiers(ResourcesAccess... resourcesAccesses) {
+        return Arrays.stream(resourcesAccesses).allMatch(ra -> ra.getId() != null);
+    }
 
-        // Compute concerned microservices
-        Set<String> microservices = new HashSet<>();
-        for (ResourcesAccess ra : resourcesAccesses) {
-            microservices.add(ra.getMicroservice());
+    /**
+     * Add or remove accesses on all given roles at once with set based SQL statements.
+     * @param roleNames names of all the roles to update
+     * @param add true to add accesses, false to remove them
+     * @param resourcesAccesses accesses to add or remove
+     */
+    private void propagateSetBased(Set<String> roleNames, boolean add, ResourcesAccess... resourcesAccesses) {
+        if (resourcesAccesses.length == 0) {
+            return;
         }
-        // Publish an event for each concerned microservice
-        for (String microservice : microservices) {
-            ResourceAccessEvent raEvent = new ResourceAccessEvent(microservice, roleName);
-            publisher.publish(raEvent);
+        Set<Long> resourceIds = Arrays.stream(resourcesAccesses).map(ResourcesAccess::getId)
+                .collect(Collectors.toSet());
+        // Compute impacted roles and microservices before the update
+        List<Object[]> changes = add ? roleRepository.findMissingPermissions(roleNames, resourceIds)
+                : roleRepository.findOwnedPermissions(roleNames, resourceIds);
+        int count = add ? roleRepository.addPermissions(roleNames, resourceIds)
+                : roleRepository.removePermissions(roleNames, resourceIds);
+        // Loaded roles must not keep their outdated permissions
+        roleRepository.refreshPermissions(roleNames);
+        resourcesAccessIndex.invalidateRoles();
+        LOGGER.debug("{} role/resource associations {} for {} roles", count, add ? "created" : "removed",
+                     roleNames.size());
+        // Log and publish changes
+        StringJoiner sj = new StringJoiner(", ");
+        Arrays.stream(resourcesAccesses).forEach(ra -> sj.add(ra.getVerb() + "@" + ra.getResource()));
+        Map<String, List<ResourceKey>> keysByMicroservice = groupByMicroservice(resourcesAccesses);
+        Set<String> changedRoles = new HashSet<>();
+        for (Object[] change : changes) {
+            String roleName = (String) change[0];
+            String microservice = (String) change[1];
+            if (changedRoles.add(roleName)) {
+                LOGGER.info(add ? ROLE_GAINED_ACCESS : ROLE_LOST_ACCESS, roleName, sj.toString());
+            }
+            resourceAccessEventCollector.collect(microservice, roleName, add, keysByMicroservice
+                    .getOrDefault(microservice, Collections.emptyList()));
         }
     }
 
@@ -548,6 +752,7 @@ public class RoleService implements IRoleService {
             throw new EntityNotFoundException(roleId.toString(), Role.class);
         }
         roleOpt.get().getPermissions().clear();
+        resourcesAccessIndex.invalidateRoles();
         roleRepository.save(roleOpt.get());
     }
 
@@ -558,11 +763,7 @@ public class RoleService implements IRoleService {
         if (!roleOpt.isPresent()) {
             throw new EntityNotFoundException(roleId.toString(), Role.class);
         }
-
-        Set<Role> roles = retrieveInheritedRoles(roleOpt.get());
-        roles.add(roleOpt.get());
-        Set<String> roleNames = roles.stream().map(Role::getName).collect(Collectors.toSet());
-        return projectUserRepository.findByRoleNameIn(roleNames, pageable);
+        return retrieveRoleSubtreeProjectUsers(roleOpt.get(), pageable);
     }
 
     @Override
@@ -572,10 +773,37 @@ public class RoleService implements IRoleService {
         if (!role.isPresent()) {
             throw new EntityNotFoundException(roleName, Role.class);
         }
-        Set<Role> roles = retrieveInheritedRoles(role.get());
-        roles.add(role.get());
-        Set<String> roleNames = roles.stream().map(Role::getName).collect(Collectors.toSet());
-        return projectUserRepository.findByRoleNameIn(roleNames, pageable);
+        return retrieveRoleSubtreeProjectUsers(role.get(), pageable);
+    }
+
+    @Override
+    public Set<String> retrieveRoleProjectUserEmails(String roleName) throws EntityNotFoundException {
+        if (!roleHierarchyCache.get().contains(roleName)) {
+            throw new EntityNotFoundException(roleName, Role.class);
+        }
+        return new HashSet<>(projectUserRepository.findEmailsByRoleSubtree(roleName));
+    }
+
+    /**
+     * Users of a role subtree are paged by a single recursive query when ordered by id (the default), otherwise
+     * through the names of the role and its descendants.
+     */
+    private Page<ProjectUser> retrieveRoleSubtreeProjectUsers(Role role, Pageable pageable) {
+        Sort sort = pageable.getSort();
+        if (sort.isUnsorted() || sort.equals(Sort.by("id"))) {
+            return projectUserRepository.findByRoleSubtree(role.getName(), pageable);
+        }
+        return projectUserRepository.findByRoleNameIn(getRoleAndDescendantNames(role), pageable);
+    }
+
+    /**
+     * @param role role
+     * @return names of the given role and all its inherited roles
+     */
+    private Set<String> getRoleAndDescendantNames(Role role) {
+        Set<String> roleNames = new HashSet<>(roleHierarchyCache.get().getDescendants(role.getName()));
+        roleNames.add(role.getName());
+        return roleNames;
     }
 
     @Override
@@ -651,19 +879,24 @@ public class RoleService implements IRoleService {
             return false;
         }
         // now lets treat common cases
-        RoleLineageAssembler roleLineageAssembler = new RoleLineageAssembler();
-        List<Role> ancestors = roleLineageAssembler.of(second).get();
-        try (Stream<Role> stream = ancestors.stream()) {
-            if (first.isNative()) {
-                // if the role is native, then it is into the lineage so we can look for it
-                String roleName = first.getName();
-                return stream.anyMatch(r -> r.getName().equals(roleName));
-            } else {
-                // if the role is not a native one, then we need to look for its parent(which is native).
-                String parent = first.getParentRole().getName();
-                return stream.anyMatch(r -> r.getName().equals(parent));
+        RoleHierarchy hierarchy = roleHierarchyCache.get();
+        List<String> ancestors;
+        if (hierarchy.contains(second.getName())) {
+            ancestors = hierarchy.getLineage(second.getName());
+        } else {
+            // Role is not known yet (not saved), lets crawl through its own lineage
+            RoleLineageAssembler roleLineageAssembler = new RoleLineageAssembler();
+            try (Stream<Role> stream = roleLineageAssembler.of(second).get().stream()) {
+                ancestors = stream.map(Role::getName).collect(Collectors.toList());
             }
         }
+        if (first.isNative()) {
+            // if the role is native, then it is into the lineage so we can look for it
+            return ancestors.contains(first.getName());
+        } else {
+            // if the role is not a native one, then we need to look for its parent(which is native).
+            return ancestors.contains(first.getParentRole().getName());
+        }
     }
 
     /**
@@ -677,17 +910,19 @@ public class RoleService implements IRoleService {
 
     @Override
     public Set<Role> retrieveInheritedRoles(Role inRole) {
-        Set<Role> results = new HashSet<>();
-        Set<Role> inheritedRoles = roleRepository.findByParentRoleName(inRole.getName());
-        if (inheritedRoles != null) {
-
-            results.addAll(inheritedRoles);
+        return findByNames(roleHierarchyCache.get().getDescendants(inRole.getName()));
+    }
 
-            for (Role role : inheritedRoles) {
-                retrieveInheritedRoles(role).forEach(results::add);
-            }
+    /**
+     * Load roles by names with their permissions with a single query
+     * @param names role names
+     * @return a mutable {@link Set} of {@link Role}
+     */
+    private Set<Role> findByNames(Collection<String> names) {
+        if (names.isEmpty()) {
+            return new HashSet<>();
         }
-        return results;
+        return new HashSet<>(roleRepository.findDistinctWithPermissionsByNameIn(names));
     }
 
     /**
@@ -721,8 +956,8 @@ public class RoleService implements IRoleService {
         if (role.isNative()) {
             // If native role, propagate removal to native ascendants to maintain consistency
             removeAndPropagate(role, resourcesAccesses);
-            // Check non native role parents
-            manageParentRoles();
+            // Check parents of the non native roles depending on it
+            manageParentRoles(Collections.singleton(role.getName()), Collections.emptySet());
         } else {
             // Else only remove accesses from role and change parent if required (may throw an exception if at least
             // public role cannot be the parent)
@@ -737,9 +972,19 @@ public class RoleService implements IRoleService {
      */
     private void removeAndPropagate(Role role, ResourcesAccess... resourcesAccesses) {
 
-        if (role != null) {
+        if ((role != null) && setBasedPropagation && hasIdentifiers(resourcesAccesses)) {
+            Set<String> roleNames = new HashSet<>(roleHierarchyCache.get().getLineage(role.getName()));
+            // Lineage may be unknown by the hierarchy if role has just been created
+            Role parent = role.getParentRole();
+            while ((parent != null) && roleNames.add(parent.getName())) {
+                parent = parent.getParentRole();
+            }
+            roleNames.add(role.getName());
+            propagateSetBased(roleNames, false, resourcesAccesses);
+        } else if (role != null) {
             // Remove accesses
             boolean changed = role.getPermissions().removeAll(Sets.newHashSet(resourcesAccesses));
+            resourcesAccessIndex.invalidateRoles();
             // Save changes
             roleRepository.save(role);
             // publish event
@@ -747,7 +992,7 @@ public class RoleService implements IRoleService {
                 StringJoiner sj = new StringJoiner(", ");
                 Arrays.stream(resourcesAccesses).forEach(ra -> sj.add(ra.getVerb() + "@" + ra.getResource()));
                 LOGGER.info(ROLE_LOST_ACCESS, role.getName(), sj.toString());
-                publishResourceAccessEvent(role.getName(), resourcesAccesses);
+                publishResourceAccessEvent(role.getName(), false, resourcesAccesses);
             }
             // Propagate
             removeAndPropagate(role.getParentRole(), resourcesAccesses);
@@ -755,15 +1000,68 @@ public class RoleService implements IRoleService {
     }
 
     /**
-     * Consider all non native roles to update its native parent after native role changes
+     * Consider non native roles depending on the given native roles to update their native parent after these native
+     * roles lost accesses
+     * @param nativeRoleNames names of the native roles which lost accesses
+     * @param otherRoleNames names of other non native roles to consider
+     * @throws EntityOperationForbiddenException if no parent role matches one of the roles
      */
-    private void manageParentRoles() throws EntityOperationForbiddenException {
+    private void manageParentRoles(Collection<String> nativeRoleNames, Collection<String> otherRoleNames)
+            throws EntityOperationForbiddenException {
+        RoleHierarchy hierarchy = roleHierarchyCache.get();
+        // Native roles which can be the parent of a non native role, from ADMIN to PUBLIC
+        List<String> candidateNames = new ArrayList<>();
+        candidateNames.add(DefaultRole.ADMIN.toString());
+        candidateNames.addAll(hierarchy.getLineage(DefaultRole.ADMIN.toString()));
+
+        // Accesses removal is propagated to native ascendants so a non native role can only find a new parent if one
+        // of the candidates above its current parent lost accesses. Its current parent remains consistent anyway.
+        Set<String> modifiedNames = new HashSet<>();
+        for (String nativeRoleName : nativeRoleNames) {
+            modifiedNames.add(nativeRoleName);
+            modifiedNames.addAll(hierarchy.getLineage(nativeRoleName));
+        }
+        Set<String> roleNames = new HashSet<>(otherRoleNames);
+        boolean modifiedAbove = false;
+        for (String candidateName : candidateNames) {
+            if (modifiedAbove) {
+                hierarchy.getChildren(candidateName).stream().filter(child -> !hierarchy.isNative(child))
+                        .forEach(roleNames::add);
+            }
+            modifiedAbove |= modifiedNames.contains(candidateName);
+        }
+        if (roleNames.isEmpty()) {
+            return;
+        }
 
-        Set<Role> roles = retrieveRoles();
-        for (Role role : roles) {
-            if (!role.isNative()) {
-                manageParentFromAdmin(role);
+        // Compute new parents in memory and save all changes at once
+        Map<String, Role> candidatesByName = roleRepository.findDistinctWithPermissionsByNameIn(candidateNames).stream()
+                .collect(Collectors.toMap(Role::getName, role -> role));
+        List<Role> candidates = candidateNames.stream().map(candidatesByName::get)
+                .filter(candidate -> candidate != null).collect(Collectors.toList());
+        List<Role> changedRoles = new ArrayList<>();
+        for (Role role : roleRepository.findDistinctWithPermissionsByNameIn(roleNames)) {
+            Optional<Role> parentRole = candidates.stream()
+                    .filter(candidate -> resourcesAccessIndex.containsAll(role, candidate))
+                    .findFirst();
+            if (!parentRole.isPresent()) {
+                String message = String
+                        .format("Role %s cannot have less accesses than public role. Accesses removal cancelled.",
+                                role.getName());
+                LOGGER.error(message);
+                throw new EntityOperationForbiddenException(message);
             }
+            if (!parentRole.get().equals(role.getParentRole())) {
+                role.setParentRole(parentRole.get());
+                changedRoles.add(role);
+            }
+        }
+        LOGGER.debug("{} non native roles re-evaluated, {} of them changed parent", roleNames.size(),
+                     changedRoles.size());
+        if (!changedRoles.isEmpty()) {
+            roleRepository.saveAll(changedRoles);
+            roleHierarchyCache.invalidate();
+            versionService.incrementVersion();
         }
     }
 
@@ -775,8 +1073,20 @@ public class RoleService implements IRoleService {
      */
     private void removeAndManageParent(Role role, ResourcesAccess... resourcesAccesses)
             throws EntityOperationForbiddenException {
+        removeFromRole(role, resourcesAccesses);
+        // Change parent if required
+        manageParent(role, role.getParentRole());
+    }
+
+    /**
+     * Remove accesses on current role only
+     * @param role role to manage
+     * @param resourcesAccesses accesses to remove
+     */
+    private void removeFromRole(Role role, ResourcesAccess... resourcesAccesses) {
         // Remove accesses
         boolean changed = role.getPermissions().removeAll(Sets.newHashSet(resourcesAccesses));
+        resourcesAccessIndex.invalidateRoles();
         // Save changes
         roleRepository.save(role);
         // publish event
@@ -784,10 +1094,8 @@ public class RoleService implements IRoleService {
             StringJoiner sj = new StringJoiner(", ");
             Arrays.stream(resourcesAccesses).forEach(ra -> sj.add(ra.getVerb() + "@" + ra.getResource()));
             LOGGER.info(ROLE_LOST_ACCESS, role.getName(), sj.toString());
-            publishResourceAccessEvent(role.getName(), resourcesAccesses);
+            publishResourceAccessEvent(role.getName(), false, resourcesAccesses);
         }
-        // Change parent if required
-        manageParent(role, role.getParentRole());
     }
 
     /**
@@ -828,11 +1136,12 @@ public class RoleService implements IRoleService {
 
         // Check if role is consistent with its parent
         // The parent cannot have more accesses!
-        Set<ResourcesAccess> rolePermissions = role.getPermissions();
-        Set<ResourcesAccess> parentPermissions = parentRole.getPermissions();
-
-        if (rolePermissions.containsAll(parentPermissions)) {
+        if (resourcesAccessIndex.containsAll(role, parentRole)) {
             // Set parent
+            if (!parentRole.equals(role.getParentRole())) {
+                roleHierarchyCache.invalidate();
+                versionService.incrementVersion();
+            }
             role.setParentRole(parentRole);
             // Save changes
             roleRepository.save(role);
@@ -883,16 +1192,11 @@ public class RoleService implements IRoleService {
     @Override
     public Set<Role> getDescendants(Role role) {
         // Role entity hierarchy being inverted, parent of ADMIN is REGISTERED_USER
-        // so if we want the descendants of REGISTERED_USER, we need to seek for role which parent is REGISTERED_USER and so on.
-        Set<Role> children = roleRepository.findByParentRoleName(role.getName());
-        Set<Role> descendants = Sets.newHashSet(children);
-        for (Role child : children) {
-            descendants.addAll(getDescendants(child));
-        }
-        if (children.isEmpty()) {
-            // More over, PROJECT_ADMIN is the descendant of all role, but is not connected to them in a conventional way so lets add him.
-            descendants.add(roleRepository.findOneByName(DefaultRole.PROJECT_ADMIN.toString()).get());
-        }
+        // so descendants of REGISTERED_USER are the roles which parent is REGISTERED_USER and so on.
+        Set<String> names = new HashSet<>(roleHierarchyCache.get().getDescendants(role.getName()));
+        // More over, PROJECT_ADMIN is the descendant of all role, but is not connected to them in a conventional way so lets add him.
+        names.add(DefaultRole.PROJECT_ADMIN.toString());
+        Set<Role> descendants = findByNames(names);
         // lets add the role for which we are looking its descendants too
         descendants.add(role);
         return descendants;
@@ -900,24 +1204,23 @@ public class RoleService implements IRoleService {
 
     @Override
     public Set<Role> getAscendants(Role role) {
-        Set<Role> ascendants = Sets.newHashSet(role);
-        // if pRole doesn't have parent then it's finished
-        Role parent = role.getParentRole();
-        if (parent == null) {
-            // except if it's PROJECT_ADMIN
-            if (role.getName().equals(DefaultRole.PROJECT_ADMIN.toString())) {
-                parent = roleRepository.findOneByName(DefaultRole.ADMIN.toString()).get();
-            } else {
-                return ascendants;
-            }
+        RoleHierarchy hierarchy = roleHierarchyCache.get();
+        List<String> lineage = new ArrayList<>();
+        if (DefaultRole.PROJECT_ADMIN.toString().equals(role.getName()) && (role.getParentRole() == null)) {
+            // PROJECT_ADMIN doesn't have parent, consider ADMIN as its parent
+            lineage.add(DefaultRole.ADMIN.toString());
+            lineage.addAll(hierarchy.getLineage(DefaultRole.ADMIN.toString()));
         } else {
-            // We need to load parent from repository to load his permissions.
-            parent = roleRepository.findOneById(parent.getId());
+            lineage.addAll(hierarchy.getLineage(role.getName()));
+        }
+        // For each ascendant, lets get it and its children: Brotherhood
+        Set<String> names = new HashSet<>();
+        for (String ascendant : lineage) {
+            names.add(ascendant);
+            names.addAll(hierarchy.getChildren(ascendant));
         }
-        // otherwise lets get pRole's parent and look for his children: Brotherhood
-        ascendants.addAll(roleRepository.findByParentRoleName(parent.getName()));
-        // now lets add the ascendants of parent
-        ascendants.addAll(getAscendants(parent));
+        Set<Role> ascendants = findByNames(names);
+        ascendants.add(role);
         return ascendants;
     }
 
@@ -931,18 +1234,23 @@ public class RoleService implements IRoleService {
      * @param role role
      */
     private void publishRoleEvent(Role role) {
+        versionService.incrementVersion();
         RoleEvent roleEvent = new RoleEvent();
         roleEvent.setRole(role.getName());
         publisher.publish(roleEvent);
     }
 
     private Role saveAndPublish(Role role) {
+        roleHierarchyCache.invalidate();
+        resourcesAccessIndex.invalidateRoles();
         Role savedRole = roleRepository.save(role);
         publishRoleEvent(role);
         return savedRole;
     }
 
     private void deleteAndPublish(Role role) {
+        roleHierarchyCache.invalidate();
+        resourcesAccessIndex.invalidateRoles();
         roleRepository.deleteById(role.getId());
         publishRoleEvent(role);
     }
@@ -951,4 +1259,22 @@ public class RoleService implements IRoleService {
     public Optional<Role> getCurrentRole() {
         return roleRepository.findByName(authResolver.getRole());
     }
+
+    /**
+     * Net resource accesses changes of a role in a bulk update
+     */
+    private static class RoleAccessesChange {
+
+        private final Role role;
+
+        private final ResourcesAccess[] toBeRemoved;
+
+        private final ResourcesAccess[] newOnes;
+
+        private RoleAccessesChange(Role role, ResourcesAccess[] toBeRemoved, ResourcesAccess[] newOnes) {
+            this.role = role;
+            this.toBeRemoved = toBeRemoved;
+            this.newOnes = newOnes;
+        }
+    }
 }
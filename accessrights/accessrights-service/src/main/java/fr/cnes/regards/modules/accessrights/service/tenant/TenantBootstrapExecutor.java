@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service.tenant;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+import fr.cnes.regards.framework.multitenant.ITenantResolver;
+
+/**
+ * Run startup work on each active tenant with a bounded number of threads.<br/>
+ * Each tenant is handled with its own forced tenant and its own timing. A failure on a tenant (for instance an
+ * unreachable datasource) is logged and does not prevent the other tenants from being initialized.
+ *
+ * @author REGARDS Team
+ */
+@Component
+public class TenantBootstrapExecutor {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(TenantBootstrapExecutor.class);
+
+    /**
+     * Tenant resolver
+     */
+    private final ITenantResolver tenantResolver;
+
+    /**
+     * Runtime tenant resolver
+     */
+    private final IRuntimeTenantResolver runtimeTenantResolver;
+
+    /**
+     * Maximum number of tenants initialized at the same time
+     */
+    private final int concurrency;
+
+    public TenantBootstrapExecutor(ITenantResolver tenantResolver, IRuntimeTenantResolver runtimeTenantResolver,
+            @Value("${regards.accessrights.bootstrap.concurrency:4}") int concurrency) {
+        this.tenantResolver = tenantResolver;
+        this.runtimeTenantResolver = runtimeTenantResolver;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * Run the given task on all active tenants and wait for its completion.
+     * @param taskName task name used for logging
+     * @param task task to run, working tenant is forced before each run
+     * @return tenants on which the task failed
+     */
+    public Set<String> runForAllTenants(String taskName, Runnable task) {
+        Set<String> tenants = tenantResolver.getAllActiveTenants();
+        if ((tenants == null) || tenants.isEmpty()) {
+            return Collections.emptySet();
+        }
+        long start = System.currentTimeMillis();
+        Set<String> failures = ConcurrentHashMap.newKeySet();
+        int threads = Math.min(concurrency, tenants.size());
+        if (threads == 1) {
+            tenants.forEach(tenant -> runForTenant(taskName, task, tenant, failures));
+        } else {
+            ExecutorService executor = Executors
+                    .newFixedThreadPool(threads, new CustomizableThreadFactory("tenant-bootstrap-"));
+            try {
+                List<Future<?>> futures = new ArrayList<>(tenants.size());
+                for (String tenant : tenants) {
+                    futures.add(executor.submit(() -> runForTenant(taskName, task, tenant, failures)));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                LOGGER.warn("{} interrupted", taskName);
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                LOGGER.error(String.format("%s failed", taskName), e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        LOGGER.info("{} done for {} tenants in {} ms with {} thread(s), {} failure(s) {}", taskName, tenants.size(),
+                    System.currentTimeMillis() - start, threads, failures.size(), failures);
+        return failures;
+    }
+
+    private void runForTenant(String taskName, Runnable task, String tenant, Set<String> failures) {
+        long start = System.currentTimeMillis();
+        try {
+            runtimeTenantResolver.forceTenant(tenant);
+            task.run();
+            LOGGER.info("{} done for tenant {} in {} ms", taskName, tenant, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) { // NOSONAR
+            failures.add(tenant);
+            LOGGER.error(String.format("%s failed for tenant %s after %d ms", taskName, tenant,
+                                       System.currentTimeMillis() - start),
+                         e);
+        } finally {
+            runtimeTenantResolver.clearTenant();
+        }
+    }
+}
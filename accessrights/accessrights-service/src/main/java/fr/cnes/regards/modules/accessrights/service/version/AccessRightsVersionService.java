@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service.version;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import fr.cnes.regards.framework.jpa.multitenant.transactional.MultitenantTransactional;
+import fr.cnes.regards.modules.accessrights.dao.projects.IAccessRightsVersionRepository;
+import fr.cnes.regards.modules.accessrights.domain.projects.AccessRightsVersion;
+import fr.cnes.regards.modules.accessrights.service.projectuser.EffectivePermissionsCache;
+
+/**
+ * {@link IAccessRightsVersionService} implementation
+ * @author REGARDS Team
+ */
+@Service
+@MultitenantTransactional
+public class AccessRightsVersionService implements IAccessRightsVersionService {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AccessRightsVersionService.class);
+
+    /**
+     * JPA Repository
+     */
+    private final IAccessRightsVersionRepository versionRepository;
+
+    /**
+     * Effective permissions of project users, outdated by any access rights change
+     */
+    private final EffectivePermissionsCache permissionsCache;
+
+    public AccessRightsVersionService(IAccessRightsVersionRepository versionRepository,
+            EffectivePermissionsCache permissionsCache) {
+        this.versionRepository = versionRepository;
+        this.permissionsCache = permissionsCache;
+    }
+
+    @Override
+    public long getVersion() {
+        return versionRepository.findCurrentVersion().orElse(0L);
+    }
+
+    @Override
+    public void incrementVersion() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (TransactionSynchronizationManager.hasResource(this)) {
+                // Already incremented by the current transaction
+                return;
+            }
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(AccessRightsVersionService.this);
+                }
+            });
+        }
+        permissionsCache.evictTenant();
+        if (versionRepository.incrementVersion() == 0) {
+            // Version does not exist yet
+            AccessRightsVersion version = new AccessRightsVersion();
+            version.setVersion(1L);
+            versionRepository.save(version);
+        }
+        LOGGER.debug("Access rights version incremented");
+    }
+}
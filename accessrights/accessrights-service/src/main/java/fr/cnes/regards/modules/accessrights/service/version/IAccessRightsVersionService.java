@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service.version;
+
+import fr.cnes.regards.modules.accessrights.domain.projects.AccessRightsVersion;
+
+/**
+ * Business service managing the {@link AccessRightsVersion} of the current tenant.<br/>
+ * Version changes each time a role or the resources accesses of a role change, so that clients can detect outdated
+ * access rights cheaply.
+ * @author REGARDS Team
+ */
+public interface IAccessRightsVersionService {
+
+    /**
+     * @return current access rights version of the current tenant
+     */
+    long getVersion();
+
+    /**
+     * Increment the access rights version of the current tenant. Inside a transaction, version is only incremented
+     * once whatever the number of calls. Cached effective permissions of the project users of the tenant are evicted
+     * as well.
+     */
+    void incrementVersion();
+}
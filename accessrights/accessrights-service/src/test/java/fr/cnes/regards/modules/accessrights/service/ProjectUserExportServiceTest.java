@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import fr.cnes.regards.modules.accessrights.dao.projects.IProjectUserRepository;
+import fr.cnes.regards.modules.accessrights.domain.UserStatus;
+import fr.cnes.regards.modules.accessrights.domain.UserVisibility;
+import fr.cnes.regards.modules.accessrights.service.projectuser.ProjectUserExportService;
+import fr.cnes.regards.modules.accessrights.service.projectuser.ProjectUserExportService.ExportFormat;
+
+/**
+ * Test class for {@link ProjectUserExportService}
+ *
+ * @author REGARDS Team
+ */
+public class ProjectUserExportServiceTest {
+
+    private ProjectUserExportService exportService;
+
+    @Before
+    public void setUp() {
+        IProjectUserRepository projectUserRepository = Mockito.mock(IProjectUserRepository.class);
+        Mockito.when(projectUserRepository.streamForExport(UserVisibility.HIDDEN))
+                .thenAnswer(invocation -> Stream
+                        .of(new Object[] { 1L, "user@regards.fr", "ADMIN", UserStatus.ACCESS_GRANTED, "city", "Paris" },
+                            new Object[] { 1L, "user@regards.fr", "ADMIN", UserStatus.ACCESS_GRANTED, "motto",
+                                    "\"a, b\"" },
+                            new Object[] { 2L, "other@regards.fr", "PUBLIC", UserStatus.WAITING_ACCESS, null, null }));
+        exportService = new ProjectUserExportService(projectUserRepository);
+    }
+
+    @Test
+    public void exportNdjson() throws IOException {
+        StringWriter writer = new StringWriter();
+        Assert.assertEquals(2, exportService.export(ExportFormat.NDJSON, writer));
+        Assert.assertEquals("{\"id\":1,\"email\":\"user@regards.fr\",\"role\":\"ADMIN\",\"status\":\"ACCESS_GRANTED\","
+                + "\"metadata\":{\"city\":\"Paris\",\"motto\":\"\\\"a, b\\\"\"}}\n"
+                + "{\"id\":2,\"email\":\"other@regards.fr\",\"role\":\"PUBLIC\",\"status\":\"WAITING_ACCESS\","
+                + "\"metadata\":{}}\n", writer.toString());
+    }
+
+    @Test
+    public void exportCsv() throws IOException {
+        StringWriter writer = new StringWriter();
+        Assert.assertEquals(2, exportService.export(ExportFormat.CSV, writer));
+        Assert.assertEquals("id,email,role,status,metadata\n"
+                + "1,user@regards.fr,ADMIN,ACCESS_GRANTED,\"{\"\"city\"\":\"\"Paris\"\",\"\"motto\"\":\"\"\\\"\"a, b\\\"\"\"\"}\"\n"
+                + "2,other@regards.fr,PUBLIC,WAITING_ACCESS,{}\n", writer.toString());
+    }
+}
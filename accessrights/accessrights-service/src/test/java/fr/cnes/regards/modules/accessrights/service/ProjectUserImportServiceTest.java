@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import javax.validation.Validation;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.google.gson.Gson;
+
+import fr.cnes.regards.framework.amqp.ISubscriber;
+import fr.cnes.regards.framework.module.rest.exception.EntityInvalidException;
+import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+import fr.cnes.regards.modules.accessrights.dao.projects.IProjectUserRepository;
+import fr.cnes.regards.modules.accessrights.domain.UserStatus;
+import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUser;
+import fr.cnes.regards.modules.accessrights.domain.projects.Role;
+import fr.cnes.regards.modules.accessrights.domain.registration.AccessRequestDto;
+import fr.cnes.regards.modules.accessrights.domain.registration.ProjectUserImportResult;
+import fr.cnes.regards.modules.accessrights.domain.registration.ProjectUserImportResult.Status;
+import fr.cnes.regards.modules.accessrights.instance.client.IAccountsClient;
+import fr.cnes.regards.modules.accessrights.instance.domain.AccountProvisioning;
+import fr.cnes.regards.modules.accessrights.service.projectuser.EffectivePermissionsCache;
+import fr.cnes.regards.modules.accessrights.service.projectuser.ProjectUserImportService;
+import fr.cnes.regards.modules.accessrights.service.role.IRoleService;
+
+/**
+ * Test class for {@link ProjectUserImportService}
+ *
+ * @author REGARDS Team
+ */
+public class ProjectUserImportServiceTest {
+
+    private IProjectUserRepository projectUserRepository;
+
+    private IRoleService roleService;
+
+    private IAccountsClient accountsClient;
+
+    private ProjectUserImportService importService;
+
+    private final Role defaultRole = new Role("REGISTERED_USER");
+
+    private final Role adminRole = new Role("ADMIN");
+
+    @Before
+    public void setUp() throws EntityNotFoundException {
+        projectUserRepository = Mockito.mock(IProjectUserRepository.class);
+        roleService = Mockito.mock(IRoleService.class);
+        accountsClient = Mockito.mock(IAccountsClient.class);
+        IRuntimeTenantResolver runtimeTenantResolver = Mockito.mock(IRuntimeTenantResolver.class);
+        Mockito.when(runtimeTenantResolver.getTenant()).thenReturn("test");
+        Mockito.when(roleService.getDefaultRole()).thenReturn(defaultRole);
+        Mockito.when(roleService.retrieveRole("ADMIN")).thenReturn(adminRole);
+        Mockito.when(roleService.retrieveRole("UNKNOWN")).thenThrow(new EntityNotFoundException("UNKNOWN", Role.class));
+        Mockito.when(projectUserRepository.findExistingEmails(Mockito.any()))
+                .thenReturn(new HashSet<>(Collections.singletonList("existing@regards.fr")));
+        importService = new ProjectUserImportService(projectUserRepository, roleService, accountsClient,
+                new EffectivePermissionsCache(Mockito.mock(ISubscriber.class), runtimeTenantResolver, 100, 60),
+                new Gson(), Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    private static AccessRequestDto row(String email, String roleName) {
+        return new AccessRequestDto(email, "first", "last", roleName, null, "password", null, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void importProjectUsers() throws EntityNotFoundException {
+        Mockito.when(accountsClient.provisionAccounts(Mockito.any())).thenReturn(new ResponseEntity<>(Arrays.asList(
+                new AccountProvisioning("new@regards.fr", AccountProvisioning.Status.CREATED, null),
+                new AccountProvisioning("account@regards.fr", AccountProvisioning.Status.EXISTING, null),
+                new AccountProvisioning("invalid@regards.fr", AccountProvisioning.Status.INVALID, "Invalid password"),
+                new AccountProvisioning("other@regards.fr", AccountProvisioning.Status.CREATED, null)),
+                HttpStatus.OK));
+
+        List<ProjectUserImportResult> results = importService
+                .importProjectUsers(Arrays.asList(row("new@regards.fr", "ADMIN"), row("account@regards.fr", "UNKNOWN"),
+                                                  row("existing@regards.fr", "ADMIN"), row("new@regards.fr", null),
+                                                  row("invalid@regards.fr", null), row(null, null),
+                                                  row("other@regards.fr", "ADMIN")));
+
+        Assert.assertEquals(7, results.size());
+        Assert.assertEquals(Status.CREATED, results.get(0).getStatus());
+        Assert.assertTrue(results.get(0).isAccountCreated());
+        Assert.assertEquals("ADMIN", results.get(0).getRoleName());
+        Assert.assertEquals(Status.CREATED, results.get(1).getStatus());
+        Assert.assertFalse(results.get(1).isAccountCreated());
+        Assert.assertEquals("REGISTERED_USER", results.get(1).getRoleName());
+        Assert.assertEquals(Status.ALREADY_EXISTS, results.get(2).getStatus());
+        Assert.assertEquals(Status.INVALID, results.get(3).getStatus());
+        Assert.assertEquals(Status.INVALID, results.get(4).getStatus());
+        Assert.assertEquals("Invalid password", results.get(4).getMessage());
+        Assert.assertEquals(Status.INVALID, results.get(5).getStatus());
+        Assert.assertEquals(6, results.get(6).getIndex());
+        Assert.assertEquals(Status.CREATED, results.get(6).getStatus());
+
+        // Roles are resolved once, accounts are provisioned by a single call and users saved together
+        Mockito.verify(roleService, Mockito.times(1)).retrieveRole("ADMIN");
+        Mockito.verify(accountsClient, Mockito.times(1)).provisionAccounts(Mockito.any());
+        Mockito.verify(accountsClient, Mockito.never()).retrieveAccounByEmail(Mockito.any());
+        ArgumentCaptor<Collection<ProjectUser>> saved = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(projectUserRepository).saveAll(saved.capture());
+        Assert.assertEquals(3, saved.getValue().size());
+        saved.getValue().forEach(user -> Assert.assertEquals(UserStatus.ACCESS_GRANTED, user.getStatus()));
+    }
+
+    @Test
+    public void importProjectUsersAccountError() {
+        Mockito.when(accountsClient.provisionAccounts(Mockito.any()))
+                .thenReturn(new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR));
+
+        List<ProjectUserImportResult> results = importService
+                .importProjectUsers(Collections.singletonList(row("new@regards.fr", null)));
+
+        Assert.assertEquals(Status.ERROR, results.get(0).getStatus());
+        Mockito.verify(projectUserRepository).saveAll(Collections.emptyList());
+    }
+
+    @Test
+    public void importProjectUsersInvalidRow() {
+        AccessRequestDto row = new AccessRequestDto("new@regards.fr", "", "last", null, null, "password", null, null);
+
+        List<ProjectUserImportResult> results = importService.importProjectUsers(Collections.singletonList(row));
+
+        Assert.assertEquals(Status.INVALID, results.get(0).getStatus());
+        Assert.assertTrue(results.get(0).getMessage().startsWith("firstName"));
+        Mockito.verify(accountsClient, Mockito.never()).provisionAccounts(Mockito.any());
+    }
+
+    @Test(expected = EntityInvalidException.class)
+    public void importProjectUsersInvalidFile() throws EntityInvalidException {
+        importService.importProjectUsers(new StringReader("{ not an array"));
+    }
+}
@@ -36,14 +36,17 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMethod;
 
+import com.google.common.collect.Lists;
 import com.google.gson.Gson;
 
+import fr.cnes.regards.framework.amqp.ISubscriber;
 import fr.cnes.regards.framework.authentication.IAuthenticationResolver;
 import fr.cnes.regards.framework.module.rest.exception.EntityAlreadyExistsException;
 import fr.cnes.regards.framework.module.rest.exception.EntityException;
@@ -51,19 +54,24 @@ import fr.cnes.regards.framework.module.rest.exception.EntityInconsistentIdentif
 import fr.cnes.regards.framework.module.rest.exception.EntityInvalidException;
 import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
 import fr.cnes.regards.framework.module.rest.exception.EntityOperationForbiddenException;
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
 import fr.cnes.regards.framework.security.role.DefaultRole;
 import fr.cnes.regards.framework.test.report.annotation.Purpose;
 import fr.cnes.regards.framework.test.report.annotation.Requirement;
 import fr.cnes.regards.modules.accessrights.dao.projects.IProjectUserRepository;
 import fr.cnes.regards.modules.accessrights.domain.UserStatus;
 import fr.cnes.regards.modules.accessrights.domain.UserVisibility;
+import fr.cnes.regards.modules.accessrights.domain.projects.KeysetPage;
 import fr.cnes.regards.modules.accessrights.domain.projects.MetaData;
 import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUser;
+import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUserCursor;
+import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUserCursor.SortKey;
 import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
 import fr.cnes.regards.modules.accessrights.domain.projects.Role;
 import fr.cnes.regards.modules.accessrights.domain.registration.AccessRequestDto;
 import fr.cnes.regards.modules.accessrights.instance.client.IAccountsClient;
 import fr.cnes.regards.modules.accessrights.instance.domain.Account;
+import fr.cnes.regards.modules.accessrights.service.projectuser.EffectivePermissionsCache;
 import fr.cnes.regards.modules.accessrights.service.projectuser.IProjectUserService;
 import fr.cnes.regards.modules.accessrights.service.projectuser.ProjectUserService;
 import fr.cnes.regards.modules.accessrights.service.role.IRoleService;
@@ -164,8 +172,11 @@ public class ProjectUserServiceTest {
         authResolver = Mockito.mock(IAuthenticationResolver.class);
 
         // Construct the tested service
+        IRuntimeTenantResolver runtimeTenantResolver = Mockito.mock(IRuntimeTenantResolver.class);
+        Mockito.when(runtimeTenantResolver.getTenant()).thenReturn("test");
         projectUserService = new ProjectUserService(authResolver, projectUserRepository, roleService, accountsClient,
-                "instance_admin@regards.fr", new Gson());
+                "instance_admin@regards.fr", new Gson(),
+                new EffectivePermissionsCache(Mockito.mock(ISubscriber.class), runtimeTenantResolver, 100, 60));
     }
 
     @Test
@@ -300,6 +311,45 @@ public class ProjectUserServiceTest {
         Assert.assertEquals(expectedPage, actual);
     }
 
+    /**
+     * Check that keyset pagination returns the cursor of the next page without counting users.
+     * @throws EntityInvalidException
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    @Purpose("Check that keyset pagination returns the cursor of the next page without counting users.")
+    public void retrieveUserKeysetPage() throws EntityInvalidException {
+        projectUser.setStatus(UserStatus.ACCESS_GRANTED);
+        Mockito.when(projectUserRepository.findSlice(Mockito.any(Specification.class), Mockito.eq(1)))
+                .thenReturn(new SliceImpl<>(Lists.newArrayList(projectUser), PageRequest.of(0, 1), true));
+
+        KeysetPage<ProjectUser> page = projectUserService
+                .retrieveUserList(UserStatus.ACCESS_GRANTED.toString(), null, null,
+                                  ProjectUserCursor.first(SortKey.ID), 1, false);
+
+        Assert.assertEquals(Lists.newArrayList(projectUser), page.getContent());
+        Assert.assertTrue(page.hasNext());
+        Assert.assertNull(page.getTotalElements());
+        ProjectUserCursor next = ProjectUserCursor.decode(page.getNextCursor());
+        Assert.assertEquals(SortKey.ID, next.getSortKey());
+        Assert.assertEquals(ID, next.getLastId());
+        Mockito.verify(projectUserRepository, Mockito.never()).count(Mockito.any(Specification.class));
+    }
+
+    /**
+     * Check that licence reset is done in one update without loading users.
+     */
+    @Test
+    @Purpose("Check that licence reset is done in one update without loading users.")
+    public void resetLicence() {
+        Mockito.when(projectUserRepository.resetLicences(Mockito.any(OffsetDateTime.class))).thenReturn(3);
+
+        Assert.assertEquals(3, projectUserService.resetLicence());
+
+        Mockito.verify(projectUserRepository, Mockito.never()).findAll();
+        Mockito.verify(projectUserRepository, Mockito.never()).saveAll(Mockito.any());
+    }
+
     /**
      * Check that the system allows to retrieve a specific user without exposing hidden meta data.
      * @throws EntityNotFoundException When no user with passed id could be found
@@ -660,4 +710,26 @@ public class ProjectUserServiceTest {
         Assert.assertTrue(expected.containsAll(actual));
     }
 
+    /**
+     * Check that effective permissions are computed once until the user changes
+     * @throws EntityException various exceptions
+     */
+    @Test
+    @Purpose("Check that effective permissions are cached until the user changes.")
+    public void retrieveProjectUserAccessRightsCached() throws EntityException {
+        Mockito.when(projectUserRepository.findOneByEmail(EMAIL)).thenReturn(Optional.ofNullable(projectUser));
+        Mockito.when(roleService.retrieveRoleResourcesAccesses(projectUser.getRole().getId()))
+                .thenReturn(new HashSet<>());
+
+        List<ResourcesAccess> first = projectUserService.retrieveProjectUserAccessRights(EMAIL, null);
+        List<ResourcesAccess> second = projectUserService.retrieveProjectUserAccessRights(EMAIL, null);
+        Assert.assertEquals(first, second);
+        Mockito.verify(projectUserRepository, Mockito.times(1)).findOneByEmail(EMAIL);
+
+        // User permissions change
+        projectUserService.removeUserAccessRights(EMAIL);
+        Assert.assertTrue(projectUserService.retrieveProjectUserAccessRights(EMAIL, null).isEmpty());
+        Mockito.verify(projectUserRepository, Mockito.times(3)).findOneByEmail(EMAIL);
+    }
+
 }
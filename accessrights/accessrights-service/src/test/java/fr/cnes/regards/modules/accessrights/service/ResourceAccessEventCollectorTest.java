@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import fr.cnes.regards.framework.amqp.IPublisher;
+import fr.cnes.regards.framework.amqp.event.ISubscribable;
+import fr.cnes.regards.framework.security.event.ResourceAccessEvent;
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourceAccessDeltaEvent;
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourceAccessDeltaEvent.ResourceKey;
+import fr.cnes.regards.modules.accessrights.service.role.ResourceAccessEventCollector;
+import fr.cnes.regards.modules.accessrights.service.version.IAccessRightsVersionService;
+
+/**
+ * Test for deduplicated after commit publication of {@link ResourceAccessEvent}s
+ * @author REGARDS Team
+ */
+public class ResourceAccessEventCollectorTest {
+
+    private IPublisher publisher;
+
+    private IAccessRightsVersionService versionService;
+
+    private ResourceAccessEventCollector collector;
+
+    private final ResourceKey getKey = new ResourceKey(RequestMethod.GET, "/test");
+
+    private final ResourceKey postKey = new ResourceKey(RequestMethod.POST, "/test");
+
+    @Before
+    public void init() {
+        publisher = Mockito.mock(IPublisher.class);
+        versionService = Mockito.mock(IAccessRightsVersionService.class);
+        collector = new ResourceAccessEventCollector(publisher, versionService);
+    }
+
+    private void collect(String microservice, String roleName) {
+        collector.collect(microservice, roleName, true, Collections.singletonList(getKey));
+    }
+
+    @After
+    public void clear() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testPublishWithoutTransaction() {
+        collect("rs-test", "PUBLIC");
+        collect("rs-test", "PUBLIC");
+        Mockito.verify(publisher, Mockito.times(2)).publish(Mockito.any(ResourceAccessEvent.class));
+        Mockito.verify(publisher, Mockito.times(2)).publish(Mockito.any(ResourceAccessDeltaEvent.class));
+    }
+
+    @Test
+    public void testPublishAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        collect("rs-test", "PUBLIC");
+        collect("rs-test", "REGISTERED_USER");
+        collect("rs-test", "PUBLIC");
+        collect("rs-other", "PUBLIC");
+        // Nothing sent before commit
+        Mockito.verify(publisher, Mockito.never()).publish(Mockito.any(ResourceAccessEvent.class));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        // One event per microservice and role
+        Mockito.verify(publisher, Mockito.times(3)).publish(Mockito.any(ResourceAccessEvent.class));
+        Mockito.verify(publisher, Mockito.times(3)).publish(Mockito.any(ResourceAccessDeltaEvent.class));
+        Assert.assertNull(TransactionSynchronizationManager.getResource(collector));
+    }
+
+    @Test
+    public void testDeltaMergedOverTransaction() {
+        Mockito.when(versionService.getVersion()).thenReturn(5L, 6L);
+        TransactionSynchronizationManager.initSynchronization();
+        collector.collect("rs-test", "PUBLIC", true, Arrays.asList(getKey, postKey));
+        collector.collect("rs-test", "PUBLIC", false, Collections.singletonList(postKey));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        ArgumentCaptor<ISubscribable> captor = ArgumentCaptor.forClass(ISubscribable.class);
+        Mockito.verify(publisher, Mockito.times(2)).publish(captor.capture());
+        ResourceAccessDeltaEvent delta = (ResourceAccessDeltaEvent) captor.getAllValues().get(0);
+        // Version is read once for the whole transaction
+        Assert.assertEquals(5L, delta.getVersion());
+        Assert.assertEquals(Collections.singletonList(getKey), delta.getAdded());
+        Assert.assertEquals(Collections.singletonList(postKey), delta.getRemoved());
+    }
+
+    @Test
+    public void testNoPublicationOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        collect("rs-test", "PUBLIC");
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        Mockito.verify(publisher, Mockito.never()).publish(Mockito.any(ISubscribable.class));
+        Assert.assertNull(TransactionSynchronizationManager.getResource(collector));
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+import fr.cnes.regards.framework.security.role.DefaultRole;
+import fr.cnes.regards.modules.accessrights.dao.projects.IResourcesAccessRepository;
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
+import fr.cnes.regards.modules.accessrights.domain.projects.Role;
+import fr.cnes.regards.modules.accessrights.service.resources.ResourcesAccessIndexService;
+
+/**
+ * Test for the bitset index of resources accesses
+ * @author REGARDS Team
+ */
+public class ResourcesAccessIndexServiceTest {
+
+    private static final String TENANT = "tenant";
+
+    private IResourcesAccessRepository resourcesRepo;
+
+    private ResourcesAccessIndexService indexService;
+
+    private ResourcesAccess ra10;
+
+    private ResourcesAccess ra20;
+
+    private ResourcesAccess ra30;
+
+    @Before
+    public void init() {
+        resourcesRepo = Mockito.mock(IResourcesAccessRepository.class);
+        Mockito.when(resourcesRepo.findAllIds()).thenReturn(Arrays.asList(10L, 20L, 30L));
+        IRuntimeTenantResolver runtimeTenantResolver = Mockito.mock(IRuntimeTenantResolver.class);
+        Mockito.when(runtimeTenantResolver.getTenant()).thenReturn(TENANT);
+        indexService = new ResourcesAccessIndexService(resourcesRepo, runtimeTenantResolver);
+        ra10 = create(10L, "/res/10");
+        ra20 = create(20L, "/res/20");
+        ra30 = create(30L, "/res/30");
+    }
+
+    private static ResourcesAccess create(Long id, String resource) {
+        return new ResourcesAccess(id, "desc", "ms", resource, "Controller", RequestMethod.GET, DefaultRole.ADMIN);
+    }
+
+    @Test
+    public void testBitSet() {
+        Optional<BitSet> bits = indexService.toBitSet(Arrays.asList(ra10, ra30));
+        Assert.assertTrue(bits.isPresent());
+        Assert.assertEquals(2, bits.get().cardinality());
+        Assert.assertEquals(new HashSet<>(Arrays.asList(10L, 30L)), indexService.toIds(bits.get()));
+        // Not persisted accesses cannot be indexed
+        Assert.assertFalse(indexService.toBitSet(Arrays.asList(ra10, create(null, "/res/new"))).isPresent());
+        // Index is built once per tenant
+        indexService.toBitSet(Collections.singletonList(ra20));
+        Mockito.verify(resourcesRepo, Mockito.times(1)).findAllIds();
+    }
+
+    @Test
+    public void testContainsAllAndDifference() {
+        Set<ResourcesAccess> all = new HashSet<>(Arrays.asList(ra10, ra20, ra30));
+        Assert.assertTrue(indexService.containsAll(all, Arrays.asList(ra10, ra30)));
+        Assert.assertFalse(indexService.containsAll(Arrays.asList(ra10), Arrays.asList(ra10, ra20)));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(ra20)),
+                            indexService.difference(all, Arrays.asList(ra10, ra30)));
+
+        // Fallback to set semantics for non indexed accesses
+        ResourcesAccess unknown = create(null, "/res/new");
+        Assert.assertFalse(indexService.containsAll(all, Arrays.asList(unknown)));
+        Assert.assertTrue(indexService.containsAll(Arrays.asList(ra10, create(null, "/res/new")),
+                                                   Arrays.asList(unknown)));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(ra20, ra30)),
+                            indexService.difference(all, Arrays.asList(ra10, unknown)));
+    }
+
+    @Test
+    public void testRolePermissionBits() {
+        Role admin = new Role("ADMIN");
+        admin.setPermissions(new HashSet<>(Arrays.asList(ra10, ra20)));
+        Role user = new Role("USER");
+        user.setPermissions(new HashSet<>(Arrays.asList(ra10)));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(10L, 20L)),
+                            indexService.toIds(indexService.getPermissionBits(admin).get()));
+        Assert.assertTrue(indexService.containsAll(admin, user));
+        Assert.assertFalse(indexService.containsAll(user, admin));
+        Assert.assertTrue(indexService.containsAll(admin, Arrays.asList(ra20)));
+        Assert.assertFalse(indexService.containsAll(admin, Arrays.asList(ra30)));
+
+        // Bits are cached by role until permissions are invalidated
+        admin.getPermissions().add(ra30);
+        Assert.assertFalse(indexService.containsAll(admin, Arrays.asList(ra30)));
+        indexService.invalidateRoles();
+        Assert.assertTrue(indexService.containsAll(admin, Arrays.asList(ra30)));
+
+        // Returned bits are a copy
+        indexService.getPermissionBits(user).get().set(2);
+        Assert.assertFalse(indexService.containsAll(user, Arrays.asList(ra30)));
+
+        // Fallback to set semantics for non indexed accesses
+        ResourcesAccess unknown = create(null, "/res/new");
+        Assert.assertFalse(indexService.containsAll(admin, Arrays.asList(ra10, unknown)));
+        user.getPermissions().add(create(null, "/res/new"));
+        indexService.invalidateRoles();
+        Assert.assertTrue(indexService.containsAll(user, Arrays.asList(unknown)));
+        Assert.assertFalse(indexService.containsAll(admin, user));
+    }
+
+    @Test
+    public void testRolePermissionBitsOfInvalidatingTransaction() {
+        Role admin = new Role("ADMIN");
+        admin.setPermissions(new HashSet<>(Arrays.asList(ra10)));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            indexService.invalidateRoles();
+            Assert.assertFalse(indexService.containsAll(admin, Arrays.asList(ra20)));
+            // Bits computed by the invalidating transaction are not cached
+            admin.getPermissions().add(ra20);
+            Assert.assertTrue(indexService.containsAll(admin, Arrays.asList(ra20)));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        // Cached again once the transaction is completed
+        Assert.assertTrue(indexService.containsAll(admin, Arrays.asList(ra20)));
+        admin.getPermissions().remove(ra20);
+        Assert.assertTrue(indexService.containsAll(admin, Arrays.asList(ra20)));
+    }
+
+    @Test
+    public void testInvalidate() {
+        indexService.toBitSet(Collections.singletonList(ra10));
+        Mockito.when(resourcesRepo.findAllIds()).thenReturn(Arrays.asList(10L, 20L, 30L, 40L));
+        Assert.assertFalse(indexService.toBitSet(Collections.singletonList(create(40L, "/res/40"))).isPresent());
+        indexService.invalidate();
+        Assert.assertTrue(indexService.toBitSet(Collections.singletonList(create(40L, "/res/40"))).isPresent());
+    }
+}
@@ -20,16 +20,20 @@ package fr.cnes.regards.modules.accessrights.service;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.web.bind.annotation.RequestMethod;
 
 import com.google.common.collect.Sets;
@@ -37,12 +41,16 @@ import fr.cnes.regards.framework.authentication.IAuthenticationResolver;
 import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
 import fr.cnes.regards.framework.module.rest.exception.ModuleException;
 import fr.cnes.regards.framework.multitenant.ITenantResolver;
+import fr.cnes.regards.framework.security.domain.ResourceMapping;
 import fr.cnes.regards.framework.security.role.DefaultRole;
 import fr.cnes.regards.framework.test.report.annotation.Purpose;
 import fr.cnes.regards.framework.test.report.annotation.Requirement;
 import fr.cnes.regards.modules.accessrights.dao.projects.IResourcesAccessRepository;
+import fr.cnes.regards.modules.accessrights.dao.projects.IResourcesFingerprintRepository;
 import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesFingerprint;
 import fr.cnes.regards.modules.accessrights.domain.projects.Role;
+import fr.cnes.regards.modules.accessrights.service.resources.IResourcesAccessIndexService;
 import fr.cnes.regards.modules.accessrights.service.resources.ResourcesService;
 import fr.cnes.regards.modules.accessrights.service.role.IRoleService;
 
@@ -82,6 +90,11 @@ public class ResourcesServiceTest {
      */
     private IResourcesAccessRepository resourcesRepo;
 
+    /**
+     * Stub for registered endpoints fingerprints
+     */
+    private IResourcesFingerprintRepository fingerprintRepo;
+
     private ResourcesAccess ra0;
 
     private ResourcesAccess ra1;
@@ -128,6 +141,7 @@ public class ResourcesServiceTest {
         Mockito.when(roleServiceMock.retrieveInheritedRoles(Mockito.any(Role.class)))
                 .thenReturn(Sets.newHashSet(roleAdmin));
         Mockito.when(roleServiceMock.retrieveRole("ADMIN")).thenReturn(roleAdmin);
+        Mockito.when(roleServiceMock.existByName("ADMIN")).thenReturn(true);
 
         tenantResolverMock = Mockito.mock(ITenantResolver.class);
         final Set<String> tenants = new HashSet<>();
@@ -137,7 +151,10 @@ public class ResourcesServiceTest {
         authResolver = Mockito.mock(IAuthenticationResolver.class);
         Mockito.when(authResolver.getRole()).thenReturn("ADMIN");
 
-        resourcesService = Mockito.spy(new ResourcesService(resourcesRepo, roleServiceMock, authResolver));
+        fingerprintRepo = Mockito.mock(IResourcesFingerprintRepository.class);
+
+        resourcesService = Mockito.spy(new ResourcesService(resourcesRepo, roleServiceMock, authResolver,
+                Mockito.mock(IResourcesAccessIndexService.class), fingerprintRepo));
     }
 
     @Purpose("Check that the collect resources functionnality is well done when no resources are collected")
@@ -146,6 +163,8 @@ public class ResourcesServiceTest {
     public void testEmptyResourcesToCollect() throws ModuleException {
         resourcesRepo.deleteAll();
         Mockito.when(discoveryClientMock.getServices()).thenReturn(new ArrayList<>());
+        Mockito.when(resourcesRepo.findByRoleName(Mockito.eq("ADMIN"), Mockito.any(Pageable.class)))
+                .thenReturn(Page.empty());
         final Page<ResourcesAccess> resultPage = resourcesService.retrieveRessources(null, PageRequest.of(0, 20));
         Assert.assertNotNull(resultPage);
         Assert.assertEquals(resultPage.getNumberOfElements(), 0);
@@ -169,12 +188,53 @@ public class ResourcesServiceTest {
         ResourcesAccess raTest4 = new ResourcesAccess("description", ms, "/resource/test/4", "Controller",
                                                       RequestMethod.GET, DefaultRole.ADMIN);
         roleAdmin.addPermission(raTest4);
+        Pageable pageable = PageRequest.of(0, 20);
+        // Pagination and microservice filter are done by database
+        Mockito.when(resourcesRepo.findByRoleNameAndMicroservice("ADMIN", ms, pageable))
+                .thenReturn(new PageImpl<>(new ArrayList<>(roleAdmin.getPermissions()), pageable, 4));
 
-        final Page<ResourcesAccess> page = resourcesService.retrieveRessources(ms, PageRequest.of(0, 20));
+        final Page<ResourcesAccess> page = resourcesService.retrieveRessources(ms, pageable);
         Assert.assertNotNull(page);
         Assert.assertNotNull(page.getContent());
         Assert.assertEquals(4, page.getContent().size());
+        Mockito.verify(resourcesRepo).findByRoleNameAndMicroservice("ADMIN", ms, pageable);
 
     }
 
+    @Test
+    public void registerResourcesOnlyWhenChanged() throws ModuleException {
+        final String ms = "rs-test";
+        List<ResourceMapping> mappings = new ArrayList<>();
+        mappings.add(new ResourceMapping("/register/test/1", "Controller", RequestMethod.GET));
+        mappings.add(new ResourceMapping("/register/test/2", "Controller", RequestMethod.POST));
+        // Duplicated mapping must only be registered once
+        mappings.add(new ResourceMapping("/register/test/2", "Controller", RequestMethod.POST));
+        Mockito.when(roleServiceMock.retrieveRole(DefaultRole.PROJECT_ADMIN.toString())).thenReturn(roleAdmin);
+
+        resourcesService.registerResources(mappings, ms);
+        Mockito.verify(resourcesRepo).saveAll(Mockito.argThat(list -> ((List<?>) list).size() == 2));
+        ArgumentCaptor<ResourcesFingerprint> captor = ArgumentCaptor.forClass(ResourcesFingerprint.class);
+        Mockito.verify(fingerprintRepo).save(captor.capture());
+        Assert.assertEquals(ms, captor.getValue().getMicroservice());
+
+        // Same endpoints : nothing to do
+        Mockito.when(fingerprintRepo.findByMicroservice(ms)).thenReturn(Optional.of(captor.getValue()));
+        resourcesService.registerResources(mappings, ms);
+        Mockito.verify(resourcesRepo, Mockito.times(1)).findByMicroservice(ms);
+        Mockito.verify(resourcesRepo, Mockito.times(1)).saveAll(Mockito.any());
+
+        // New endpoint : only the delta is saved
+        List<ResourcesAccess> known = new ArrayList<>();
+        known.add(new ResourcesAccess("", ms, "/register/test/1", "Controller", RequestMethod.GET,
+                DefaultRole.PROJECT_ADMIN));
+        known.add(new ResourcesAccess("", ms, "/register/test/2", "Controller", RequestMethod.POST,
+                DefaultRole.PROJECT_ADMIN));
+        Mockito.when(resourcesRepo.findByMicroservice(ms)).thenReturn(known);
+        mappings.add(new ResourceMapping("/register/test/3", "Controller", RequestMethod.GET));
+        resourcesService.registerResources(mappings, ms);
+        Mockito.verify(resourcesRepo, Mockito.times(2)).findByMicroservice(ms);
+        Mockito.verify(resourcesRepo).saveAll(Mockito.argThat(list -> ((List<?>) list).size() == 1));
+        Mockito.verify(fingerprintRepo, Mockito.times(2)).save(Mockito.any(ResourcesFingerprint.class));
+    }
+
 }
@@ -19,10 +19,15 @@
 package fr.cnes.regards.modules.accessrights.service;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.assertj.core.util.Lists;
 import org.hamcrest.CoreMatchers;
@@ -34,6 +39,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.web.bind.annotation.RequestMethod;
 
 import com.google.common.collect.Sets;
@@ -43,6 +49,7 @@ import fr.cnes.regards.framework.authentication.IAuthenticationResolver;
 import fr.cnes.regards.framework.module.rest.exception.EntityAlreadyExistsException;
 import fr.cnes.regards.framework.module.rest.exception.EntityException;
 import fr.cnes.regards.framework.module.rest.exception.EntityInconsistentIdentifierException;
+import fr.cnes.regards.framework.module.rest.exception.EntityInvalidException;
 import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
 import fr.cnes.regards.framework.module.rest.exception.EntityOperationForbiddenException;
 import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
@@ -51,14 +58,20 @@ import fr.cnes.regards.framework.security.role.DefaultRole;
 import fr.cnes.regards.framework.test.report.annotation.Purpose;
 import fr.cnes.regards.framework.test.report.annotation.Requirement;
 import fr.cnes.regards.modules.accessrights.dao.projects.IProjectUserRepository;
+import fr.cnes.regards.modules.accessrights.dao.projects.IResourcesAccessRepository;
 import fr.cnes.regards.modules.accessrights.dao.projects.IRoleRepository;
 import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUser;
 import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
 import fr.cnes.regards.modules.accessrights.domain.projects.Role;
 import fr.cnes.regards.modules.accessrights.domain.projects.RoleFactory;
+import fr.cnes.regards.modules.accessrights.service.resources.ResourcesAccessIndexService;
 import fr.cnes.regards.modules.accessrights.service.role.IRoleService;
+import fr.cnes.regards.modules.accessrights.service.role.ResourceAccessEventCollector;
 import fr.cnes.regards.modules.accessrights.service.role.RoleComparator;
+import fr.cnes.regards.modules.accessrights.service.role.RoleHierarchyCache;
 import fr.cnes.regards.modules.accessrights.service.role.RoleService;
+import fr.cnes.regards.modules.accessrights.service.tenant.TenantBootstrapExecutor;
+import fr.cnes.regards.modules.accessrights.service.version.IAccessRightsVersionService;
 
 /**
  * Test class for {@link RoleService}.
@@ -146,8 +159,7 @@ public class RoleServiceTest {
         projectUserRepository = Mockito.mock(IProjectUserRepository.class);
         tenantResolver = Mockito.mock(ITenantResolver.class);
         runtimeTenantResolver = Mockito.mock(IRuntimeTenantResolver.class);
-        roleService = new RoleService(roleRepository, projectUserRepository, tenantResolver, runtimeTenantResolver,
-                Mockito.mock(IPublisher.class), authResolver);
+        roleService = createRoleService(false);
 
         // Clear the repos
         projectUserRepository.deleteAll();
@@ -179,6 +191,79 @@ public class RoleServiceTest {
         Mockito.when(roleRepository.findByName(NAME)).thenReturn(Optional.of(rolePublic));
     }
 
+    private RoleService createRoleService(boolean setBasedPropagation) {
+        return new RoleService(roleRepository, projectUserRepository,
+                new TenantBootstrapExecutor(tenantResolver, runtimeTenantResolver, 1), runtimeTenantResolver,
+                Mockito.mock(IPublisher.class), authResolver,
+                new RoleHierarchyCache(roleRepository, runtimeTenantResolver),
+                new ResourcesAccessIndexService(Mockito.mock(IResourcesAccessRepository.class),
+                        runtimeTenantResolver),
+                new ResourceAccessEventCollector(Mockito.mock(IPublisher.class),
+                        Mockito.mock(IAccessRightsVersionService.class)),
+                setBasedPropagation, Mockito.mock(IAccessRightsVersionService.class));
+    }
+
+    /**
+     * Mock set based statements and saves on an in memory <code>ta_resource_role</code> table. Refreshing roles
+     * reloads their permissions from this table.
+     * @param roles all existing roles
+     * @return the table, permissions by role name
+     */
+    private Map<String, Set<ResourcesAccess>> mockPermissionsTable(Role... roles) {
+        Map<String, Set<ResourcesAccess>> table = new HashMap<>();
+        for (Role role : roles) {
+            table.put(role.getName(), new HashSet<>(role.getPermissions()));
+        }
+        Mockito.when(roleRepository.save(Mockito.any(Role.class))).thenAnswer(invocation -> {
+            Role role = invocation.getArgument(0);
+            table.put(role.getName(), new HashSet<>(role.getPermissions()));
+            return role;
+        });
+        Mockito.when(roleRepository.findOwnedPermissions(Mockito.anyCollection(), Mockito.anyCollection()))
+                .thenAnswer(invocation -> {
+                    Collection<String> names = invocation.getArgument(0);
+                    Collection<Long> ids = invocation.getArgument(1);
+                    return names.stream()
+                            .filter(name -> table.get(name).stream().anyMatch(ra -> ids.contains(ra.getId())))
+                            .map(name -> new Object[] { name, "ms" }).collect(Collectors.toList());
+                });
+        Mockito.when(roleRepository.removePermissions(Mockito.anyCollection(), Mockito.anyCollection()))
+                .thenAnswer(invocation -> {
+                    Collection<String> names = invocation.getArgument(0);
+                    Collection<Long> ids = invocation.getArgument(1);
+                    int count = 0;
+                    for (String name : names) {
+                        int before = table.get(name).size();
+                        table.get(name).removeIf(ra -> ids.contains(ra.getId()));
+                        count += before - table.get(name).size();
+                    }
+                    return count;
+                });
+        Mockito.doAnswer(invocation -> {
+            Collection<String> names = invocation.getArgument(0);
+            for (Role role : roles) {
+                if (names.contains(role.getName())) {
+                    role.setPermissions(new HashSet<>(table.get(role.getName())));
+                }
+            }
+            return null;
+        }).when(roleRepository).refreshPermissions(Mockito.anyCollection());
+        return table;
+    }
+
+    /**
+     * Mock role hierarchy queries with the given roles
+     * @param roles all existing roles
+     */
+    private void mockRoles(Role... roles) {
+        List<Role> allRoles = Lists.newArrayList(roles);
+        Mockito.when(roleRepository.findAllWithParent()).thenReturn(allRoles);
+        Mockito.when(roleRepository.findDistinctWithPermissionsByNameIn(Mockito.anyCollection())).thenAnswer(invocation -> {
+            Collection<String> names = invocation.getArgument(0);
+            return allRoles.stream().filter(role -> names.contains(role.getName())).collect(Collectors.toList());
+        });
+    }
+
     @Test
     public void roleHierarchyTest() throws EntityNotFoundException {
 
@@ -211,6 +296,25 @@ public class RoleServiceTest {
         Mockito.verify(roleRepository).findAllDistinctLazy();
     }
 
+    /**
+     * Check that roles are filtered and sorted from the caller authorization resolved once.
+     */
+    @Test
+    @Purpose("Check that the system only retrieves roles manageable by the authenticated user.")
+    public void retrieveManageableRoleList() {
+        Mockito.when(authResolver.getRole()).thenReturn(roleAdmin.getName());
+        mockRoles(rolePublic, roleRegisteredUser, roleAdmin, roleProjectAdmin, adminSon);
+        Mockito.when(roleRepository.findAllDistinctLazy()).thenReturn(Sets.newHashSet(adminSon, roleAdmin,
+                                                                                       roleRegisteredUser, rolePublic,
+                                                                                       roleProjectAdmin));
+
+        Set<Role> actual = roleService.retrieveRoles();
+
+        Assert.assertEquals(Lists.newArrayList(rolePublic, roleRegisteredUser), Lists.newArrayList(actual));
+        // Caller role is not read again for each role
+        Mockito.verify(roleRepository, Mockito.never()).findByName(Mockito.anyString());
+    }
+
     @Test
     @Requirement("PM003") // FIXME
     @Purpose("Check that the system retrieve the good roles that can be borrowed")
@@ -222,6 +326,7 @@ public class RoleServiceTest {
         ProjectUser projectUser = new ProjectUser("test@test.test", roleAdmin, new ArrayList<>(), new ArrayList<>());
         Mockito.when(projectUserRepository.findOneByEmail("test@test.test")).thenReturn(Optional.of(projectUser));
         Mockito.when(roleRepository.findByParentRoleName(roleAdmin.getName())).thenReturn(Sets.newHashSet(adminSon));
+        mockRoles(rolePublic, roleRegisteredUser, roleAdmin, roleProjectAdmin, adminSon);
         Set<Role> result = roleService.retrieveBorrowableRoles();
         Assert.assertTrue(result.contains(rolePublic));
         Assert.assertTrue(result.contains(roleRegisteredUser));
@@ -543,6 +648,153 @@ public class RoleServiceTest {
         Assert.assertEquals(updatedRAs, passedRAs);
     }
 
+    /**
+     * Check that resource accesses of several roles are updated at once and only dependent non native roles are
+     * re-evaluated.
+     */
+    @Test
+    @Purpose("Check that the system allows to update resources accesses of several roles at once.")
+    public void updateRolesResourcesAccess() throws EntityException {
+        ResourcesAccess lost = new ResourcesAccess(10L, "lost", "ms", "/lost", "Controller", RequestMethod.GET,
+                DefaultRole.REGISTERED_USER);
+        ResourcesAccess gained = new ResourcesAccess(11L, "gained", "ms", "/gained", "Controller", RequestMethod.GET,
+                DefaultRole.ADMIN);
+        roleRegisteredUser.addPermission(lost);
+        roleAdmin.addPermission(lost);
+        adminSon.addPermission(lost);
+        // Custom role without the lost access so its parent can only be PUBLIC before the update
+        Role publicSon = new Role(DefaultRole.PUBLIC.toString() + "_SON", rolePublic);
+        publicSon.setId(5L);
+        Mockito.when(authResolver.getRole()).thenReturn(null);
+        mockRoles(rolePublic, roleRegisteredUser, roleAdmin, roleProjectAdmin, adminSon, publicSon);
+        Mockito.when(roleRepository.findByName(roleRegisteredUser.getName()))
+                .thenReturn(Optional.of(roleRegisteredUser));
+        Mockito.when(roleRepository.findByName(adminSon.getName())).thenReturn(Optional.of(adminSon));
+
+        Map<String, Set<ResourcesAccess>> changes = new LinkedHashMap<>();
+        changes.put(roleRegisteredUser.getName(), new HashSet<>());
+        changes.put(adminSon.getName(), Sets.newHashSet(lost, gained));
+        Set<Role> updated = roleService.updateRolesResourcesAccess(changes);
+
+        Assert.assertEquals(Sets.newHashSet(roleRegisteredUser, adminSon), updated);
+        // Removal is propagated to native ascendants only
+        Assert.assertFalse(roleRegisteredUser.getPermissions().contains(lost));
+        Assert.assertTrue(roleAdmin.getPermissions().contains(lost));
+        Assert.assertTrue(adminSon.getPermissions().contains(gained));
+        Assert.assertEquals(roleAdmin, adminSon.getParentRole());
+        // Custom role depending on REGISTERED_USER now fits it
+        Assert.assertEquals(roleRegisteredUser, publicSon.getParentRole());
+        Mockito.verify(roleRepository).saveAll(Lists.newArrayList(publicSon));
+        // Other roles are not listed
+        Mockito.verify(roleRepository, Mockito.never()).findAllDistinctLazy();
+    }
+
+    /**
+     * Check that a batch removing an access from a role and adding it to one of its native ascendants is rejected as
+     * the addition, propagated to descendants, would undo the removal.
+     */
+    @Test(expected = EntityInvalidException.class)
+    @Purpose("Check that contradictory changes of a bulk update of resources accesses are rejected.")
+    public void updateRolesResourcesAccessContradictory() throws EntityException {
+        ResourcesAccess moved = new ResourcesAccess(10L, "moved", "ms", "/moved", "Controller", RequestMethod.GET,
+                DefaultRole.ADMIN);
+        roleAdmin.addPermission(moved);
+        Mockito.when(authResolver.getRole()).thenReturn(null);
+        mockRoles(rolePublic, roleRegisteredUser, roleAdmin, roleProjectAdmin, adminSon);
+        Mockito.when(roleRepository.findByName(roleRegisteredUser.getName()))
+                .thenReturn(Optional.of(roleRegisteredUser));
+        Mockito.when(roleRepository.findByName(roleAdmin.getName())).thenReturn(Optional.of(roleAdmin));
+
+        Map<String, Set<ResourcesAccess>> changes = new LinkedHashMap<>();
+        changes.put(roleAdmin.getName(), new HashSet<>());
+        changes.put(roleRegisteredUser.getName(), Sets.newHashSet(moved));
+        try {
+            roleService.updateRolesResourcesAccess(changes);
+        } finally {
+            // Nothing applied
+            Mockito.verify(roleRepository, Mockito.never()).save(Mockito.any(Role.class));
+            Assert.assertTrue(roleAdmin.getPermissions().contains(moved));
+            Assert.assertFalse(roleRegisteredUser.getPermissions().contains(moved));
+        }
+    }
+
+    /**
+     * Check that roles modified by set based statements are reloaded, so that a bulk update mixing a native role
+     * removal and a custom role change sees the actual permissions of all native roles.
+     */
+    @Test
+    @Purpose("Check that a bulk update of resources accesses with set based propagation keeps loaded roles up to date.")
+    public void updateRolesResourcesAccessSetBased() throws EntityException {
+        roleService = createRoleService(true);
+        ResourcesAccess lost = new ResourcesAccess(20L, "lost", "ms", "/lost", "Controller", RequestMethod.GET,
+                DefaultRole.PUBLIC);
+        ResourcesAccess kept = new ResourcesAccess(21L, "kept", "ms", "/kept", "Controller", RequestMethod.GET,
+                DefaultRole.REGISTERED_USER);
+        ResourcesAccess adminOnly = new ResourcesAccess(22L, "admin", "ms", "/admin", "Controller",
+                RequestMethod.GET, DefaultRole.ADMIN);
+        ResourcesAccess gained = new ResourcesAccess(23L, "gained", "ms", "/gained", "Controller", RequestMethod.GET,
+                DefaultRole.PUBLIC);
+        rolePublic.addPermission(lost);
+        roleRegisteredUser.addPermission(lost);
+        roleRegisteredUser.addPermission(kept);
+        roleAdmin.addPermission(lost);
+        roleAdmin.addPermission(kept);
+        roleAdmin.addPermission(adminOnly);
+        Role publicSon = new Role(DefaultRole.PUBLIC.toString() + "_SON", rolePublic);
+        publicSon.setId(5L);
+        publicSon.addPermission(lost);
+        Mockito.when(authResolver.getRole()).thenReturn(null);
+        mockRoles(rolePublic, roleRegisteredUser, roleAdmin, roleProjectAdmin, publicSon);
+        Map<String, Set<ResourcesAccess>> table = mockPermissionsTable(rolePublic, roleRegisteredUser, roleAdmin,
+                                                                       roleProjectAdmin, publicSon);
+        Mockito.when(roleRepository.findByName(roleRegisteredUser.getName()))
+                .thenReturn(Optional.of(roleRegisteredUser));
+        Mockito.when(roleRepository.findByName(publicSon.getName())).thenReturn(Optional.of(publicSon));
+
+        Map<String, Set<ResourcesAccess>> changes = new LinkedHashMap<>();
+        changes.put(roleRegisteredUser.getName(), Sets.newHashSet(kept));
+        changes.put(publicSon.getName(), Sets.newHashSet(gained));
+        roleService.updateRolesResourcesAccess(changes);
+
+        // Removal is applied by one statement on REGISTERED_USER and PUBLIC and loaded roles are refreshed
+        Mockito.verify(roleRepository).removePermissions(Sets.newHashSet(roleRegisteredUser.getName(),
+                                                                         rolePublic.getName()),
+                                                         Sets.newHashSet(lost.getId()));
+        Mockito.verify(roleRepository).refreshPermissions(Sets.newHashSet(roleRegisteredUser.getName(),
+                                                                          rolePublic.getName()));
+        Assert.assertEquals(Sets.newHashSet(), table.get(rolePublic.getName()));
+        Assert.assertEquals(Sets.newHashSet(kept), table.get(roleRegisteredUser.getName()));
+        Assert.assertEquals(Sets.newHashSet(lost, kept, adminOnly), table.get(roleAdmin.getName()));
+        Assert.assertEquals(Sets.newHashSet(gained), table.get(publicSon.getName()));
+        Assert.assertEquals(Sets.newHashSet(kept), roleRegisteredUser.getPermissions());
+        // PUBLIC, reloaded without the lost access, is still a valid parent of the custom role
+        Assert.assertEquals(rolePublic, publicSon.getParentRole());
+    }
+
+    /**
+     * Check that no change is applied if one of the changes of a bulk update is forbidden.
+     */
+    @Test(expected = EntityOperationForbiddenException.class)
+    @Purpose("Check that a bulk update of resources accesses is applied as a whole or not at all.")
+    public void updateRolesResourcesAccessForbidden() throws EntityException {
+        ResourcesAccess access = new ResourcesAccess(12L, "desc", "ms", "/res", "Controller", RequestMethod.GET,
+                DefaultRole.PROJECT_ADMIN);
+        roleProjectAdmin.addPermission(access);
+        Mockito.when(authResolver.getRole()).thenReturn(null);
+        Mockito.when(roleRepository.findByName(adminSon.getName())).thenReturn(Optional.of(adminSon));
+        Mockito.when(roleRepository.findByName(roleProjectAdmin.getName())).thenReturn(Optional.of(roleProjectAdmin));
+
+        Map<String, Set<ResourcesAccess>> changes = new LinkedHashMap<>();
+        changes.put(adminSon.getName(), Sets.newHashSet(access));
+        changes.put(roleProjectAdmin.getName(), new HashSet<>());
+        try {
+            roleService.updateRolesResourcesAccess(changes);
+        } finally {
+            Assert.assertFalse(adminSon.getPermissions().contains(access));
+            Mockito.verify(roleRepository, Mockito.never()).save(Mockito.any(Role.class));
+        }
+    }
+
     /**
      * Check that the system allows to remove all resources accesses of a role.
      * @throws EntityNotFoundException Thrown if no role with passed id could be found
@@ -619,7 +871,9 @@ public class RoleServiceTest {
 
         Pageable pageable = PageRequest.of(0, 100);
         Mockito.when(roleRepository.findByParentRoleName(roleParentName)).thenReturn(inehtitedRoleOfParentRole);
+        mockRoles(roleParent, roleChild);
         Mockito.when(projectUserRepository.findByRoleNameIn(roleNames, pageable)).thenReturn(pageExpected);
+        Mockito.when(projectUserRepository.findByRoleSubtree(roleParentName, pageable)).thenReturn(pageExpected);
 
         Page<ProjectUser> expectedPage = new PageImpl<>(expected);
 
@@ -631,7 +885,14 @@ public class RoleServiceTest {
 
         // Check that the repository's method was called with right arguments
         Mockito.verify(roleRepository).findById(idParent);
-        Mockito.verify(projectUserRepository).findByRoleNameIn(roleNames, pageable);
+        // Users of the whole subtree are retrieved by a single recursive query when ordered by id
+        Mockito.verify(projectUserRepository).findByRoleSubtree(roleParentName, pageable);
+
+        // Any other order is resolved through role names
+        Pageable sortedPageable = PageRequest.of(0, 100, Sort.by("email"));
+        Mockito.when(projectUserRepository.findByRoleNameIn(roleNames, sortedPageable)).thenReturn(pageExpected);
+        Assert.assertEquals(expectedPage, roleService.retrieveRoleProjectUserList(idParent, sortedPageable));
+        Mockito.verify(projectUserRepository).findByRoleNameIn(roleNames, sortedPageable);
     }
 
     /**
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import fr.cnes.regards.framework.security.role.DefaultRole;
+import fr.cnes.regards.modules.accessrights.domain.projects.AuthoritiesSnapshot;
+import fr.cnes.regards.modules.accessrights.domain.projects.AuthoritiesSnapshot.ResourceEntry;
+import fr.cnes.regards.modules.accessrights.service.resources.RouteDecisionTable;
+
+/**
+ * Test for {@link RouteDecisionTable} path template matching
+ * @author REGARDS Team
+ */
+public class RouteDecisionTableTest {
+
+    private RouteDecisionTable table;
+
+    private static ResourceEntry entry(RequestMethod verb, String resource, String... roles) {
+        ResourceEntry entry = new ResourceEntry();
+        entry.setVerb(verb);
+        entry.setResource(resource);
+        for (String role : roles) {
+            entry.getRoles().add(role);
+        }
+        return entry;
+    }
+
+    @Before
+    public void init() {
+        AuthoritiesSnapshot snapshot = new AuthoritiesSnapshot("rs-test", 3L);
+        snapshot.getResources().add(entry(RequestMethod.GET, "/entities", "PUBLIC", "ADMIN"));
+        snapshot.getResources().add(entry(RequestMethod.GET, "/entities/{id}", "ADMIN"));
+        snapshot.getResources().add(entry(RequestMethod.GET, "/entities/search", "PUBLIC"));
+        snapshot.getResources().add(entry(RequestMethod.DELETE, "/entities/{id}", "PROJECT_ADMIN"));
+        snapshot.getResources().add(entry(RequestMethod.GET, "/files/**", "REGISTERED_USER"));
+        table = RouteDecisionTable.of(snapshot);
+    }
+
+    @Test
+    public void testLiteralAndTemplate() {
+        Assert.assertEquals(3L, table.getVersion());
+        Assert.assertTrue(table.isAllowed("PUBLIC", RequestMethod.GET, "/entities/"));
+        Assert.assertTrue(table.isAllowed("ADMIN", RequestMethod.GET, "/entities/12?page=0"));
+        Assert.assertTrue(table.isAllowed("ADMIN", RequestMethod.GET, "/entities/{id}"));
+        Assert.assertFalse(table.isAllowed("PUBLIC", RequestMethod.GET, "/entities/12"));
+        // Most specific template wins
+        Assert.assertTrue(table.isAllowed("PUBLIC", RequestMethod.GET, "/entities/search"));
+        Assert.assertFalse(table.isAllowed("ADMIN", RequestMethod.GET, "/entities/search"));
+    }
+
+    @Test
+    public void testVerbAndCatchAll() {
+        Assert.assertTrue(table.isAllowed("PROJECT_ADMIN", RequestMethod.DELETE, "/entities/12"));
+        Assert.assertFalse(table.isAllowed("PROJECT_ADMIN", RequestMethod.GET, "/entities/12"));
+        Assert.assertTrue(table.isAllowed("REGISTERED_USER", RequestMethod.GET, "/files/a/b/c"));
+        Assert.assertTrue(table.isAllowed("REGISTERED_USER", RequestMethod.GET, "/files"));
+        Assert.assertFalse(table.isAllowed("REGISTERED_USER", RequestMethod.POST, "/files/a"));
+        Assert.assertFalse(table.isAllowed("PUBLIC", RequestMethod.GET, "/unknown"));
+    }
+
+    @Test
+    public void testOwnedByProjectAdmin() {
+        AuthoritiesSnapshot snapshot = new AuthoritiesSnapshot("rs-test", 4L);
+        ResourceEntry entry = entry(RequestMethod.GET, "/entities/{id}", "ADMIN");
+        entry.setDefaultRole(DefaultRole.ADMIN);
+        snapshot.getResources().add(entry);
+        entry = entry(RequestMethod.DELETE, "/tenants/{id}", "INSTANCE_ADMIN");
+        entry.setDefaultRole(DefaultRole.INSTANCE_ADMIN);
+        snapshot.getResources().add(entry);
+        RouteDecisionTable ownedTable = RouteDecisionTable.of(snapshot);
+        // Granted or not, every resource not reserved to the instance administrator is owned
+        Assert.assertTrue(ownedTable.isOwnedByProjectAdmin(RequestMethod.GET, "/entities/12"));
+        Assert.assertFalse(ownedTable.isAllowed("PROJECT_ADMIN", RequestMethod.GET, "/entities/12"));
+        Assert.assertFalse(ownedTable.isOwnedByProjectAdmin(RequestMethod.DELETE, "/tenants/12"));
+        Assert.assertFalse(ownedTable.isOwnedByProjectAdmin(RequestMethod.GET, "/unknown"));
+        // Default role unknown
+        Assert.assertFalse(table.isOwnedByProjectAdmin(RequestMethod.GET, "/entities/12"));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.modules.accessrights.service;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
+import fr.cnes.regards.framework.multitenant.ITenantResolver;
+import fr.cnes.regards.modules.accessrights.service.tenant.TenantBootstrapExecutor;
+
+/**
+ * Test for the parallel per tenant startup work
+ * @author REGARDS Team
+ */
+public class TenantBootstrapExecutorTest {
+
+    private static final String BROKEN_TENANT = "broken";
+
+    private final ThreadLocal<String> currentTenant = new ThreadLocal<>();
+
+    private ITenantResolver tenantResolver;
+
+    private IRuntimeTenantResolver runtimeTenantResolver;
+
+    @Before
+    public void init() {
+        tenantResolver = Mockito.mock(ITenantResolver.class);
+        Mockito.when(tenantResolver.getAllActiveTenants())
+                .thenReturn(new HashSet<>(Arrays.asList("project1", "project2", BROKEN_TENANT, "project3")));
+        runtimeTenantResolver = Mockito.mock(IRuntimeTenantResolver.class);
+        Mockito.doAnswer(invocation -> {
+            currentTenant.set(invocation.getArgument(0));
+            return null;
+        }).when(runtimeTenantResolver).forceTenant(Mockito.anyString());
+    }
+
+    @Test
+    public void testFailureIsolated() {
+        testFailureIsolated(4);
+    }
+
+    @Test
+    public void testFailureIsolatedSequential() {
+        testFailureIsolated(1);
+    }
+
+    private void testFailureIsolated(int concurrency) {
+        Set<String> initialized = ConcurrentHashMap.newKeySet();
+        TenantBootstrapExecutor executor = new TenantBootstrapExecutor(tenantResolver, runtimeTenantResolver,
+                concurrency);
+        Set<String> failures = executor.runForAllTenants("Test", () -> {
+            if (BROKEN_TENANT.equals(currentTenant.get())) {
+                throw new IllegalStateException("Datasource unavailable");
+            }
+            initialized.add(currentTenant.get());
+        });
+        Assert.assertEquals(new HashSet<>(Arrays.asList(BROKEN_TENANT)), failures);
+        Assert.assertEquals(new HashSet<>(Arrays.asList("project1", "project2", "project3")), initialized);
+        Mockito.verify(runtimeTenantResolver, Mockito.times(4)).clearTenant();
+    }
+}
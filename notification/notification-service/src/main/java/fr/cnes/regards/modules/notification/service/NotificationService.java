@@ -44,7 +44,6 @@ import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
 import fr.cnes.regards.framework.notification.NotificationDTO;
 import fr.cnes.regards.framework.notification.NotificationLevel;
 import fr.cnes.regards.framework.security.role.DefaultRole;
-import fr.cnes.regards.modules.accessrights.domain.projects.ProjectUser;
 import fr.cnes.regards.modules.accessrights.domain.projects.Role;
 import fr.cnes.regards.modules.accessrights.service.projectuser.IProjectUserService;
 import fr.cnes.regards.modules.accessrights.service.role.IRoleService;
@@ -209,14 +208,7 @@ public class NotificationService implements INotificationService {
         Set<String> roleUsers = new HashSet<>();
         for (String roleName : notification.getRoleRecipients()) {
             try {
-                boolean hasNext;
-                Pageable page = PageRequest.of(0, 100);
-                do {
-                    Page<ProjectUser> roleProjectUsers = roleService.retrieveRoleProjectUserList(roleName, page);
-                    roleProjectUsers.getContent().forEach(pu -> roleUsers.add(pu.getEmail()));
-                    hasNext = roleProjectUsers.getNumber() < (roleProjectUsers.getTotalPages() - 1);
-                    page = page.next();
-                } while (hasNext);
+                roleUsers.addAll(roleService.retrieveRoleProjectUserEmails(roleName));
             } catch (EntityNotFoundException e) {
                 LOG.error(String
                         .format("Notification should have been sent to %s but that role does not exist anymore. Silently skipping part of the recipients",
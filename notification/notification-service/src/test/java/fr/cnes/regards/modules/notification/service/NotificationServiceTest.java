@@ -36,7 +36,6 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 
 import com.google.common.collect.Sets;
 
@@ -509,10 +508,9 @@ public class NotificationServiceTest {
         expected.add(projectUser1); // Expected from the notif projectUserRecipients attribute
         expected.add(projectUser2); // Expected from the notif roleRecipients attribute via parent role
 
-        PageImpl<ProjectUser> expectedPage = new PageImpl<>(expected);
         // Mock
-        Mockito.when(roleService.retrieveRoleProjectUserList(Mockito.anyString(), Mockito.any(Pageable.class)))
-                .thenReturn(expectedPage);
+        Mockito.when(roleService.retrieveRoleProjectUserEmails(Mockito.anyString()))
+                .thenReturn(expected.stream().map(ProjectUser::getEmail).collect(Collectors.toSet()));
         // Result
         Set<String> actual = notificationService.findRecipients(notification);
 
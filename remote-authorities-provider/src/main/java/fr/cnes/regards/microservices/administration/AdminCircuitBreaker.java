@@ -0,0 +1,201 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.microservices.administration;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import feign.FeignException;
+
+/**
+ * Circuit breaker around the calls to the administration service.<br/>
+ * After a given number of consecutive failures, calls are refused without being sent for a given duration so that
+ * callers can fall back on their local copies at once. A single trial call is then let through : its success closes
+ * the circuit, its failure opens it again.<br/>
+ * Only unavailability is counted as a failure : server errors (5xx), connection errors and timeouts. A client error
+ * (4xx) proves the service answers.
+ *
+ * @author REGARDS Team
+ */
+public class AdminCircuitBreaker {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdminCircuitBreaker.class);
+
+    private final int failureThreshold;
+
+    private final long openDuration;
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    /**
+     * Time until which calls are refused, 0 if circuit is closed
+     */
+    private final AtomicLong openUntil = new AtomicLong();
+
+    /**
+     * @param failureThreshold number of consecutive failures opening the circuit
+     * @param openDuration time in milliseconds during which calls are refused once the circuit is open
+     */
+    public AdminCircuitBreaker(int failureThreshold, long openDuration) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Call the given supplier if the circuit allows it.
+     * @param operation operation name for logs
+     * @param call call to the administration service
+     * @return call result, empty optional if the call was refused, failed or returned null
+     */
+    public <T> Optional<T> call(String operation, Supplier<T> call) {
+        if (!isCallPermitted()) {
+            LOGGER.debug("Administration service circuit is open, {} skipped", operation);
+            return Optional.empty();
+        }
+        try {
+            T result = call.get();
+            onSuccess();
+            return Optional.ofNullable(result);
+        } catch (RuntimeException e) { // NOSONAR
+            onFailure(e);
+            LOGGER.warn("Administration service call failed for {}. Cause : {}", operation, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Call the given supplier if the circuit allows it, for callers without local fallback.
+     * @param operation operation name for logs
+     * @param call call to the administration service
+     * @return call result
+     * @throws IllegalStateException if the call was refused
+     * @throws RuntimeException the call failure
+     */
+    public <T> T callOrThrow(String operation, Supplier<T> call) {
+        if (!isCallPermitted()) {
+            throw new IllegalStateException(
+                    String.format("Administration service circuit is open, %s refused", operation));
+        }
+        try {
+            T result = call.get();
+            onSuccess();
+            return result;
+        } catch (RuntimeException e) { // NOSONAR
+            onFailure(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Check if a call can be sent. When the open duration has elapsed, only the first caller is allowed to try and it
+     * must report the result with {@link #onSuccess()} or {@link #onFailure()}.
+     * @return true if a call can be sent to the administration service
+     */
+    public boolean isCallPermitted() {
+        long until = openUntil.get();
+        if (until == 0) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        // Half open : let a single trial call through
+        return (now >= until) && openUntil.compareAndSet(until, now + openDuration);
+    }
+
+    public void onSuccess() {
+        failures.set(0);
+        if (openUntil.getAndSet(0) != 0) {
+            LOGGER.info("Administration service circuit closed");
+        }
+    }
+
+    /**
+     * Report a failed call : the circuit only counts it if the administration service is unavailable
+     * @param cause call failure
+     */
+    public void onFailure(RuntimeException cause) {
+        if (isUnavailability(cause)) {
+            onFailure();
+        } else {
+            onSuccess();
+        }
+    }
+
+    public void onFailure() {
+        if ((failures.incrementAndGet() >= failureThreshold)
+                && (openUntil.getAndSet(System.currentTimeMillis() + openDuration) == 0)) {
+            LOGGER.warn("Administration service circuit opened after {} consecutive failures", failures.get());
+        }
+    }
+
+    /**
+     * @param cause call failure
+     * @return true if the failure is a server error (5xx), a connection error or a timeout
+     */
+    static boolean isUnavailability(Throwable cause) {
+        if (cause instanceof HttpServerErrorException) {
+            return true;
+        }
+        if (cause instanceof HttpClientErrorException) {
+            return false;
+        }
+        if (cause instanceof FeignException) {
+            // Negative status when no response was received (connection refused, timeout...)
+            int status = ((FeignException) cause).status();
+            if ((status >= 500) || (status < 0)) {
+                return true;
+            }
+            if (status >= 400) {
+                return false;
+            }
+        }
+        for (Throwable current = cause; current != null; current = current.getCause()) {
+            if (current instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if calls are currently refused
+     */
+    public boolean isOpen() {
+        long until = openUntil.get();
+        return (until != 0) && (System.currentTimeMillis() < until);
+    }
+
+    /**
+     * @return time in milliseconds before a call may be sent again, 0 if calls are allowed
+     */
+    public long getRetryDelay() {
+        long until = openUntil.get();
+        return until == 0 ? 0 : Math.max(0, until - System.currentTimeMillis());
+    }
+}
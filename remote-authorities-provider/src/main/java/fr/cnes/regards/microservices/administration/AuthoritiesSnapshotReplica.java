@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.microservices.administration;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+
+import fr.cnes.regards.framework.amqp.ISubscriber;
+import fr.cnes.regards.framework.amqp.domain.IHandler;
+import fr.cnes.regards.framework.amqp.domain.TenantWrapper;
+import fr.cnes.regards.modules.accessrights.domain.projects.AuthoritiesSnapshot;
+import fr.cnes.regards.modules.accessrights.domain.projects.AuthoritiesSnapshot.ResourceEntry;
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourceAccessDeltaEvent;
+import fr.cnes.regards.modules.accessrights.domain.projects.ResourceAccessDeltaEvent.ResourceKey;
+
+/**
+ * Local replica of the {@link AuthoritiesSnapshot} of each tenant and microservice, patched with the received
+ * {@link ResourceAccessDeltaEvent}s.<br/>
+ * A replica is dropped as soon as it cannot be patched safely : a version has been missed (role changes do not carry
+ * any delta) or a granted resource is unknown locally. Replicated snapshots are never modified, a patched copy
+ * replaces them.
+ *
+ * @author REGARDS Team
+ */
+public class AuthoritiesSnapshotReplica
+        implements ApplicationListener<ApplicationReadyEvent>, IHandler<ResourceAccessDeltaEvent> {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuthoritiesSnapshotReplica.class);
+
+    private final ISubscriber subscriber;
+
+    /**
+     * Snapshots by tenant and microservice
+     */
+    private final Map<String, Map<String, AuthoritiesSnapshot>> replicas = new ConcurrentHashMap<>();
+
+    public AuthoritiesSnapshotReplica(ISubscriber subscriber) {
+        this.subscriber = subscriber;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        subscriber.subscribeTo(ResourceAccessDeltaEvent.class, this);
+    }
+
+    @Override
+    public void handle(TenantWrapper<ResourceAccessDeltaEvent> wrapper) {
+        Map<String, AuthoritiesSnapshot> snapshots = replicas.get(wrapper.getTenant());
+        if (snapshots != null) {
+            ResourceAccessDeltaEvent delta = wrapper.getContent();
+            for (String microservice : new ArrayList<>(snapshots.keySet())) {
+                snapshots.computeIfPresent(microservice, (ms, snapshot) -> apply(wrapper.getTenant(), snapshot, delta));
+            }
+        }
+    }
+
+    /**
+     * Keep the given snapshot unless a more recent one is already replicated
+     * @param tenant tenant
+     * @param snapshot snapshot retrieved from administration service
+     */
+    public void put(String tenant, AuthoritiesSnapshot snapshot) {
+        replicas.computeIfAbsent(tenant, t -> new ConcurrentHashMap<>())
+                .merge(snapshot.getMicroservice(), snapshot,
+                       (current, retrieved) -> retrieved.getVersion() >= current.getVersion() ? retrieved : current);
+    }
+
+    /**
+     * @param tenant tenant
+     * @param microservice microservice
+     * @return replicated snapshot if any. Its version must be checked against the administration service one.
+     */
+    public Optional<AuthoritiesSnapshot> get(String tenant, String microservice) {
+        Map<String, AuthoritiesSnapshot> snapshots = replicas.get(tenant);
+        return snapshots == null ? Optional.empty() : Optional.ofNullable(snapshots.get(microservice));
+    }
+
+    /**
+     * @return patched copy of the snapshot, the snapshot itself if delta is outdated or null to drop it
+     */
+    private static AuthoritiesSnapshot apply(String tenant, AuthoritiesSnapshot snapshot,
+            ResourceAccessDeltaEvent delta) {
+        if (delta.getVersion() < snapshot.getVersion()) {
+            // Already included in the snapshot
+            return snapshot;
+        }
+        if (delta.getVersion() > (snapshot.getVersion() + 1)) {
+            LOGGER.debug("Access rights replica of microservice {} for tenant {} dropped : version {} missed",
+                         snapshot.getMicroservice(), tenant, snapshot.getVersion() + 1);
+            return null;
+        }
+        AuthoritiesSnapshot patched = new AuthoritiesSnapshot(snapshot.getMicroservice(), delta.getVersion());
+        patched.setRoles(snapshot.getRoles());
+        if (!snapshot.getMicroservice().equals(delta.getMicroservice())) {
+            patched.setResources(snapshot.getResources());
+            return patched;
+        }
+        String roleName = delta.getRoleName();
+        if (snapshot.getRoles().stream().noneMatch(role -> role.getName().equals(roleName))) {
+            LOGGER.debug("Access rights replica of microservice {} for tenant {} dropped : unknown role {}",
+                         snapshot.getMicroservice(), tenant, roleName);
+            return null;
+        }
+        Set<ResourceKey> added = new HashSet<>(delta.getAdded());
+        Set<ResourceKey> removed = new HashSet<>(delta.getRemoved());
+        int found = 0;
+        List<ResourceEntry> resources = new ArrayList<>(snapshot.getResources().size());
+        for (ResourceEntry entry : snapshot.getResources()) {
+            ResourceKey key = new ResourceKey(entry.getVerb(), entry.getResource());
+            boolean granted = entry.getRoles().contains(roleName);
+            if (added.contains(key)) {
+                found++;
+                resources.add(granted ? entry : copy(entry, roleName, true));
+            } else if (removed.contains(key) && granted) {
+                resources.add(copy(entry, roleName, false));
+            } else {
+                resources.add(entry);
+            }
+        }
+        if (found < added.size()) {
+            LOGGER.debug("Access rights replica of microservice {} for tenant {} dropped : unknown granted resource",
+                         snapshot.getMicroservice(), tenant);
+            return null;
+        }
+        patched.setResources(resources);
+        LOGGER.debug("Access rights replica of microservice {} for tenant {} patched to version {}",
+                     snapshot.getMicroservice(), tenant, delta.getVersion());
+        return patched;
+    }
+
+    private static ResourceEntry copy(ResourceEntry entry, String roleName, boolean granted) {
+        ResourceEntry copy = new ResourceEntry();
+        copy.setResource(entry.getResource());
+        copy.setVerb(entry.getVerb());
+        copy.setControllerSimpleName(entry.getControllerSimpleName());
+        copy.setDescription(entry.getDescription());
+        List<String> roles = new ArrayList<>(entry.getRoles());
+        if (granted) {
+            roles.add(roleName);
+        } else {
+            roles.remove(roleName);
+        }
+        copy.setRoles(roles);
+        return copy;
+    }
+}
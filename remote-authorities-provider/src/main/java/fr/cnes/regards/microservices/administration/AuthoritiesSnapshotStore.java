@@ -0,0 +1,273 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.microservices.administration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.io.BaseEncoding;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import fr.cnes.regards.modules.accessrights.domain.projects.AuthoritiesSnapshot;
+
+/**
+ * File store of the last known good {@link AuthoritiesSnapshot} of each tenant and microservice, so that a restarted
+ * microservice can serve its access rights while the administration service is unavailable.<br/>
+ * The store is disabled unless a directory is configured. This directory and its tenant sub directories are restricted
+ * to the owner of the process, the store is disabled if it cannot restrict them. Each file starts with a digest of its
+ * content (HMAC-SHA256 if a secret is configured, SHA-256 otherwise) and is ignored if the digest does not match.<br/>
+ * Files are replaced atomically. Storage failures are only logged : the store is a fallback.
+ *
+ * @author REGARDS Team
+ */
+public class AuthoritiesSnapshotStore {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuthoritiesSnapshotStore.class);
+
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    /**
+     * Store directory, null if the store is disabled
+     */
+    private final Path directory;
+
+    /**
+     * HMAC key, null to use a plain checksum
+     */
+    private final byte[] secret;
+
+    private final Gson gson = new Gson();
+
+    /**
+     * @param directory directory holding one sub directory by tenant, null to disable the store
+     * @param secret secret used to sign stored files, null or empty to only checksum them
+     */
+    public AuthoritiesSnapshotStore(Path directory, String secret) {
+        this.directory = prepare(directory);
+        this.secret = (secret == null) || secret.isEmpty() ? null : secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return whether snapshots are stored
+     */
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Persist the given snapshot, replacing the previous one of the same tenant and microservice
+     * @param tenant tenant
+     * @param snapshot snapshot retrieved from administration service
+     */
+    public void save(String tenant, AuthoritiesSnapshot snapshot) {
+        if (!isEnabled()) {
+            return;
+        }
+        Path file = getFile(tenant, snapshot.getMicroservice());
+        try {
+            createOwnerOnlyDirectory(file.getParent());
+            byte[] content = gson.toJson(snapshot).getBytes(StandardCharsets.UTF_8);
+            byte[] header = (BaseEncoding.base16().lowerCase().encode(digest(content)) + "\n")
+                    .getBytes(StandardCharsets.UTF_8);
+            // Temporary files are only readable and writable by their owner
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            byte[] data = Arrays.copyOf(header, header.length + content.length);
+            System.arraycopy(content, 0, data, header.length, content.length);
+            Files.write(tmp, data);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.debug("Access rights snapshot of microservice {} for tenant {} stored (version {})",
+                         snapshot.getMicroservice(), tenant, snapshot.getVersion());
+        } catch (IOException | GeneralSecurityException | RuntimeException e) { // NOSONAR
+            LOGGER.warn("Unable to store access rights snapshot of microservice {} for tenant {}. Cause : {}",
+                        snapshot.getMicroservice(), tenant, e.getMessage());
+        }
+    }
+
+    /**
+     * Record that the stored snapshot has just been checked against administration service
+     * @param tenant tenant
+     * @param microservice microservice
+     */
+    public void touch(String tenant, String microservice) {
+        if (!isEnabled()) {
+            return;
+        }
+        Path file = getFile(tenant, microservice);
+        try {
+            if (Files.isRegularFile(file)) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Unable to touch access rights snapshot of microservice {} for tenant {}. Cause : {}",
+                         microservice, tenant, e.getMessage());
+        }
+    }
+
+    /**
+     * @param tenant tenant
+     * @param microservice microservice
+     * @return stored snapshot if any and intact
+     */
+    public Optional<StoredSnapshot> load(String tenant, String microservice) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        Path file = getFile(tenant, microservice);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try {
+            byte[] data = Files.readAllBytes(file);
+            int newLine = 0;
+            while ((newLine < data.length) && (data[newLine] != '\n')) {
+                newLine++;
+            }
+            byte[] content = Arrays.copyOfRange(data, Math.min(newLine + 1, data.length), data.length);
+            byte[] expected = BaseEncoding.base16().lowerCase()
+                    .decode(new String(data, 0, newLine, StandardCharsets.UTF_8));
+            if (!MessageDigest.isEqual(expected, digest(content))) {
+                LOGGER.warn("Access rights snapshot of microservice {} for tenant {} ignored : digest mismatch",
+                            microservice, tenant);
+                return Optional.empty();
+            }
+            AuthoritiesSnapshot snapshot = gson.fromJson(new String(content, StandardCharsets.UTF_8),
+                                                         AuthoritiesSnapshot.class);
+            if ((snapshot != null) && microservice.equals(snapshot.getMicroservice())) {
+                return Optional.of(new StoredSnapshot(snapshot, Files.getLastModifiedTime(file).toMillis()));
+            }
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException | JsonParseException e) {
+            LOGGER.warn("Unable to load access rights snapshot of microservice {} for tenant {}. Cause : {}",
+                        microservice, tenant, e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    private byte[] digest(byte[] content) throws GeneralSecurityException {
+        if (secret == null) {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        }
+        Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+        mac.init(new SecretKeySpec(secret, HMAC_ALGORITHM));
+        return mac.doFinal(content);
+    }
+
+    /**
+     * @return the given directory once restricted to its owner, null if it is not configured or cannot be restricted
+     */
+    private static Path prepare(Path directory) {
+        if (directory == null) {
+            LOGGER.info("No access rights snapshot directory configured, last known good snapshots are not stored");
+            return null;
+        }
+        try {
+            createOwnerOnlyDirectory(directory);
+            LOGGER.info("Last known good access rights snapshots stored in {}", directory);
+            return directory;
+        } catch (IOException | RuntimeException e) { // NOSONAR
+            LOGGER.error("Access rights snapshot directory {} cannot be restricted to its owner, snapshots are not "
+                    + "stored. Cause : {}", directory, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Create the given directory if needed and restrict it to its owner. Fails if it belongs to another user.
+     */
+    private static void createOwnerOnlyDirectory(Path dir) throws IOException {
+        boolean posix = Files.getFileStore(Files.exists(dir) ? dir : existingAncestor(dir))
+                .supportsFileAttributeView(PosixFileAttributeView.class);
+        if (!Files.isDirectory(dir)) {
+            if (posix) {
+                Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+            } else {
+                Files.createDirectories(dir);
+            }
+        }
+        if (posix && !OWNER_ONLY.equals(Files.getPosixFilePermissions(dir))) {
+            // Only the owner can change permissions
+            Files.setPosixFilePermissions(dir, OWNER_ONLY);
+        }
+    }
+
+    private static Path existingAncestor(Path path) {
+        Path existing = path.toAbsolutePath();
+        while ((existing != null) && !Files.exists(existing)) {
+            existing = existing.getParent();
+        }
+        return existing;
+    }
+
+    private Path getFile(String tenant, String microservice) {
+        return directory.resolve(sanitize(tenant)).resolve(sanitize(microservice) + ".json");
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    /**
+     * Stored snapshot with the time it was retrieved from administration service
+     */
+    public static class StoredSnapshot {
+
+        private final AuthoritiesSnapshot snapshot;
+
+        private final long timestamp;
+
+        StoredSnapshot(AuthoritiesSnapshot snapshot, long timestamp) {
+            this.snapshot = snapshot;
+            this.timestamp = timestamp;
+        }
+
+        public AuthoritiesSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        /**
+         * @return time in milliseconds the snapshot was retrieved from administration service
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+}
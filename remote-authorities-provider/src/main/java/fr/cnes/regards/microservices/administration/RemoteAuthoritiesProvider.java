@@ -22,21 +22,32 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import javax.annotation.PreDestroy;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 
 import com.google.common.collect.Sets;
 
+import fr.cnes.regards.framework.authentication.IAuthenticationResolver;
 import fr.cnes.regards.framework.feign.security.FeignSecurityManager;
 import fr.cnes.regards.framework.hateoas.HateoasUtils;
 import fr.cnes.regards.framework.module.rest.exception.EntityNotFoundException;
@@ -46,11 +57,19 @@ import fr.cnes.regards.framework.security.domain.ResourceMapping;
 import fr.cnes.regards.framework.security.domain.SecurityException;
 import fr.cnes.regards.framework.security.endpoint.IAuthoritiesProvider;
 import fr.cnes.regards.framework.security.utils.endpoint.RoleAuthority;
+import fr.cnes.regards.microservices.administration.AuthoritiesSnapshotStore.StoredSnapshot;
 import fr.cnes.regards.modules.accessrights.client.IMicroserviceResourceClient;
 import fr.cnes.regards.modules.accessrights.client.IRoleResourceClient;
 import fr.cnes.regards.modules.accessrights.client.IRolesClient;
+import fr.cnes.regards.modules.accessrights.domain.projects.AuthoritiesSnapshot;
+import fr.cnes.regards.modules.accessrights.domain.projects.AuthoritiesSnapshot.ResourceEntry;
+import fr.cnes.regards.modules.accessrights.domain.projects.AuthoritiesSnapshot.RoleEntry;
 import fr.cnes.regards.modules.accessrights.domain.projects.ResourcesAccess;
 import fr.cnes.regards.modules.accessrights.domain.projects.Role;
+import fr.cnes.regards.modules.accessrights.domain.projects.RoleHierarchy;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  *
@@ -69,6 +88,17 @@ public class RemoteAuthoritiesProvider extends AbstractProjectDiscoveryClientChe
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(RemoteAuthoritiesProvider.class);
 
+    /**
+     * Maximum time a snapshot retrieved with role authorities is used for the following resource mappings, so that an
+     * isolated later role refresh never relies on outdated access rights.
+     */
+    private static final long PENDING_SNAPSHOT_TTL_MS = 30_000L;
+
+    /**
+     * Name of the current microservice
+     */
+    private final String applicationName;
+
     /**
      * Administration microservice REST client
      */
@@ -86,22 +116,113 @@ public class RemoteAuthoritiesProvider extends AbstractProjectDiscoveryClientChe
      */
     private final IRuntimeTenantResolver runtimeTenantResolver;
 
+    /**
+     * Snapshots retrieved while computing role authorities, kept for the following resource mappings computation of
+     * each role. Key is built from tenant and microservice.
+     */
+    private final Map<String, PendingSnapshot> pendingSnapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Last known access rights version by tenant and microservice
+     */
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+    /**
+     * Local replica of role hierarchies
+     */
+    private final RoleHierarchyReplica roleHierarchyReplica;
+
+    /**
+     * Local replica of access rights snapshots patched with received deltas
+     */
+    private final AuthoritiesSnapshotReplica snapshotReplica;
+
+    /**
+     * Authentication resolver
+     */
+    private final IAuthenticationResolver authResolver;
+
+    /**
+     * Circuit breaker around administration service calls
+     */
+    private final AdminCircuitBreaker circuitBreaker;
+
+    /**
+     * Persisted last known good snapshots
+     */
+    private final AuthoritiesSnapshotStore snapshotStore;
+
+    /**
+     * Maximum age in milliseconds of a last known good snapshot served while administration service is unavailable
+     */
+    private final long maxStaleAge;
+
+    /**
+     * Optional meter registry (may be null)
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * Time of the last check of each replica against administration service. Key is built from tenant and
+     * microservice.
+     */
+    private final Map<String, Long> validationTimes = new ConcurrentHashMap<>();
+
+    /**
+     * Keys of the replicas being revalidated in background
+     */
+    private final Set<String> revalidations = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService revalidationExecutor = Executors
+            .newSingleThreadScheduledExecutor(revalidationThreadFactory());
+
     /**
      *
      * Constructor
      *
+     * @param applicationName
+     *            name of the current microservice
      * @param pRolesClient
      *            Feign client to query administration service for roles
      * @param pResourcesclient
      *            Feign client to query administration service for resources
      * @param runtimeTenantResolver
      *            runtime tenant resolver
+     * @param roleHierarchyReplica
+     *            local replica of role hierarchies
+     * @param authResolver
+     *            authentication resolver
+     * @param snapshotReplica
+     *            local replica of access rights snapshots
+     * @param circuitBreaker
+     *            circuit breaker around administration service calls
+     * @param snapshotStore
+     *            persisted last known good snapshots
+     * @param maxStaleAge
+     *            maximum age in milliseconds of a snapshot served while administration service is unavailable
+     * @param registry
+     *            meter registry for snapshot age metrics (may be null)
 
      */
-    public RemoteAuthoritiesProvider(final DiscoveryClient discoveryClient,
+    public RemoteAuthoritiesProvider(final DiscoveryClient discoveryClient, final String applicationName,
             final IMicroserviceResourceClient pResourcesclient, final IRolesClient pRolesClient,
-            final IRuntimeTenantResolver runtimeTenantResolver, final IRoleResourceClient pRoleResourceClient) {
+            final IRuntimeTenantResolver runtimeTenantResolver, final IRoleResourceClient pRoleResourceClient,
+            final RoleHierarchyReplica roleHierarchyReplica, final IAuthenticationResolver authResolver,
+            final AuthoritiesSnapshotReplica snapshotReplica, final AdminCircuitBreaker circuitBreaker,
+            final AuthoritiesSnapshotStore snapshotStore, final long maxStaleAge, final MeterRegistry registry) {
         super(discoveryClient);
+        this.applicationName = applicationName;
+        this.roleHierarchyReplica = roleHierarchyReplica;
+        this.snapshotReplica = snapshotReplica;
+        this.authResolver = authResolver;
+        this.circuitBreaker = circuitBreaker;
+        this.snapshotStore = snapshotStore;
+        this.maxStaleAge = maxStaleAge;
+        this.registry = registry;
+        if (registry != null) {
+            Gauge.builder("regards.authorities.circuit.open", circuitBreaker, breaker -> breaker.isOpen() ? 1 : 0)
+                    .description("1 if administration service calls are refused, 0 otherwise").register(registry);
+        }
         resourcesClient = pResourcesclient;
         roleClient = pRolesClient;
         roleResourceClient = pRoleResourceClient;
@@ -136,14 +257,52 @@ public class RemoteAuthoritiesProvider extends AbstractProjectDiscoveryClientChe
 
     @Override
     public boolean shouldAccessToResourceRequiring(String roleName) {
+        // Answer locally with the replicated role hierarchy if available
+        String tenant = runtimeTenantResolver.getTenant();
+        String currentRole = authResolver.getRole();
+        if ((tenant != null) && (currentRole != null)) {
+            Optional<RoleHierarchy> hierarchy = roleHierarchyReplica
+                    .get(tenant, getAccessRightsVersion(applicationName, tenant));
+            if (!hierarchy.isPresent()) {
+                // Retrieve the access rights of the current microservice, which also replicates the hierarchy
+                try {
+                    hierarchy = retrieveSnapshot(applicationName, tenant).map(RoleHierarchyReplica::toHierarchy);
+                } finally {
+                    FeignSecurityManager.reset();
+                }
+            }
+            if (!hierarchy.isPresent()) {
+                // Administration service unavailable : use the roles of the last known good snapshot
+                hierarchy = getLastKnownGood(applicationName, tenant).map(RoleHierarchyReplica::toHierarchy);
+                if (!hierarchy.isPresent() && validationTimes.containsKey(getKey(applicationName, tenant))) {
+                    // Too old to be used, already logged
+                    LOGGER.debug("Access to resources requiring role {} denied for tenant {}", roleName, tenant);
+                    return false;
+                }
+            }
+            if (hierarchy.isPresent()) {
+                return shouldAccessToResourceRequiring(hierarchy.get(), currentRole, roleName);
+            }
+        }
+        if (!circuitBreaker.isCallPermitted()) {
+            // No local copy and administration service considered unavailable : deny
+            LOGGER.warn("Administration service unavailable and no local role hierarchy for tenant {}, access to "
+                    + "resources requiring role {} denied", tenant, roleName);
+            return false;
+        }
         ResponseEntity<Boolean> response;
         try {
             response = roleClient.shouldAccessToResourceRequiring(roleName);
+            circuitBreaker.onSuccess();
             if ((response != null) && response.hasBody()) {
                 return response.getBody();
             }
         } catch (EntityNotFoundException e) {
             // Nothing  to do. Role does not exists so acccess is denied
+            circuitBreaker.onSuccess();
+        } catch (RuntimeException e) { // NOSONAR
+            circuitBreaker.onFailure(e);
+            throw e;
         }
         return false;
 
@@ -158,8 +317,24 @@ public class RemoteAuthoritiesProvider extends AbstractProjectDiscoveryClientChe
 
         final List<RoleAuthority> roleAuths = new ArrayList<>();
 
+        // Retrieve all access rights at once and keep them for the following resource mappings computation
+        Optional<AuthoritiesSnapshot> snapshot = retrieveSnapshot(microserviceName, tenant);
+        if (!snapshot.isPresent()) {
+            snapshot = getLastKnownGood(microserviceName, tenant);
+        }
+        if (snapshot.isPresent()) {
+            pendingSnapshots.put(getKey(microserviceName, tenant), new PendingSnapshot(snapshot.get()));
+            for (RoleEntry role : snapshot.get().getRoles()) {
+                RoleAuthority roleAuth = new RoleAuthority(role.getName());
+                roleAuth.setAuthorizedIpAdresses(role.getAuthorizedAddresses());
+                roleAuths.add(roleAuth);
+            }
+            return roleAuths;
+        }
+
         FeignSecurityManager.asSystem();
-        final ResponseEntity<List<EntityModel<Role>>> result = roleClient.getAllRoles();
+        final ResponseEntity<List<EntityModel<Role>>> result = circuitBreaker.callOrThrow("roles retrieval",
+                                                                                         roleClient::getAllRoles);
 
         if (result.getStatusCode().equals(HttpStatus.OK)) {
             final List<EntityModel<Role>> body = result.getBody();
@@ -176,10 +351,32 @@ public class RemoteAuthoritiesProvider extends AbstractProjectDiscoveryClientChe
     @Override
     public Set<ResourceMapping> getResourceMappings(String microserviceName, String tenant, String roleName) {
         runtimeTenantResolver.forceTenant(tenant);
+        // Use the snapshot retrieved with the role authorities if not already used for this role
+        String key = getKey(microserviceName, tenant);
+        PendingSnapshot pending = pendingSnapshots.get(key);
+        Optional<AuthoritiesSnapshot> snapshot;
+        if ((pending != null) && !pending.isExpired() && pending.consume(roleName)) {
+            snapshot = Optional.of(pending.snapshot);
+            if (pending.isConsumed()) {
+                pendingSnapshots.remove(key, pending);
+            }
+        } else {
+            // Use the local replica if it is up to date, retrieve all access rights again otherwise
+            snapshot = getUpToDateReplica(microserviceName, tenant);
+            if (!snapshot.isPresent()) {
+                snapshot = retrieveSnapshot(microserviceName, tenant);
+            }
+            if (!snapshot.isPresent()) {
+                snapshot = getLastKnownGood(microserviceName, tenant);
+            }
+        }
+        if (snapshot.isPresent()) {
+            return getResourceMappings(snapshot.get(), roleName);
+        }
         // lets get the role from distant admin
         FeignSecurityManager.asSystem();
-        ResponseEntity<List<EntityModel<ResourcesAccess>>> resourcesResponse = roleResourceClient
-                .getRoleResources(roleName);
+        ResponseEntity<List<EntityModel<ResourcesAccess>>> resourcesResponse = circuitBreaker
+                .callOrThrow("role resources retrieval", () -> roleResourceClient.getRoleResources(roleName));
         if (resourcesResponse.getStatusCode().equals(HttpStatus.OK)) {
             final List<EntityModel<ResourcesAccess>> body = resourcesResponse.getBody();
             final List<ResourcesAccess> resources = HateoasUtils.unwrapList(body);
@@ -192,6 +389,183 @@ public class RemoteAuthoritiesProvider extends AbstractProjectDiscoveryClientChe
         return Sets.newHashSet();
     }
 
+    /**
+     * Stop background revalidations
+     */
+    @PreDestroy
+    public void destroy() {
+        revalidationExecutor.shutdownNow();
+    }
+
+    /**
+     * Same rules as administration service : current role must exist and be the required role or be hierarchically
+     * superior to it. Unknown required role is never accessible. Admin roles always exist, even if missing from the
+     * replicated roles.
+     */
+    private static boolean shouldAccessToResourceRequiring(RoleHierarchy hierarchy, String currentRole,
+            String roleName) {
+        if (!exists(hierarchy, currentRole) || !exists(hierarchy, roleName)) {
+            return false;
+        }
+        return currentRole.equals(roleName) || hierarchy.isHierarchicallyInferior(roleName, currentRole);
+    }
+
+    private static boolean exists(RoleHierarchy hierarchy, String roleName) {
+        return RoleAuthority.isInstanceAdminRole(roleName) || RoleAuthority.isProjectAdminRole(roleName)
+                || hierarchy.contains(roleName);
+    }
+
+    /**
+     * @return last known access rights version for the given microservice and tenant, -1 if unknown
+     */
+    public long getAccessRightsVersion(String microserviceName, String tenant) {
+        return versions.getOrDefault(getKey(microserviceName, tenant), -1L);
+    }
+
+    private static String getKey(String microserviceName, String tenant) {
+        return tenant + ":" + microserviceName;
+    }
+
+    /**
+     * Retrieve all access rights of a microservice with one request.
+     * @return {@link AuthoritiesSnapshot} or empty optional if administration service cannot provide it
+     */
+    private Optional<AuthoritiesSnapshot> retrieveSnapshot(String microserviceName, String tenant) {
+        long generation = roleHierarchyReplica.getGeneration(tenant);
+        FeignSecurityManager.asSystem();
+        Optional<ResponseEntity<AuthoritiesSnapshot>> response = circuitBreaker
+                .call("access rights snapshot retrieval",
+                      () -> resourcesClient.retrieveAuthoritiesSnapshot(microserviceName));
+        if (response.isPresent() && response.get().getStatusCode().equals(HttpStatus.OK)
+                && (response.get().getBody() != null)) {
+            AuthoritiesSnapshot snapshot = response.get().getBody();
+            versions.put(getKey(microserviceName, tenant), snapshot.getVersion());
+            snapshotReplica.put(tenant, snapshot);
+            roleHierarchyReplica.put(tenant, snapshot, generation);
+            snapshotStore.save(tenant, snapshot);
+            markValidated(microserviceName, tenant, System.currentTimeMillis());
+            LOGGER.debug("Access rights snapshot retrieved for tenant {} (version {})", tenant,
+                         snapshot.getVersion());
+            return Optional.of(snapshot);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Serve the last known good snapshot, from the local replica or the persisted store, while administration service
+     * is unavailable. A background retrieval is scheduled to replace it as soon as possible.
+     * @return last known good {@link AuthoritiesSnapshot} or empty optional if missing or too old
+     */
+    private Optional<AuthoritiesSnapshot> getLastKnownGood(String microserviceName, String tenant) {
+        String key = getKey(microserviceName, tenant);
+        Optional<AuthoritiesSnapshot> snapshot = snapshotReplica.get(tenant, microserviceName);
+        if (!snapshot.isPresent()) {
+            Optional<StoredSnapshot> stored = snapshotStore.load(tenant, microserviceName);
+            if (stored.isPresent()) {
+                snapshotReplica.put(tenant, stored.get().getSnapshot());
+                markValidated(microserviceName, tenant, stored.get().getTimestamp());
+                snapshot = Optional.of(stored.get().getSnapshot());
+            }
+        }
+        if (!snapshot.isPresent()) {
+            LOGGER.warn("No access rights snapshot available for tenant {}, falling back to role by role retrieval",
+                        tenant);
+            return snapshot;
+        }
+        long age = System.currentTimeMillis() - validationTimes.getOrDefault(key, 0L);
+        if (age > maxStaleAge) {
+            LOGGER.warn("Last known access rights snapshot of tenant {} is too old to be used ({} ms)", tenant, age);
+            return Optional.empty();
+        }
+        versions.put(key, snapshot.get().getVersion());
+        if (registry != null) {
+            registry.counter("regards.authorities.snapshot.stale", "tenant", tenant, "microservice", microserviceName)
+                    .increment();
+        }
+        if (scheduleRevalidation(microserviceName, tenant)) {
+            // Logged once per revalidation as this is also used for each role hierarchy check
+            LOGGER.warn("Administration service unavailable, last known access rights of tenant {} used (version {}, "
+                    + "{} ms old)", tenant, snapshot.get().getVersion(), age);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Retrieve the snapshot again in background once administration service may be called again
+     * @return true if scheduled, false if a revalidation is already pending
+     */
+    private boolean scheduleRevalidation(String microserviceName, String tenant) {
+        String key = getKey(microserviceName, tenant);
+        if (revalidations.add(key)) {
+            revalidationExecutor.schedule(() -> {
+                try {
+                    runtimeTenantResolver.forceTenant(tenant);
+                    retrieveSnapshot(microserviceName, tenant);
+                } finally {
+                    runtimeTenantResolver.clearTenant();
+                    FeignSecurityManager.reset();
+                    revalidations.remove(key);
+                }
+            }, circuitBreaker.getRetryDelay(), TimeUnit.MILLISECONDS);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Record the time a replica was last checked against administration service
+     */
+    private void markValidated(String microserviceName, String tenant, long time) {
+        String key = getKey(microserviceName, tenant);
+        if ((validationTimes.put(key, time) == null) && (registry != null)) {
+            Gauge.builder("regards.authorities.snapshot.age", validationTimes,
+                          times -> (System.currentTimeMillis() - times.getOrDefault(key, 0L)) / 1000d)
+                    .tags("tenant", tenant, "microservice", microserviceName).baseUnit("seconds")
+                    .description("Time since the access rights snapshot was last checked against administration "
+                            + "service")
+                    .register(registry);
+        }
+    }
+
+    private static ThreadFactory revalidationThreadFactory() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("authorities-revalidation-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    /**
+     * Check the local replica against the current access rights version of administration service.
+     * @return replicated {@link AuthoritiesSnapshot} or empty optional if missing or outdated
+     */
+    private Optional<AuthoritiesSnapshot> getUpToDateReplica(String microserviceName, String tenant) {
+        Optional<AuthoritiesSnapshot> replica = snapshotReplica.get(tenant, microserviceName);
+        if (!replica.isPresent()) {
+            return replica;
+        }
+        FeignSecurityManager.asSystem();
+        Optional<ResponseEntity<Long>> response = circuitBreaker.call("access rights version check",
+                () -> resourcesClient.retrieveAuthoritiesVersion(microserviceName));
+        if (response.isPresent() && response.get().getStatusCode().equals(HttpStatus.OK)
+                && (response.get().getBody() != null) && (response.get().getBody() == replica.get().getVersion())) {
+            versions.put(getKey(microserviceName, tenant), replica.get().getVersion());
+            markValidated(microserviceName, tenant, System.currentTimeMillis());
+            snapshotStore.touch(tenant, microserviceName);
+            LOGGER.debug("Access rights replica used for tenant {} (version {})", tenant, replica.get().getVersion());
+            return replica;
+        }
+        return Optional.empty();
+    }
+
+    private Set<ResourceMapping> getResourceMappings(AuthoritiesSnapshot snapshot, String roleName) {
+        if (snapshot.getRoles().stream().noneMatch(role -> role.getName().equals(roleName))) {
+            LOGGER.warn("Role {} seems to have been deleted. We are skipping the resource update", roleName);
+            return Sets.newHashSet();
+        }
+        Collection<Role> roles = Collections.singleton(new Role(roleName));
+        return snapshot.getResources().stream().filter(resource -> resource.getRoles().contains(roleName))
+                .map(resource -> buildResourceMapping(resource, roles)).collect(Collectors.toSet());
+    }
+
     /**
      *
      * Create a {@link RoleAuthority} from a {@link Role}
@@ -215,4 +589,45 @@ public class RemoteAuthoritiesProvider extends AbstractProjectDiscoveryClientChe
                 .collect(Collectors.toList()));
         return mapping;
     }
+
+    private ResourceMapping buildResourceMapping(final ResourceEntry entry, final Collection<Role> pRoles) {
+        final ResourceMapping mapping = new ResourceMapping(
+                ResourceAccessAdapter.createResourceAccess(entry.getDescription(), null), entry.getResource(),
+                entry.getControllerSimpleName(), RequestMethod.valueOf(entry.getVerb().toString()));
+        mapping.setAutorizedRoles(pRoles.stream().map(role -> new RoleAuthority(role.getName()))
+                .collect(Collectors.toList()));
+        return mapping;
+    }
+
+    /**
+     * Snapshot waiting to be used for the resource mappings of each of its roles
+     */
+    private static class PendingSnapshot {
+
+        private final AuthoritiesSnapshot snapshot;
+
+        private final Set<String> pendingRoles = ConcurrentHashMap.newKeySet();
+
+        private final long creationTime = System.currentTimeMillis();
+
+        PendingSnapshot(AuthoritiesSnapshot snapshot) {
+            this.snapshot = snapshot;
+            snapshot.getRoles().forEach(role -> pendingRoles.add(role.getName()));
+        }
+
+        /**
+         * @return true if the snapshot has not been used yet for the given role
+         */
+        boolean consume(String roleName) {
+            return pendingRoles.remove(roleName);
+        }
+
+        boolean isConsumed() {
+            return pendingRoles.isEmpty();
+        }
+
+        boolean isExpired() {
+            return (System.currentTimeMillis() - creationTime) > PENDING_SNAPSHOT_TTL_MS;
+        }
+    }
 }
@@ -1,5 +1,10 @@
 package fr.cnes.regards.microservices.administration;
 
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
@@ -8,12 +13,16 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 
+import fr.cnes.regards.framework.amqp.ISubscriber;
+import fr.cnes.regards.framework.authentication.IAuthenticationResolver;
 import fr.cnes.regards.framework.multitenant.IRuntimeTenantResolver;
 import fr.cnes.regards.framework.security.endpoint.IAuthoritiesProvider;
 import fr.cnes.regards.modules.accessrights.client.IMicroserviceResourceClient;
 import fr.cnes.regards.modules.accessrights.client.IRoleResourceClient;
 import fr.cnes.regards.modules.accessrights.client.IRolesClient;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * @author Sylvain VISSIERE-GUERINET
  */
@@ -28,10 +37,16 @@ public class RemoteAuthoritiesProviderAutoConfiguration {
      * Authorities provider by accessing administration microservice with Feign rest clients.
      * Set as primary bean to override default one from security-regards-starter
      *
+     * @param applicationName
+     *            name of the current microservice
      * @param rolesClient
      *            Feign client to query administration service for roles
      * @param resourcesClient
      *            Feign client to query administration service for resources
+     * @param directory
+     *            service owned directory of last known good snapshots, snapshots are not stored if empty
+     * @param secret
+     *            secret used to sign stored snapshots, only checksummed if empty
      * @return IAuthoritiesProvider
     
      */
@@ -39,10 +54,57 @@ public class RemoteAuthoritiesProviderAutoConfiguration {
     @Primary
     @ConditionalOnProperty(name = "regards.eureka.client.enabled", havingValue = "true", matchIfMissing = true)
     public IAuthoritiesProvider authoritiesProvider(final DiscoveryClient discoveryClient,
+            @Value("${spring.application.name}") String applicationName,
             final IMicroserviceResourceClient resourcesClient, final IRolesClient rolesClient,
-            final IRuntimeTenantResolver runtimeTenantResolver, final IRoleResourceClient pRoleResourceClient) {
-        return new RemoteAuthoritiesProvider(discoveryClient, resourcesClient, rolesClient, runtimeTenantResolver,
-                pRoleResourceClient);
+            final IRuntimeTenantResolver runtimeTenantResolver, final IRoleResourceClient pRoleResourceClient,
+            final RoleHierarchyReplica roleHierarchyReplica, final IAuthenticationResolver authResolver,
+            final AuthoritiesSnapshotReplica snapshotReplica, final AdminCircuitBreaker adminCircuitBreaker,
+            @Value("${regards.authorities.snapshot.directory:}") String directory,
+            @Value("${regards.authorities.snapshot.secret:}") String secret,
+            @Value("${regards.authorities.snapshot.max-stale-age:86400000}") long maxStaleAge,
+            final ObjectProvider<MeterRegistry> registry) {
+        return new RemoteAuthoritiesProvider(discoveryClient, applicationName, resourcesClient, rolesClient, runtimeTenantResolver,
+                pRoleResourceClient, roleHierarchyReplica, authResolver, snapshotReplica, adminCircuitBreaker,
+                new AuthoritiesSnapshotStore(directory.isEmpty() ? null : Paths.get(directory), secret), maxStaleAge,
+                registry.getIfAvailable());
+    }
+
+    /**
+     * Circuit breaker shared by all calls to the administration service
+     * @param failureThreshold number of consecutive failures opening the circuit
+     * @param openDuration time in milliseconds during which calls are refused once the circuit is open
+     * @return {@link AdminCircuitBreaker}
+     */
+    @Bean
+    @ConditionalOnProperty(name = "regards.eureka.client.enabled", havingValue = "true", matchIfMissing = true)
+    public AdminCircuitBreaker adminCircuitBreaker(
+            @Value("${regards.authorities.circuit-breaker.failure-threshold:3}") int failureThreshold,
+            @Value("${regards.authorities.circuit-breaker.open-duration:30000}") long openDuration) {
+        return new AdminCircuitBreaker(failureThreshold, openDuration);
+    }
+
+    /**
+     * Local replica of the role hierarchy of each tenant used to check role hierarchy without remote calls
+     * @param subscriber AMQP subscriber
+     * @param timeToLive time to live in seconds of a replica, same as the access rights client caches one
+     * @return {@link RoleHierarchyReplica}
+     */
+    @Bean
+    @ConditionalOnProperty(name = "regards.eureka.client.enabled", havingValue = "true", matchIfMissing = true)
+    public RoleHierarchyReplica roleHierarchyReplica(final ISubscriber subscriber,
+            @Value("${regards.accessrights.client.cache.time-to-live:3600}") long timeToLive) {
+        return new RoleHierarchyReplica(subscriber, TimeUnit.SECONDS.toMillis(timeToLive));
+    }
+
+    /**
+     * Local replica of the access rights of each tenant and microservice patched with received deltas
+     * @param subscriber AMQP subscriber
+     * @return {@link AuthoritiesSnapshotReplica}
+     */
+    @Bean
+    @ConditionalOnProperty(name = "regards.eureka.client.enabled", havingValue = "true", matchIfMissing = true)
+    public AuthoritiesSnapshotReplica authoritiesSnapshotReplica(final ISubscriber subscriber) {
+        return new AuthoritiesSnapshotReplica(subscriber);
     }
 
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017-2020 CNES - CENTRE NATIONAL d'ETUDES SPATIALES
+ *
+ * This file is part of REGARDS.
+ *
+ * REGARDS is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * REGARDS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with REGARDS. If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.cnes.regards.microservices.administration;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+
+import fr.cnes.regards.framework.amqp.ISubscriber;
+import fr.cnes.regards.framework.amqp.domain.IHandler;
+import fr.cnes.regards.framework.amqp.domain.TenantWrapper;
+import fr.cnes.regards.framework.security.event.RoleEvent;
+import fr.cnes.regards.modules.accessrights.domain.projects.AuthoritiesSnapshot;
+import fr.cnes.regards.modules.accessrights.domain.projects.AuthoritiesSnapshot.RoleEntry;
+import fr.cnes.regards.modules.accessrights.domain.projects.Role;
+import fr.cnes.regards.modules.accessrights.domain.projects.RoleHierarchy;
+
+/**
+ * Local replica of the {@link RoleHierarchy} of each tenant, built from the roles of the {@link AuthoritiesSnapshot}s
+ * retrieved from the administration service. Unlike the role listing endpoint, these roles include INSTANCE_ADMIN.
+ * <br/>
+ * A replica is dropped each time a {@link RoleEvent} is received for the tenant, is not used once older than the
+ * configured time to live and is replaced as soon as a more recent access rights version is retrieved.
+ *
+ * @author REGARDS Team
+ */
+public class RoleHierarchyReplica implements ApplicationListener<ApplicationReadyEvent>, IHandler<RoleEvent> {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoleHierarchyReplica.class);
+
+    private final ISubscriber subscriber;
+
+    /**
+     * Time to live of a replica in milliseconds
+     */
+    private final long timeToLive;
+
+    /**
+     * Hierarchies by tenant
+     */
+    private final Map<String, ReplicatedHierarchy> hierarchies = new ConcurrentHashMap<>();
+
+    /**
+     * Number of received role events by tenant, used to discard a replica retrieved while roles were changing
+     */
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public RoleHierarchyReplica(ISubscriber subscriber, long timeToLive) {
+        this.subscriber = subscriber;
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        subscriber.subscribeTo(RoleEvent.class, this);
+    }
+
+    @Override
+    public void handle(TenantWrapper<RoleEvent> wrapper) {
+        getGenerationCounter(wrapper.getTenant()).incrementAndGet();
+        if (hierarchies.remove(wrapper.getTenant()) != null) {
+            LOGGER.debug("Role hierarchy replica of tenant {} dropped", wrapper.getTenant());
+        }
+    }
+
+    /**
+     * @param tenant tenant
+     * @param minVersion last known access rights version of the tenant
+     * @return replicated {@link RoleHierarchy} or empty optional if missing, expired or older than the given version
+     */
+    public Optional<RoleHierarchy> get(String tenant, long minVersion) {
+        ReplicatedHierarchy replicated = hierarchies.get(tenant);
+        if ((replicated == null) || (replicated.version < minVersion)
+                || ((System.currentTimeMillis() - replicated.creationTime) > timeToLive)) {
+            return Optional.empty();
+        }
+        return Optional.of(replicated.hierarchy);
+    }
+
+    /**
+     * @param tenant tenant
+     * @return current generation of the tenant, to be given back to {@link #put(String, AuthoritiesSnapshot, long)}
+     */
+    public long getGeneration(String tenant) {
+        return getGenerationCounter(tenant).get();
+    }
+
+    /**
+     * Replicate the hierarchy described by the given snapshot unless roles changed since its retrieval started or a
+     * more recent one is already replicated
+     * @param tenant tenant
+     * @param snapshot snapshot retrieved from administration service
+     * @param generation generation of the tenant read before the snapshot retrieval
+     */
+    public void put(String tenant, AuthoritiesSnapshot snapshot, long generation) {
+        if (generation != getGeneration(tenant)) {
+            return;
+        }
+        ReplicatedHierarchy replicated = new ReplicatedHierarchy(toHierarchy(snapshot), snapshot.getVersion());
+        hierarchies.merge(tenant, replicated,
+                          (current, retrieved) -> retrieved.version >= current.version ? retrieved : current);
+        LOGGER.debug("Role hierarchy replica of tenant {} built with {} roles (version {})", tenant,
+                     replicated.hierarchy.size(), replicated.version);
+    }
+
+    private AtomicLong getGenerationCounter(String tenant) {
+        return generations.computeIfAbsent(tenant, t -> new AtomicLong());
+    }
+
+    /**
+     * @return role hierarchy described by the given snapshot
+     */
+    static RoleHierarchy toHierarchy(AuthoritiesSnapshot snapshot) {
+        Map<String, Role> roles = new HashMap<>();
+        for (RoleEntry entry : snapshot.getRoles()) {
+            Role role = new Role(entry.getName());
+            role.setNative(entry.isNative());
+            roles.put(entry.getName(), role);
+        }
+        for (RoleEntry entry : snapshot.getRoles()) {
+            if (entry.getParent() != null) {
+                roles.get(entry.getName()).setParentRole(roles.get(entry.getParent()));
+            }
+        }
+        return RoleHierarchy.of(roles.values());
+    }
+
+    /**
+     * Hierarchy with the access rights version it was built from
+     */
+    private static class ReplicatedHierarchy {
+
+        private final RoleHierarchy hierarchy;
+
+        private final long version;
+
+        private final long creationTime = System.currentTimeMillis();
+
+        ReplicatedHierarchy(RoleHierarchy hierarchy, long version) {
+            this.hierarchy = hierarchy;
+            this.version = version;
+        }
+    }
+}